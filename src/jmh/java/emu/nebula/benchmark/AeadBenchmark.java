@@ -0,0 +1,139 @@
+package emu.nebula.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.*;
+
+import emu.nebula.util.AeadCipher;
+import emu.nebula.util.AeadHelper;
+
+/**
+ * Packet encryption. Decrypting works in place, so every decrypt call starts by copying the encrypted message.
+ * The baseline benchmarks are the old path, which looked up a new cipher and copied the message on every call.
+ * The virtual benchmarks run each call on a new virtual thread, like http requests, so per-thread caches never hit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AeadBenchmark {
+    @Param({"64", "1024", "16384", "65536"})
+    private int size;
+    
+    // 0 = gcm, 1 = chacha20
+    @Param({"0", "1"})
+    private int method;
+    
+    private AeadCipher cipher;
+    private byte[] key;
+    private byte[] key3;
+    private byte[] message;
+    private byte[] encrypted;
+    private byte[] buffer;
+    private ExecutorService virtualExecutor;
+    
+    @Setup
+    public void setup() throws Exception {
+        this.key = AeadHelper.generateBytes(32);
+        this.cipher = new AeadCipher(this.key, this.method);
+        this.key3 = AeadHelper.generateBytes(32);
+        
+        this.message = new byte[this.size];
+        ThreadLocalRandom.current().nextBytes(this.message);
+        
+        this.encrypted = this.cipher.encrypt(this.message, 0, this.message.length);
+        this.buffer = new byte[this.encrypted.length];
+        
+        // Garble cipher and a new virtual thread per task
+        AeadHelper.loadKeys("global");
+        this.virtualExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+    
+    @TearDown
+    public void tearDown() {
+        this.virtualExecutor.close();
+    }
+    
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return this.cipher.encrypt(this.message, 0, this.message.length);
+    }
+    
+    @Benchmark
+    public int decrypt() throws Exception {
+        System.arraycopy(this.encrypted, 0, this.buffer, 0, this.encrypted.length);
+        return this.cipher.decrypt(this.buffer, 0, this.buffer.length);
+    }
+    
+    @Benchmark
+    public byte[] encryptBasic() {
+        System.arraycopy(this.encrypted, 0, this.buffer, 0, this.encrypted.length);
+        AeadHelper.encryptBasicInPlace(this.buffer, this.key3);
+        return this.buffer;
+    }
+    
+    @Benchmark
+    public byte[] encryptBaseline() throws Exception {
+        byte[] iv = AeadHelper.generateBytes(AeadHelper.IV_SIZE);
+        
+        Cipher cipher = createBaselineCipher(Cipher.ENCRYPT_MODE, iv);
+        cipher.updateAAD(iv);
+        byte[] encrypted = cipher.doFinal(this.message);
+        
+        byte[] data = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, data, 0, iv.length);
+        System.arraycopy(encrypted, 0, data, iv.length, encrypted.length);
+        
+        return data;
+    }
+    
+    @Benchmark
+    public byte[] decryptBaseline() throws Exception {
+        byte[] iv = new byte[AeadHelper.IV_SIZE];
+        byte[] data = new byte[this.encrypted.length - iv.length];
+        System.arraycopy(this.encrypted, 0, iv, 0, iv.length);
+        System.arraycopy(this.encrypted, iv.length, data, 0, data.length);
+        
+        Cipher cipher = createBaselineCipher(Cipher.DECRYPT_MODE, iv);
+        cipher.updateAAD(iv);
+        
+        return cipher.doFinal(data);
+    }
+    
+    private Cipher createBaselineCipher(int mode, byte[] iv) throws Exception {
+        if (this.method == 1) {
+            Cipher cipher = Cipher.getInstance("ChaCha20-Poly1305/None/NoPadding");
+            cipher.init(mode, new SecretKeySpec(this.key, "ChaCha20"), new IvParameterSpec(iv));
+            return cipher;
+        } else {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(mode, new SecretKeySpec(this.key, "AES"), new GCMParameterSpec(128, iv));
+            return cipher;
+        }
+    }
+    
+    @Benchmark
+    public byte[] encryptHelperVirtual() throws Exception {
+        return this.virtualExecutor.submit(() -> AeadHelper.encrypt(this.message, this.key, this.method)).get();
+    }
+    
+    @Benchmark
+    public byte[] encryptGarbleVirtual() throws Exception {
+        return this.virtualExecutor.submit(() -> AeadHelper.getServerGarbleCipher().encrypt(this.message, 0, this.message.length)).get();
+    }
+    
+    @Benchmark
+    public byte[] encryptBaselineVirtual() throws Exception {
+        return this.virtualExecutor.submit(this::encryptBaseline).get();
+    }
+}
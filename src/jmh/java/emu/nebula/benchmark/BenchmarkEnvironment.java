@@ -0,0 +1,80 @@
+package emu.nebula.benchmark;
+
+import emu.nebula.Config;
+import emu.nebula.Nebula;
+import emu.nebula.data.GameData;
+import emu.nebula.game.account.AccountHelper;
+import emu.nebula.game.inventory.ItemParamMap;
+import emu.nebula.game.player.Player;
+import emu.nebula.util.Snowflake;
+
+/**
+ * Starts a game server without networking for benchmarks. The database is an in-memory mongo server, so
+ * benchmarks don't need a running database. Game data is loaded from the resources folder of the working
+ * directory (override with -Dnebula.resources=path).
+ */
+public class BenchmarkEnvironment {
+    
+    public static synchronized void start() {
+        if (Nebula.getGameContext() != null) {
+            return;
+        }
+        
+        var config = new Config();
+        
+        // Use an in-memory database on a random port
+        config.internalMongoServer.filePath = "";
+        config.internalMongoServer.port = 0;
+        config.accountDatabase.useInternal = true;
+        config.useSameDatabase = true;
+        
+        // Game data
+        config.resourceDir = System.getProperty("nebula.resources", config.resourceDir);
+        
+        // Dont send welcome mails or expose metrics
+        config.serverOptions.welcomeMail = null;
+        config.serverOptions.metricsEndpoint = false;
+        
+        Nebula.startHeadless(config);
+    }
+    
+    /**
+     * Creates a new player with every available character and disc, and lots of materials
+     */
+    public static Player createPlayer() {
+        start();
+        
+        // Create account
+        var account = AccountHelper.createAccount("bench" + Snowflake.newUid() + "@nebula", null, 0);
+        
+        // Create player
+        var player = new Player(account, "Benchmark", false);
+        player.onLoad();
+        player.save();
+        player.onCreate();
+        
+        // Add characters and discs
+        for (var data : GameData.getCharacterDataTable()) {
+            if (data.isAvailable() && data.isVisible() && !player.getCharacters().hasCharacter(data.getId())) {
+                player.getCharacters().addCharacter(data.getId());
+            }
+        }
+        
+        for (var data : GameData.getDiscDataTable()) {
+            if (data.isAvailable() && data.isVisible() && !player.getCharacters().hasDisc(data.getId())) {
+                player.getCharacters().addDisc(data.getId());
+            }
+        }
+        
+        // Add items
+        var items = new ItemParamMap();
+        
+        for (var data : GameData.getItemDataTable()) {
+            items.add(data.getId(), 10_000);
+        }
+        
+        player.getInventory().addItems(items);
+        
+        return player;
+    }
+}
@@ -0,0 +1,106 @@
+package emu.nebula.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import emu.nebula.database.codecs.IntSetCodec;
+import emu.nebula.database.codecs.ItemParamMapCodec;
+import emu.nebula.game.inventory.ItemParamMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+
+/**
+ * Custom mongodb codecs. Values are written as a field of a document, the same way they are stored in the database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+    @Param({"10", "1000"})
+    private int size;
+    
+    private final IntSetCodec intSetCodec = new IntSetCodec();
+    private final ItemParamMapCodec itemParamMapCodec = new ItemParamMapCodec();
+    
+    private IntSet intSet;
+    private ItemParamMap itemParamMap;
+    
+    private byte[] intSetBytes;
+    private byte[] itemParamMapBytes;
+    
+    @Setup
+    public void setup() {
+        var random = ThreadLocalRandom.current();
+        
+        this.intSet = new IntOpenHashSet();
+        this.itemParamMap = new ItemParamMap();
+        
+        while (this.intSet.size() < this.size) {
+            this.intSet.add(random.nextInt(1, 1_000_000));
+        }
+        
+        for (int id : this.intSet) {
+            this.itemParamMap.put(id, random.nextInt(1, 10_000));
+        }
+        
+        this.intSetBytes = this.encodeIntSet();
+        this.itemParamMapBytes = this.encodeItemParamMap();
+    }
+    
+    @Benchmark
+    public byte[] encodeIntSet() {
+        var buffer = new BasicOutputBuffer();
+        
+        try (var writer = new BsonBinaryWriter(buffer)) {
+            writer.writeStartDocument();
+            writer.writeName("value");
+            this.intSetCodec.encode(writer, this.intSet, EncoderContext.builder().build());
+            writer.writeEndDocument();
+        }
+        
+        return buffer.toByteArray();
+    }
+    
+    @Benchmark
+    public IntSet decodeIntSet() {
+        try (var reader = new BsonBinaryReader(ByteBuffer.wrap(this.intSetBytes))) {
+            reader.readStartDocument();
+            reader.readName();
+            return this.intSetCodec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+    
+    @Benchmark
+    public byte[] encodeItemParamMap() {
+        var buffer = new BasicOutputBuffer();
+        
+        try (var writer = new BsonBinaryWriter(buffer)) {
+            writer.writeStartDocument();
+            writer.writeName("value");
+            this.itemParamMapCodec.encode(writer, this.itemParamMap, EncoderContext.builder().build());
+            writer.writeEndDocument();
+        }
+        
+        return buffer.toByteArray();
+    }
+    
+    @Benchmark
+    public ItemParamMap decodeItemParamMap() {
+        try (var reader = new BsonBinaryReader(ByteBuffer.wrap(this.itemParamMapBytes))) {
+            reader.readStartDocument();
+            reader.readName();
+            return this.itemParamMapCodec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package emu.nebula.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import emu.nebula.net.NetMsgId;
+import emu.nebula.net.NetMsgPacket;
+import emu.nebula.net.PacketHelper;
+import emu.nebula.proto.Public.Mail;
+import emu.nebula.proto.Public.MailState;
+import emu.nebula.proto.Public.Mails;
+
+/**
+ * Response encoding, with and without a chain of notifies attached through the NextPackage field
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketBenchmark {
+    // Amount of notifies chained to the response
+    @Param({"0", "4", "16"})
+    private int chain;
+    
+    private Mails proto;
+    
+    @Setup
+    public void setup() {
+        PacketHelper.cacheProtos();
+        
+        this.proto = Mails.newInstance();
+        
+        for (int i = 1; i <= 50; i++) {
+            this.proto.addList(Mail.newInstance()
+                    .setId(i)
+                    .setAuthor("System")
+                    .setSubject("Subject " + i)
+                    .setDesc("Mail body used for the packet encoding benchmark")
+                    .setTime(1_700_000_000L + i));
+        }
+    }
+    
+    @Benchmark
+    public byte[] encode() {
+        // Same as GameSession.addNextPackages: every notify is encoded into the NextPackage field of the one before it
+        NetMsgPacket current = null;
+        
+        for (int i = 0; i < this.chain; i++) {
+            var next = new NetMsgPacket(NetMsgId.mail_state_notify, MailState.newInstance().setNew(true));
+            
+            if (current != null) {
+                PacketHelper.setNextPackage(next.getProto(), current.toByteArray());
+            }
+            
+            current = next;
+        }
+        
+        if (current != null) {
+            PacketHelper.setNextPackage(this.proto, current.toByteArray());
+        } else {
+            this.proto.clearNextPackage();
+        }
+        
+        return PacketHelper.encodeMsg(NetMsgId.mail_list_succeed_ack, this.proto);
+    }
+}
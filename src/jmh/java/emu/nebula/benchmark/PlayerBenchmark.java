@@ -0,0 +1,93 @@
+package emu.nebula.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import emu.nebula.Nebula;
+import emu.nebula.data.GameData;
+import emu.nebula.game.gacha.GachaResult;
+import emu.nebula.game.inventory.ItemParamMap;
+import emu.nebula.game.player.Player;
+import emu.nebula.game.player.PlayerChangeInfo;
+import emu.nebula.proto.PlayerData.PlayerInfo;
+
+/**
+ * Player paths that scale with the size of the account. Uses a player that owns every character and disc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerBenchmark {
+    private Player player;
+    private int bannerId;
+    private int bannerCurrency;
+    
+    @Setup
+    public void setup() {
+        this.player = BenchmarkEnvironment.createPlayer();
+        
+        // Find a banner we can pull on
+        for (var data : GameData.getGachaDataTable()) {
+            if (data.getStorageData() != null) {
+                this.bannerId = data.getId();
+                this.bannerCurrency = data.getStorageData().getDefaultId();
+                break;
+            }
+        }
+    }
+    
+    @Setup(Level.Iteration)
+    public void addCurrency() {
+        if (this.bannerCurrency > 0) {
+            this.player.getInventory().addItem(this.bannerCurrency, 1_000_000);
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        Nebula.getGameDatabase().flush();
+    }
+    
+    @Benchmark
+    public PlayerInfo toProto() {
+        return this.player.toProto();
+    }
+    
+    @Benchmark
+    public PlayerChangeInfo addItems(Items items) {
+        return this.player.getInventory().addItems(items.items);
+    }
+    
+    @Benchmark
+    public GachaResult gachaTenPull() {
+        return Nebula.getGameContext().getGachaModule().spin(this.player, this.bannerId, 2);
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Items {
+        // Amount of different items added at once
+        @Param({"10", "100", "1000"})
+        private int itemCount;
+        
+        private ItemParamMap items;
+        
+        @Setup
+        public void setup() {
+            BenchmarkEnvironment.start();
+            
+            this.items = new ItemParamMap();
+            
+            for (var data : GameData.getItemDataTable()) {
+                if (this.items.size() >= this.itemCount) {
+                    break;
+                }
+                
+                this.items.add(data.getId(), 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package emu.nebula.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import emu.nebula.data.GameData;
+import emu.nebula.game.tower.StarTowerGame;
+import emu.nebula.game.tower.cases.StarTowerPotentialCase;
+import emu.nebula.proto.Public.FormationInfo;
+import emu.nebula.proto.StarTowerApply.StarTowerApplyReq;
+
+/**
+ * Potential selectors are created every time a player levels up in the star tower.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StarTowerBenchmark {
+    private StarTowerGame game;
+    private int charId;
+    
+    @Setup
+    public void setup() {
+        var player = BenchmarkEnvironment.createPlayer();
+        
+        // Create formation with the first 3 characters and discs
+        var info = FormationInfo.newInstance().setNumber(1);
+        
+        player.getCharacters().getCharacterCollection().stream()
+            .limit(3)
+            .forEach(c -> info.addCharIds(c.getCharId()));
+        
+        player.getCharacters().getDiscCollection().stream()
+            .limit(3)
+            .forEach(d -> info.addDiscIds(d.getDiscId()));
+        
+        if (!player.getFormations().updateFormation(info)) {
+            throw new IllegalStateException("Could not create formation");
+        }
+        
+        // Start the first tower
+        var data = GameData.getStarTowerDataTable().iterator().next();
+        
+        var req = StarTowerApplyReq.newInstance()
+                .setId(data.getId())
+                .setFormationId(1);
+        
+        if (player.getStarTowerManager().apply(req) == null) {
+            throw new IllegalStateException("Could not start star tower " + data.getId());
+        }
+        
+        this.game = player.getStarTowerManager().getGame();
+        this.charId = this.game.getCharIds()[0];
+    }
+    
+    @Benchmark
+    public StarTowerPotentialCase createPotentialSelector() {
+        return this.game.createPotentialSelector(this.charId);
+    }
+}
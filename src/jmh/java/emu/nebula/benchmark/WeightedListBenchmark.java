@@ -0,0 +1,74 @@
+package emu.nebula.benchmark;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import emu.nebula.util.AliasTable;
+
+/**
+ * Alias table draws compared to the TreeMap sampler that WeightedList used before. The TreeMap sampler is
+ * copied here as the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeightedListBenchmark {
+    @Param({"10", "100", "1000"})
+    private int size;
+    
+    private AliasTable aliasTable;
+    private NavigableMap<Double, Integer> treeMap;
+    private double total;
+    
+    @Setup
+    public void setup() {
+        var random = ThreadLocalRandom.current();
+        var weights = new double[this.size];
+        
+        this.treeMap = new TreeMap<>();
+        this.total = 0;
+        
+        for (int i = 0; i < this.size; i++) {
+            weights[i] = random.nextInt(1, 1000);
+            
+            this.total += weights[i];
+            this.treeMap.put(this.total, i);
+        }
+        
+        this.aliasTable = new AliasTable(weights);
+    }
+    
+    @Benchmark
+    public int aliasTable() {
+        return this.aliasTable.next();
+    }
+    
+    @Benchmark
+    public int treeMap() {
+        double value = ThreadLocalRandom.current().nextDouble() * this.total;
+        return this.treeMap.higherEntry(value).getValue();
+    }
+    
+    /**
+     * Ten-pull
+     */
+    @Benchmark
+    public void aliasTableSample10(Blackhole bh) {
+        this.aliasTable.sample(10, bh::consume);
+    }
+    
+    @Benchmark
+    public void treeMapSample10(Blackhole bh) {
+        for (int i = 0; i < 10; i++) {
+            bh.consume(this.treeMap());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package emu.nebula.loadtest;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import emu.nebula.Config;
+import emu.nebula.Nebula;
+import emu.nebula.Nebula.ServerType;
+import emu.nebula.data.GameData;
+import emu.nebula.server.HttpServer;
+import emu.nebula.util.AeadHelper;
+
+/**
+ * Replays scripted player sessions against a game server with many concurrent clients, then prints the throughput
+ * and latency of every opcode. Every client runs on its own virtual thread.
+ * <p>
+ * Without a url, a game server with an in-memory database is started in the same process.
+ */
+public class LoadTest {
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private final LoadTestConfig config;
+    private final LoadTestStats stats;
+    private final HttpClient http;
+    private final String url;
+
+    private final AtomicInteger loggedIn;
+    private final AtomicInteger failedLogins;
+    private final ConcurrentLinkedQueue<String> errors;
+    private volatile boolean running;
+
+    // Clients wait for every login to finish before they start their sessions
+    private final CountDownLatch loginsDone;
+    private final CountDownLatch sessionsStarted;
+
+    public LoadTest(LoadTestConfig config, String url) {
+        this.config = config;
+        this.stats = new LoadTestStats();
+        this.url = url;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        this.loggedIn = new AtomicInteger();
+        this.failedLogins = new AtomicInteger();
+        this.errors = new ConcurrentLinkedQueue<>();
+        this.loginsDone = new CountDownLatch(config.getClients());
+        this.sessionsStarted = new CountDownLatch(1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        var config = LoadTestConfig.parse(args);
+        String url = config.getUrl();
+
+        if (config.isEmbedded()) {
+            url = startServer(config);
+        } else {
+            AeadHelper.loadKeys(config.getRegion());
+        }
+
+        // Remove scripts that are missing ids
+        var scripts = new ArrayList<LoadTestScript>();
+
+        for (var script : config.getScripts()) {
+            if (script.isEnabled(config)) {
+                scripts.add(script);
+            } else {
+                log.warn("Skipping script " + script + ", its ids are not set");
+            }
+        }
+
+        if (scripts.isEmpty()) {
+            log.error("No scripts to run");
+            System.exit(1);
+        }
+
+        config.scripts = scripts;
+
+        // Run
+        new LoadTest(config, url).run();
+        System.exit(0);
+    }
+
+    /**
+     * Starts a game server with an in-memory database and fills in the script ids from the game data
+     * @return The url of the server
+     */
+    private static String startServer(LoadTestConfig config) {
+        var serverConfig = new Config();
+
+        // Use an in-memory database on a random port
+        serverConfig.internalMongoServer.filePath = "";
+        serverConfig.internalMongoServer.port = 0;
+        serverConfig.accountDatabase.useInternal = true;
+        serverConfig.useSameDatabase = true;
+
+        serverConfig.region = config.getRegion();
+        serverConfig.resourceDir = config.getResourceDir();
+        serverConfig.serverOptions.welcomeMail = null;
+
+        serverConfig.httpServer.bindAddress = "127.0.0.1";
+        serverConfig.httpServer.bindPort = config.getPort();
+        serverConfig.httpServer.useSSL = false;
+
+        Nebula.startHeadless(serverConfig);
+        new HttpServer(ServerType.BOTH).start();
+
+        // Get ids for scripts
+        if (config.getGachaId() == 0) {
+            for (var data : GameData.getGachaDataTable()) {
+                if (data.getStorageData() != null) {
+                    config.gachaId = data.getId();
+                    config.gachaItemId = data.getStorageData().getDefaultId();
+                    break;
+                }
+            }
+        }
+
+        if (config.getStarTowerId() == 0) {
+            for (var data : GameData.getStarTowerDataTable()) {
+                config.starTowerId = data.getId();
+                break;
+            }
+        }
+
+        if (config.getMailItemId() == 0) {
+            config.mailItemId = config.getGachaItemId();
+        }
+
+        return "http://127.0.0.1:" + config.getPort();
+    }
+
+    public void run() throws Exception {
+        // Prefix for account emails, so every run uses new accounts
+        String prefix = "load" + System.currentTimeMillis();
+        long rampUpDelay = this.config.getClients() > 0 ? this.config.getRampUp() * 1000L / this.config.getClients() : 0;
+
+        log.info("Starting " + this.config.getClients() + " clients against " + this.url + " with scripts " + this.config.getScripts());
+
+        // Start clients
+        var threads = new ArrayList<Thread>();
+        long rampUpStart = System.nanoTime();
+        this.running = true;
+
+        for (int i = 0; i < this.config.getClients(); i++) {
+            var client = new LoadTestClient(this.http, this.stats, this.url, prefix + "_" + i + "@nebula");
+            threads.add(Thread.ofVirtual().name("LoadTestClient-" + i).start(() -> this.runClient(client)));
+
+            if (rampUpDelay > 0) {
+                Thread.sleep(rampUpDelay);
+            }
+        }
+
+        // Wait for the last logins, then report them separately from the sessions
+        this.loginsDone.await();
+
+        double rampUpSeconds = (System.nanoTime() - rampUpStart) / 1e9;
+
+        log.info("Logged in " + this.loggedIn.get() + " clients (" + this.failedLogins.get() + " failed)");
+        log.info("Ramp up over " + String.format("%.1f", rampUpSeconds) + " seconds:");
+        System.out.println(this.stats.toReport(rampUpSeconds));
+        this.stats.reset();
+
+        // Start sessions
+        long start = System.nanoTime();
+        this.sessionsStarted.countDown();
+
+        Thread.sleep(this.config.getDuration() * 1000L);
+
+        this.running = false;
+
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // Report
+        log.info("Results over " + String.format("%.1f", seconds) + " seconds:");
+        System.out.println(this.stats.toReport(seconds));
+
+        if (!this.errors.isEmpty()) {
+            log.warn("First errors:");
+            this.errors.stream().limit(10).forEach(log::warn);
+        }
+    }
+
+    private void runClient(LoadTestClient client) {
+        var random = ThreadLocalRandom.current();
+
+        // Login and setup scripts
+        try {
+            client.login();
+
+            for (var script : this.config.getScripts()) {
+                script.setup(client, this.config);
+            }
+
+            this.loggedIn.incrementAndGet();
+        } catch (Exception e) {
+            this.failedLogins.incrementAndGet();
+            this.addError(client, e);
+            return;
+        } finally {
+            this.loginsDone.countDown();
+        }
+
+        try {
+            this.sessionsStarted.await();
+        } catch (InterruptedException e) {
+            return;
+        }
+
+        // Replay sessions
+        while (this.running) {
+            var script = this.config.getScripts().get(random.nextInt(this.config.getScripts().size()));
+
+            try {
+                script.run(client, this.config);
+            } catch (Exception e) {
+                this.addError(client, e);
+            }
+
+            if (this.config.getThinkTime() > 0) {
+                try {
+                    Thread.sleep(random.nextInt(this.config.getThinkTime() * 2 + 1));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void addError(LoadTestClient client, Exception e) {
+        // Keep the first errors only
+        if (this.errors.size() < 100) {
+            this.errors.add(client.getEmail() + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package emu.nebula.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.Map;
+
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.params.ECPublicKeyParameters;
+
+import emu.nebula.net.NetMsgId;
+import emu.nebula.net.NetMsgIdUtils;
+import emu.nebula.net.PacketHelper;
+import emu.nebula.proto.Ike.IKEReq;
+import emu.nebula.proto.Ike.IKEResp;
+import emu.nebula.proto.PlayerData.PlayerInfo;
+import emu.nebula.proto.PlayerLogin.LoginReq;
+import emu.nebula.proto.PlayerLogin.LoginResp;
+import emu.nebula.proto.PlayerRegOuterClass.PlayerReg;
+import emu.nebula.proto.PlayerSignatureEdit.PlayerSignatureEditReq;
+import emu.nebula.server.routes.entity.OverseaUserLoginEntity;
+import emu.nebula.util.AeadCipher;
+import emu.nebula.util.AeadHelper;
+import emu.nebula.util.JsonUtils;
+import lombok.Getter;
+import us.hebi.quickbuf.ProtoMessage;
+import us.hebi.quickbuf.ProtoSource;
+
+/**
+ * Headless game client. Logs in through the same http routes and key exchange as the real client, then sends
+ * requests to the agent zone endpoint and records their latency.
+ */
+@Getter
+public class LoadTestClient {
+    // Request header in front of the msgId, the server skips it
+    private static final int HEADER_SIZE = 10;
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    private final HttpClient http;
+    private final LoadTestStats stats;
+    private final String url;
+    private final URI agentZoneUri;
+    private final String email;
+
+    // Session
+    private String token;
+    private AeadCipher cipher;
+    private PlayerInfo player;
+
+    public LoadTestClient(HttpClient http, LoadTestStats stats, String url, String email) {
+        this.http = http;
+        this.stats = stats;
+        this.url = url;
+        this.agentZoneUri = URI.create(url + "/agent-zone-1/");
+        this.email = email;
+    }
+
+    // Login
+
+    /**
+     * Logs into the account, creating the account and player if they don't exist yet
+     */
+    public void login() throws Exception {
+        // Get login token from the sdk login route
+        String loginToken = this.userLogin();
+
+        // Key exchange
+        this.keyExchange();
+
+        // Login to the game server
+        var req = LoginReq.newInstance();
+        req.getMutableOfficialOverseas().setToken(loginToken);
+
+        var loginRsp = this.send(NetMsgId.player_login_req, req).expect(NetMsgId.player_login_succeed_ack);
+
+        // Token is regenerated after logging in
+        this.token = loginRsp.parse(LoginResp.newInstance()).getToken();
+
+        // Get player data, register a new player if we dont have one yet
+        var rsp = this.send(NetMsgId.player_data_req);
+
+        if (rsp.getMsgId() == NetMsgId.player_new_notify) {
+            var reg = PlayerReg.newInstance()
+                    .setNickname("Load" + (this.email.hashCode() & 0xffff))
+                    .setGender(false);
+
+            rsp = this.send(NetMsgId.player_reg_req, reg);
+        }
+
+        this.player = rsp.expect(NetMsgId.player_data_succeed_ack).parse(PlayerInfo.newInstance());
+    }
+
+    private String userLogin() throws Exception {
+        var body = JsonUtils.encode(Map.of("OpenID", this.email, "Token", "000000"));
+
+        var request = HttpRequest.newBuilder(URI.create(this.url + "/user/login"))
+                .POST(BodyPublishers.ofString(body))
+                .build();
+
+        var entry = this.stats.getEntry("http /user/login");
+        long start = System.nanoTime();
+
+        try {
+            var response = this.http.send(request, BodyHandlers.ofString());
+            var result = JsonUtils.decode(response.body(), OverseaUserLoginEntity.class);
+
+            if (result == null || result.Code != 200 || result.Data == null || result.Data.UserInfo == null) {
+                throw new IOException("Login failed for " + this.email + ": " + response.body());
+            }
+
+            entry.record(System.nanoTime() - start, false);
+            return result.Data.UserInfo.Token;
+        } catch (Exception e) {
+            entry.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private void keyExchange() throws Exception {
+        var pair = AeadHelper.generateECDHKEyPair();
+
+        byte[] clientPrivate = ((ECPrivateKeyParameters) pair.getPrivate()).getD().toByteArray();
+        byte[] clientPublic = ((ECPublicKeyParameters) pair.getPublic()).getQ().getEncoded(false);
+
+        var req = IKEReq.newInstance()
+                .setPubKey(clientPublic);
+
+        var rsp = this.send(NetMsgId.ike_req, req)
+                .expect(NetMsgId.ike_succeed_ack)
+                .parse(IKEResp.newInstance());
+
+        byte[] key = AeadHelper.generateClientKey(clientPublic, clientPrivate, rsp.getPubKey().toArray());
+
+        this.token = rsp.getToken();
+        this.cipher = new AeadCipher(key, rsp.getCipher());
+    }
+
+    // Requests
+
+    /**
+     * Runs a command through the signature edit request. The server always answers commands with a failed ack.
+     */
+    public void command(String command) throws Exception {
+        this.send(NetMsgId.player_signature_edit_req, PlayerSignatureEditReq.newInstance().setSignature(command));
+    }
+
+    public Response send(int msgId) throws Exception {
+        return this.send(msgId, EMPTY_BYTES);
+    }
+
+    public Response send(int msgId, ProtoMessage<?> proto) throws Exception {
+        return this.send(msgId, proto.toByteArray());
+    }
+
+    private Response send(int msgId, byte[] payload) throws Exception {
+        var entry = this.stats.getEntry(NetMsgIdUtils.getMsgIdName(msgId));
+        long start = System.nanoTime();
+
+        try {
+            var request = HttpRequest.newBuilder(this.agentZoneUri)
+                    .POST(BodyPublishers.ofByteArray(this.encrypt(msgId, payload)));
+
+            if (this.token != null) {
+                request.header("X-Token", this.token);
+            }
+
+            var response = this.http.send(request.build(), BodyHandlers.ofByteArray());
+
+            if (response.statusCode() != 200 || response.body().length <= AeadHelper.IV_SIZE) {
+                throw new IOException("Request " + NetMsgIdUtils.getMsgIdName(msgId) + " failed with status " + response.statusCode());
+            }
+
+            var result = this.decrypt(response.body());
+
+            entry.record(System.nanoTime() - start, result.isFailed());
+            return result;
+        } catch (Exception e) {
+            entry.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private byte[] encrypt(int msgId, byte[] payload) throws Exception {
+        // Before the key exchange, messages are encrypted with the garble key and obfuscated
+        if (this.cipher == null) {
+            byte[] data = PacketHelper.encodeMsg(msgId, payload);
+            byte[] message = AeadHelper.getServerGarbleCipher().encrypt(data, 0, data.length);
+
+            AeadHelper.encryptBasicInPlace(message, AeadHelper.serverGarbleKey);
+
+            return message;
+        }
+
+        // Session messages have a header in front of the msgId
+        byte[] data = new byte[HEADER_SIZE + 2 + payload.length];
+
+        data[HEADER_SIZE] = (byte) (msgId >> 8);
+        data[HEADER_SIZE + 1] = (byte) msgId;
+        System.arraycopy(payload, 0, data, HEADER_SIZE + 2, payload.length);
+
+        return this.cipher.encrypt(data, 0, data.length);
+    }
+
+    private Response decrypt(byte[] message) throws Exception {
+        int length = 0;
+
+        if (this.cipher == null) {
+            AeadHelper.decryptBasicInPlace(message, AeadHelper.serverGarbleKey);
+            length = AeadHelper.getServerGarbleCipher().decrypt(message, 0, message.length);
+        } else {
+            length = this.cipher.decrypt(message, 0, message.length);
+        }
+
+        int offset = AeadHelper.IV_SIZE;
+        int msgId = (message[offset] << 8) | (message[offset + 1] & 0xff);
+
+        return new Response(msgId, message, offset + 2, length - 2);
+    }
+
+    // Response
+
+    @Getter
+    public static class Response {
+        private final int msgId;
+        private final byte[] data;
+        private final int offset;
+        private final int length;
+
+        private Response(int msgId, byte[] data, int offset, int length) {
+            this.msgId = msgId;
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public String getName() {
+            return NetMsgIdUtils.getMsgIdName(this.msgId);
+        }
+
+        public boolean isFailed() {
+            return this.getName().endsWith("_failed_ack");
+        }
+
+        /**
+         * Throws an exception if the response isn't the expected msgId
+         */
+        public Response expect(int msgId) throws IOException {
+            if (this.msgId != msgId) {
+                throw new IOException("Expected " + NetMsgIdUtils.getMsgIdName(msgId) + " but got " + this.getName());
+            }
+
+            return this;
+        }
+
+        public <T extends ProtoMessage<T>> T parse(T proto) throws IOException {
+            proto.mergeFrom(ProtoSource.newInstance(this.data, this.offset, this.length));
+            return proto;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package emu.nebula.loadtest;
+
+import java.util.List;
+
+import lombok.Getter;
+
+@Getter
+public class LoadTestConfig {
+    // Server to connect to. If empty, a server with an in-memory database is started in the same process.
+    public String url = "";
+    // Port of the embedded server.
+    public int port = 18080;
+    // Region of the server, used to pick the encryption keys.
+    public String region = "global";
+    // Game data folder of the embedded server.
+    public String resourceDir = "./resources";
+
+    // Amount of concurrent clients. Every client logs into its own account.
+    public int clients = 100;
+    // How long (in seconds) to replay sessions for, after all clients have logged in.
+    public int duration = 60;
+    // How long (in seconds) to spread client logins over.
+    public int rampUp = 10;
+    // How long (in milliseconds) a client waits between requests. Set to 0 to send requests back to back.
+    public int thinkTime = 100;
+    // Scripted sessions that clients replay. Every client picks a random script for each session.
+    public List<LoadTestScript> scripts = List.of(LoadTestScript.values());
+
+    // Ids used by the scripts. Filled in from the game data when running an embedded server.
+    public int gachaId = 0;
+    public int gachaItemId = 0;
+    public int starTowerId = 0;
+    public int mailItemId = 0;
+
+    /**
+     * Parses arguments like "-clients 500 -duration 120 -scripts gacha,mail"
+     */
+    public static LoadTestConfig parse(String[] args) {
+        var config = new LoadTestConfig();
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+
+            switch (args[i]) {
+                case "-url" -> config.url = value;
+                case "-port" -> config.port = Integer.parseInt(value);
+                case "-region" -> config.region = value;
+                case "-resources" -> config.resourceDir = value;
+                case "-clients" -> config.clients = Integer.parseInt(value);
+                case "-duration" -> config.duration = Integer.parseInt(value);
+                case "-rampup" -> config.rampUp = Integer.parseInt(value);
+                case "-think" -> config.thinkTime = Integer.parseInt(value);
+                case "-scripts" -> config.scripts = LoadTestScript.parseList(value);
+                case "-gacha" -> config.gachaId = Integer.parseInt(value);
+                case "-gachaitem" -> config.gachaItemId = Integer.parseInt(value);
+                case "-tower" -> config.starTowerId = Integer.parseInt(value);
+                case "-mailitem" -> config.mailItemId = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        return config;
+    }
+
+    public boolean isEmbedded() {
+        return this.url == null || this.url.isEmpty();
+    }
+}
@@ -0,0 +1,152 @@
+package emu.nebula.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import emu.nebula.net.NetMsgId;
+import emu.nebula.proto.GachaSpin.GachaSpinReq;
+import emu.nebula.proto.PlayerData.PlayerInfo;
+import emu.nebula.proto.PlayerFormation.PlayerFormationReq;
+import emu.nebula.proto.Public.FormationInfo;
+import emu.nebula.proto.Public.MailRequest;
+import emu.nebula.proto.Public.UI32;
+import emu.nebula.proto.StarTowerApply.StarTowerApplyReq;
+
+/**
+ * Scripted sessions replayed by load test clients. Setup is run once per client before the measured part of
+ * the test starts, run is called once per session.
+ */
+public enum LoadTestScript {
+    DAILY_QUESTS ("daily") {
+        @Override
+        public void run(LoadTestClient client, LoadTestConfig config) throws Exception {
+            client.send(NetMsgId.player_ping_req);
+            client.send(NetMsgId.quest_daily_reward_receive_req, UI32.newInstance().setValue(0));
+            client.send(NetMsgId.quest_daily_active_reward_receive_req);
+        }
+    },
+    STAR_TOWER ("tower") {
+        @Override
+        public boolean isEnabled(LoadTestConfig config) {
+            return config.getStarTowerId() > 0;
+        }
+
+        @Override
+        public void setup(LoadTestClient client, LoadTestConfig config) throws Exception {
+            // Get characters and discs for a formation
+            client.command("!giveall characters");
+            client.command("!giveall discs");
+
+            var player = client.send(NetMsgId.player_data_req)
+                    .expect(NetMsgId.player_data_succeed_ack)
+                    .parse(PlayerInfo.newInstance());
+
+            // Create formation with the first 3 characters and discs
+            var formation = FormationInfo.newInstance().setNumber(1);
+
+            for (int i = 0; i < 3 && i < player.getChars().length(); i++) {
+                formation.addCharIds(player.getChars().get(i).getTid());
+            }
+
+            for (int i = 0; i < 3 && i < player.getDiscs().length(); i++) {
+                formation.addDiscIds(player.getDiscs().get(i).getId());
+            }
+
+            client.send(NetMsgId.player_formation_req, PlayerFormationReq.newInstance().setFormation(formation))
+                    .expect(NetMsgId.player_formation_succeed_ack);
+        }
+
+        @Override
+        public void run(LoadTestClient client, LoadTestConfig config) throws Exception {
+            var req = StarTowerApplyReq.newInstance()
+                    .setId(config.getStarTowerId())
+                    .setFormationId(1);
+
+            client.send(NetMsgId.star_tower_apply_req, req);
+            client.send(NetMsgId.star_tower_give_up_req);
+        }
+    },
+    GACHA ("gacha") {
+        @Override
+        public boolean isEnabled(LoadTestConfig config) {
+            return config.getGachaId() > 0 && config.getGachaItemId() > 0;
+        }
+
+        @Override
+        public void setup(LoadTestClient client, LoadTestConfig config) throws Exception {
+            // Get enough pull currency for the whole test
+            client.command("!give " + config.getGachaItemId() + " x1000000");
+            client.send(NetMsgId.mail_recv_req, MailRequest.newInstance().setId(0));
+        }
+
+        @Override
+        public void run(LoadTestClient client, LoadTestConfig config) throws Exception {
+            client.send(NetMsgId.gacha_information_req);
+            client.send(NetMsgId.gacha_spin_req, GachaSpinReq.newInstance().setId(config.getGachaId()).setMode(2));
+        }
+    },
+    FRIENDS ("friends") {
+        @Override
+        public void run(LoadTestClient client, LoadTestConfig config) throws Exception {
+            client.send(NetMsgId.friend_list_get_req);
+            client.send(NetMsgId.friend_recommendation_get_req);
+        }
+    },
+    MAIL ("mail") {
+        @Override
+        public boolean isEnabled(LoadTestConfig config) {
+            return config.getMailItemId() > 0;
+        }
+
+        @Override
+        public void run(LoadTestClient client, LoadTestConfig config) throws Exception {
+            client.command("!give " + config.getMailItemId() + " x1");
+            client.send(NetMsgId.mail_list_req);
+            client.send(NetMsgId.mail_recv_req, MailRequest.newInstance().setId(0));
+        }
+    };
+
+    private final String alias;
+
+    private LoadTestScript(String alias) {
+        this.alias = alias;
+    }
+
+    /**
+     * Returns false if the script is missing ids it needs
+     */
+    public boolean isEnabled(LoadTestConfig config) {
+        return true;
+    }
+
+    public void setup(LoadTestClient client, LoadTestConfig config) throws Exception {
+
+    }
+
+    public abstract void run(LoadTestClient client, LoadTestConfig config) throws Exception;
+
+    public static LoadTestScript getByName(String name) {
+        for (var script : values()) {
+            if (script.alias.equalsIgnoreCase(name) || script.name().equalsIgnoreCase(name)) {
+                return script;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown script: " + name);
+    }
+
+    /**
+     * Parses a comma separated list of script names
+     */
+    public static List<LoadTestScript> parseList(String value) {
+        var list = new ArrayList<LoadTestScript>();
+
+        for (var name : value.split(",")) {
+            if (!name.isBlank()) {
+                list.add(getByName(name.trim()));
+            }
+        }
+
+        return list;
+    }
+}
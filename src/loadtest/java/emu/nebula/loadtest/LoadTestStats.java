@@ -0,0 +1,124 @@
+package emu.nebula.loadtest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import emu.nebula.net.HandlerMetrics.Histogram;
+import lombok.Getter;
+
+/**
+ * Client side latency of every request, grouped by opcode. Latency is the full round trip, including encryption
+ * and the http request.
+ */
+public class LoadTestStats {
+    private final Map<String, Entry> entries;
+
+    public LoadTestStats() {
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    public Entry getEntry(String name) {
+        return this.entries.computeIfAbsent(name, Entry::new);
+    }
+
+    public void reset() {
+        this.entries.clear();
+    }
+
+    /**
+     * Returns all entries, sorted by request count
+     */
+    public List<Entry> getEntries() {
+        var list = new ArrayList<>(this.entries.values());
+        list.sort(Comparator.comparingLong(Entry::getRequests).reversed());
+        return list;
+    }
+
+    /**
+     * Creates a report table of the requests that were sent in the given time
+     * @param seconds How long the requests were sent for, used for the throughput
+     */
+    public String toReport(double seconds) {
+        var sb = new StringBuilder();
+        var entries = this.getEntries();
+        long total = 0;
+
+        sb.append(String.format("%-48s %10s %10s %8s %8s %10s %10s %10s %10s%n",
+                "Opcode", "Requests", "Req/s", "Failed", "Errors", "Avg ms", "p50 ms", "p95 ms", "p99 ms"));
+
+        for (var entry : entries) {
+            long requests = entry.getRequests();
+            var latency = entry.getLatency();
+            total += requests;
+
+            sb.append(String.format("%-48s %10d %10.1f %8d %8d %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getName(),
+                    requests,
+                    requests / seconds,
+                    entry.getFailed(),
+                    entry.getErrors(),
+                    requests > 0 ? latency.getSum() / 1e6 / requests : 0,
+                    latency.getPercentile(50) / 1e6,
+                    latency.getPercentile(95) / 1e6,
+                    latency.getPercentile(99) / 1e6));
+        }
+
+        sb.append(String.format("%-48s %10d %10.1f%n", "Total", total, total / seconds));
+
+        return sb.toString();
+    }
+
+    @Getter
+    public static class Entry {
+        private final String name;
+        private final LongAdder requests;
+        private final LongAdder failed;
+        private final LongAdder errors;
+        private final Histogram latency;
+
+        private Entry(String name) {
+            this.name = name;
+            this.requests = new LongAdder();
+            this.failed = new LongAdder();
+            this.errors = new LongAdder();
+            this.latency = new Histogram();
+        }
+
+        public long getRequests() {
+            return this.requests.sum();
+        }
+
+        public long getFailed() {
+            return this.failed.sum();
+        }
+
+        public long getErrors() {
+            return this.errors.sum();
+        }
+
+        /**
+         * @param failed If the server answered with a failed ack
+         */
+        public void record(long nanos, boolean failed) {
+            this.requests.increment();
+            this.latency.record(nanos);
+
+            if (failed) {
+                this.failed.increment();
+            }
+        }
+
+        /**
+         * Records a request that didn't get a valid response
+         */
+        public void recordError(long nanos) {
+            this.requests.increment();
+            this.errors.increment();
+            this.latency.record(nanos);
+        }
+    }
+}
@@ -35,6 +35,16 @@ public class Config {
         public String uri = "mongodb://localhost:27017";
         public String collection = "nebula";
         public boolean useInternal = true;
+        // How long (in milliseconds) partial updates can be queued before they are written to the database. Set to 0 to write them immediately.
+        public int writeBehindInterval = 500;
+        // Writes queued updates early if this many documents have pending changes.
+        public int writeBehindMaxPending = 5000;
+        // Records the time, size and call site of database operations. Results are shown with "!status db" and on the metrics endpoint.
+        public boolean profile = false;
+        // How many of the slowest operations to keep while profiling.
+        public int profileSlowOps = 20;
+        // Requests that load this many documents of the same class one by one are counted as N+1 queries while profiling.
+        public int profileLookupThreshold = 5;
     }
 
     @Getter
@@ -111,10 +121,20 @@ public class Config {
         public boolean unlockInstances = true;
         // How long to wait (in seconds) after the last http request from a session before removing it from the server.
         public int sessionTimeout = 300;
+        // How many recently offline players to keep in memory. Players that log back in while cached don't need to be loaded from the database again.
+        public int offlinePlayerCacheSize = 1000;
+        // How many player summaries (name, level, icon, etc) of players that aren't in memory to cache. Used for friend lists and rankings.
+        public int playerSummaryCacheSize = 10000;
         // The offset hour for when daily quests are refreshed in UTC. Example: "dailyResetHour = 4" means dailies will be refreshed at UTC+4 12:00 AM every day.
         public int dailyResetHour = 0;
-        // Leaderboard for Boss Blitz refresh time in seconds.
+        // Caches the parsed resource files in ./cache/resources.bin so later startups don't need to parse the json again. The cache is rebuilt automatically when the resource files change.
+        public boolean useResourceSnapshot = true;
+        // How often player names/icons on the Boss Blitz leaderboard are refreshed in seconds. Scores are updated right away.
         public int leaderboardRefreshTime = 60;
+        // How often changed ranking entries are saved to the database in seconds. Rankings are also saved on shutdown.
+        public int rankingSaveInterval = 60;
+        // Exposes per packet handler metrics on /metrics in the Prometheus format. Only requests from localhost are answered.
+        public boolean metricsEndpoint = true;
         // The welcome mail to send when a player is created. Set to null to disable.
         public WelcomeMail welcomeMail = new WelcomeMail();
     }
@@ -129,6 +149,7 @@ public class Config {
         public boolean commands = true;
         public boolean packets = false;
         public boolean httpDebug = false;
+        public boolean playerInfoCacheCheck = false; // Compares cached player info sections with a fresh encode
     }
 
     @Getter
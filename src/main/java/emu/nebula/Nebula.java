@@ -105,6 +105,9 @@ public class Nebula {
             Nebula.getLogger().error("Unable to start the database(s).", exception);
         }
         
+        // Write any queued database updates when the server is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(Nebula::onShutdown, "Shutdown"));
+        
         // Start game context
         Nebula.gameContext = new GameContext();
         Nebula.commandManager = new CommandManager();
@@ -129,6 +132,29 @@ public class Nebula {
         return log;
     }
     
+    /**
+     * Starts the game data, database and game context without the http server, plugins or console.
+     * Used by benchmarks and tools that need a working game server in the same process.
+     */
+    public static synchronized void startHeadless(Config config) {
+        // Skip if already started
+        if (Nebula.gameContext != null) {
+            return;
+        }
+        
+        Nebula.config = config;
+        Nebula.serverType = ServerType.BOTH;
+        
+        AeadHelper.loadKeys();
+        ResourceLoader.loadAll();
+        PacketHelper.cacheProtos();
+        
+        Nebula.initDatabases();
+        
+        Nebula.gameContext = new GameContext();
+        Nebula.commandManager = new CommandManager();
+    }
+    
     // Database
 
     private static void initDatabases() {
@@ -149,6 +175,22 @@ public class Nebula {
         }
     }
     
+    private static void onShutdown() {
+        // Save rankings
+        if (gameContext != null) {
+            gameContext.getRankingModule().save();
+        }
+        
+        // Flush database write queues
+        if (gameDatabase != null) {
+            gameDatabase.shutdown();
+        }
+        
+        if (accountDatabase != null && accountDatabase != gameDatabase) {
+            accountDatabase.shutdown();
+        }
+    }
+    
     // Config
 
     public static void loadConfig() {
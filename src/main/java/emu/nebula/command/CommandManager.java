@@ -3,6 +3,7 @@ package emu.nebula.command;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import org.reflections.Reflections;
@@ -108,7 +109,19 @@ public class CommandManager {
         return sender.getAccount().hasPermission("target." + command.permission());
     }
     
+    /**
+     * Runs a command and waits for the result. Must not be called from a player executor, use
+     * {@link #invokeAsync} there instead.
+     */
     public CommandResult invoke(Player sender, String message) {
+        return this.invokeAsync(sender, message).join();
+    }
+    
+    /**
+     * Runs a command on the target's executor so it doesn't race with their packet handlers. The returned future
+     * is already complete if the command had no target or was run from the target's own executor.
+     */
+    public CompletableFuture<CommandResult> invokeAsync(Player sender, String message) {
         // Parse message into arguments
         List<String> args = Arrays.stream(message.split(" ")).collect(Collectors.toCollection(ArrayList::new));
         
@@ -123,56 +136,75 @@ public class CommandManager {
         // Get command handler
         CommandHandler handler = this.commands.get(label);
         
-        // Create result object
-        var result = CommandResult.builder();
-
-        // Execute command
-        if (handler != null) {
-            // Get command annotation data
-            Command command = handler.getData();
-            
-            // Check if sender has permission to run the command.
-            if (sender != null && !this.checkPermission(sender, command)) {
-                // We have a double null check here just in case
-                result.message("Error - You do not have permission to use this command");
-                return result.build();
-            }
-            
-            // Build command arguments
-            CommandArgs cmdArgs = new CommandArgs(sender, args);
-            
-            // Check targeted permission
-            if (sender != cmdArgs.getTarget() && !this.checkTargetPermission(sender, command)) {
-                result.message("Error - You do not have permission to use this command on another player");
-                return result.build();
-            }
-            
-            // Make sure our command has a target
-            if (command.requireTarget() && cmdArgs.getTarget() == null) {
-                result.message("Error - Targeted player not found or offline");
-                return result.build();
-            }
-            
-            // Log
-            if (sender != null && Nebula.getConfig().getLogOptions().commands) {
-                Nebula.getLogger().info("[UID: " + sender.getUid() + "] " + sender.getName() + " used command: " + message);
-            }
-            
-            // Run command
-            String commandMessage = handler.execute(cmdArgs);
+        if (handler == null) {
+            return CompletableFuture.completedFuture(CommandResult.builder().message("Invalid Command!").build());
+        }
+        
+        // Get command annotation data
+        Command command = handler.getData();
+        
+        // Check if sender has permission to run the command.
+        if (sender != null && !this.checkPermission(sender, command)) {
+            // We have a double null check here just in case
+            return error("Error - You do not have permission to use this command");
+        }
+        
+        // Build command arguments
+        CommandArgs cmdArgs = new CommandArgs(sender, args);
+        
+        // Check targeted permission
+        if (sender != cmdArgs.getTarget() && !this.checkTargetPermission(sender, command)) {
+            return error("Error - You do not have permission to use this command on another player");
+        }
+        
+        // Make sure our command has a target
+        if (command.requireTarget() && cmdArgs.getTarget() == null) {
+            return error("Error - Targeted player not found or offline");
+        }
+        
+        // Log
+        if (sender != null && Nebula.getConfig().getLogOptions().commands) {
+            Nebula.getLogger().info("[UID: " + sender.getUid() + "] " + sender.getName() + " used command: " + message);
+        }
+        
+        // Run command on the target's executor. Never wait on another player's executor here, two players
+        // targeting each other would block both executors forever.
+        var target = cmdArgs.getTarget();
+        
+        if (target == null || target.getExecutor().isCurrentThread()) {
+            return CompletableFuture.completedFuture(this.execute(handler, cmdArgs, target, message));
+        }
+        
+        return target.getExecutor().submit(() -> this.execute(handler, cmdArgs, target, message));
+    }
+    
+    private CommandResult execute(CommandHandler handler, CommandArgs cmdArgs, Player target, String message) {
+        String commandMessage = null;
+        
+        try {
+            commandMessage = handler.execute(cmdArgs);
             
-            // Parse out last newline
-            if (commandMessage.endsWith("\n")) {
-                commandMessage = commandMessage.substring(0, commandMessage.length() - 1);
+            if (target != null) {
+                target.flushTriggers();
             }
-            
-            // Set result data
-            result.command(handler);
-            result.message(commandMessage);
-        } else {
-            result.message("Invalid Command!");
+        } catch (Exception e) {
+            Nebula.getLogger().error("Error running command: " + message, e);
+            return CommandResult.builder().message("Error - An error occurred while running this command").build();
+        }
+        
+        // Parse out last newline
+        if (commandMessage.endsWith("\n")) {
+            commandMessage = commandMessage.substring(0, commandMessage.length() - 1);
         }
         
-        return result.build();
+        // Set result data
+        return CommandResult.builder()
+                .command(handler)
+                .message(commandMessage)
+                .build();
+    }
+    
+    private static CompletableFuture<CommandResult> error(String message) {
+        return CompletableFuture.completedFuture(CommandResult.builder().message(message).build());
     }
 }
@@ -0,0 +1,67 @@
+package emu.nebula.command.commands;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import emu.nebula.GameConstants;
+import emu.nebula.Nebula;
+import emu.nebula.command.Command;
+import emu.nebula.command.CommandArgs;
+import emu.nebula.command.CommandHandler;
+import emu.nebula.game.mail.GameMail;
+import emu.nebula.game.mail.GlobalMail;
+import emu.nebula.util.Utils;
+
+@Command(
+    label = "mailall",
+    aliases = {"ma"},
+    permission = "admin.mail",
+    desc = """
+    !mailall "subject" "body" [itemId xQty | itemId:qty ...] [-minlv=N] [-maxlv=N] [-before=yyyy-MM-dd] [-days=N]
+    Sends a mail to every player that matches the filters. Players receive it on their next login.
+    """
+)
+public class MailAllCommand implements CommandHandler {
+    private static final Pattern OPTION = Pattern.compile("-(minlv|maxlv|before|days)=(\\S+)");
+
+    @Override
+    public String execute(CommandArgs args) {
+        GameMail template;
+        
+        try {
+            template = MailCommand.createMail(args);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        
+        var mail = new GlobalMail(template);
+        
+        // Parse filters
+        Matcher matcher = OPTION.matcher(args.getRaw());
+        
+        while (matcher.find()) {
+            String value = matcher.group(2);
+            
+            switch (matcher.group(1)) {
+                case "minlv" -> mail.setMinLevel(Utils.parseSafeInt(value));
+                case "maxlv" -> mail.setMaxLevel(Utils.parseSafeInt(value));
+                case "days" -> mail.setExpiry(mail.getTime() + TimeUnit.DAYS.toSeconds(Math.max(Utils.parseSafeInt(value), 1)));
+                case "before" -> {
+                    try {
+                        long time = LocalDate.parse(value).atStartOfDay(GameConstants.UTC_ZONE).toEpochSecond();
+                        mail.setCreatedBefore(time);
+                    } catch (Exception e) {
+                        return "Invalid date \"" + value + "\", use yyyy-MM-dd.";
+                    }
+                }
+            }
+        }
+        
+        // Send
+        Nebula.getGameContext().getGlobalMailModule().sendMail(mail);
+        
+        return "Global mail " + mail.getId() + " sent with subject \"" + mail.getSubject() + "\".";
+    }
+}
@@ -27,26 +27,43 @@ public class MailCommand implements CommandHandler {
             return "Error - Targeted player not found or offline";
         }
 
+        GameMail mail;
+        
+        try {
+            mail = createMail(args);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        
+        target.getMailbox().sendMail(mail);
+        return "Mail sent to " + target.getName() + " with subject \"" + mail.getSubject() + "\".";
+    }
+
+    /**
+     * Creates a mail from the command arguments
+     * @throws IllegalArgumentException If the arguments are invalid, the message is shown to the sender
+     */
+    static GameMail createMail(CommandArgs args) {
         String rawInput = args.getRaw() == null ? "" : args.getRaw().trim();
         if (rawInput.isEmpty()) {
-            return USAGE_TEXT;
+            throw new IllegalArgumentException(USAGE_TEXT);
         }
 
         Matcher matcher = QUOTED_TEXT.matcher(rawInput);
         if (!matcher.find()) {
-            return USAGE_TEXT;
+            throw new IllegalArgumentException(USAGE_TEXT);
         }
 
         String subject = matcher.group(1).trim();
         if (!matcher.find()) {
-            return "Mail body must be wrapped in quotes after the subject.";
+            throw new IllegalArgumentException("Mail body must be wrapped in quotes after the subject.");
         }
 
         String body = matcher.group(1).trim();
         int attachmentStartIndex = matcher.end();
 
         if (subject.isEmpty()) {
-            return "Mail subject cannot be empty.";
+            throw new IllegalArgumentException("Mail subject cannot be empty.");
         }
 
         if (body.isEmpty()) {
@@ -62,11 +79,10 @@ public class MailCommand implements CommandHandler {
 
         parseAttachments(attachmentSection, mail, args);
         
-        target.getMailbox().sendMail(mail);
-        return "Mail sent to " + target.getName() + " with subject \"" + subject + "\".";
+        return mail;
     }
 
-    private void parseAttachments(String attachmentSection, GameMail mail, CommandArgs args) {
+    private static void parseAttachments(String attachmentSection, GameMail mail, CommandArgs args) {
         if (attachmentSection == null || attachmentSection.isBlank()) {
             return;
         }
@@ -122,7 +138,7 @@ public class MailCommand implements CommandHandler {
         }
     }
 
-    private void addAttachment(GameMail mail, CommandArgs args, int itemId, int quantity) {
+    private static void addAttachment(GameMail mail, CommandArgs args, int itemId, int quantity) {
         if (itemId <= 0) {
             //args.sendMessage("Item id must be positive.");
             return;
@@ -132,7 +148,7 @@ public class MailCommand implements CommandHandler {
         mail.addAttachment(itemId, qty);
     }
 
-    private boolean isIntegerToken(String token) {
+    private static boolean isIntegerToken(String token) {
         for (int i = 0; i < token.length(); i++) {
             if (!Character.isDigit(token.charAt(i))) {
                 return false;
@@ -1,15 +1,24 @@
 package emu.nebula.command.commands;
 
+import java.util.concurrent.CompletableFuture;
+
 import emu.nebula.Nebula;
 import emu.nebula.command.Command;
 import emu.nebula.command.CommandArgs;
 import emu.nebula.command.CommandHandler;
+import emu.nebula.data.GameData;
+import emu.nebula.data.ResourceLoader;
 
-@Command(label = "reload", permission = "admin.reload", desc = "!reload = Reloads the server config.")
+@Command(label = "reload", permission = "admin.reload", desc = "!reload (data) = Reloads the server config, or the game data without restarting.")
 public class ReloadCommand implements CommandHandler {
 
     @Override
     public String execute(CommandArgs args) {
+        // Reload game data
+        if (args.get(0).equalsIgnoreCase("data")) {
+            return this.reloadData();
+        }
+        
         // Reload config first
         Nebula.loadConfig();
         
@@ -21,5 +30,22 @@ public class ReloadCommand implements CommandHandler {
         // Result message
         return "Reloaded the server config";
     }
+    
+    private String reloadData() {
+        // Game data is only loaded when we are running the game server
+        if (Nebula.getGameContext() == null) {
+            return "Game data is not loaded on this server";
+        }
+        
+        // Load the new game data in the background, players keep using the current version until it is swapped in
+        int version = GameData.getVersion();
+        
+        CompletableFuture.runAsync(ResourceLoader::loadAll).exceptionally(e -> {
+            Nebula.getLogger().error("Error reloading game data", e);
+            return null;
+        });
+        
+        return "Reloading game data (current version " + version + "), check the console for the result";
+    }
 
 }
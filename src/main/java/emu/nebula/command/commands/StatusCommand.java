@@ -5,15 +5,25 @@ import emu.nebula.Nebula;
 import emu.nebula.command.Command;
 import emu.nebula.command.CommandArgs;
 import emu.nebula.command.CommandHandler;
+import emu.nebula.util.Utils;
 
 import java.io.File;
 import java.lang.management.ManagementFactory;
 
-@Command(label = "status", permission = "admin.status", desc = "!status = Displays server runtime status.")
+@Command(label = "status", permission = "admin.status", desc = "!status (handlers | db [reset]) = Displays server runtime status, the slowest packet handlers or database profiler results.")
 public class StatusCommand implements CommandHandler {
 
+    // Max amount of handlers to show
+    private static final int HANDLER_LIMIT = 15;
+
     @Override
     public String execute(CommandArgs args) {
+        if (args.get(0).equalsIgnoreCase("handlers")) {
+            return getHandlerStatus();
+        } else if (args.get(0).equalsIgnoreCase("db")) {
+            return getDatabaseStatus(args.get(1).equalsIgnoreCase("reset"));
+        }
+
         var sb = new StringBuilder();
 
         if (args.getRaw().contains("@")) {
@@ -54,6 +64,104 @@ public class StatusCommand implements CommandHandler {
         sb.append("Memory: ").append(String.format("%.1fMB (max %.1fMB)", usedMem, maxMem)).append('\n');
         sb.append("Players: ").append(players);
 
+        if (Nebula.getGameContext() != null) {
+            var module = Nebula.getGameContext().getPlayerModule();
+            sb.append('\n');
+            sb.append("Player Cache: ").append(String.format("%d offline, %d hits, %d misses, %d evictions",
+                    module.getOfflineCacheCount(), module.getCacheHits(), module.getCacheMisses(), module.getCacheEvictions()));
+            sb.append('\n');
+            sb.append("Summary Cache: ").append(String.format("%d hits, %d misses",
+                    module.getSummaryHits(), module.getSummaryMisses()));
+        }
+
+        if (http != null) {
+            var cache = http.getResponseCache();
+            sb.append('\n');
+            sb.append("Response Cache: ").append(String.format("%d hits, %d misses, %d not modified",
+                    cache.getHitCount(), cache.getMissCount(), cache.getNotModifiedCount()));
+        }
+
+        return sb.toString();
+    }
+
+    private static String getHandlerStatus() {
+        var http = Nebula.getHttpServer();
+        if (http == null || http.getAgentZoneHandler() == null) {
+            return "Error - Game server is not running";
+        }
+
+        var metrics = http.getAgentZoneHandler().getMetrics();
+        var entries = metrics.getActiveEntries();
+
+        var sb = new StringBuilder();
+        sb.append("Handlers (by total handle time, unhandled: ").append(metrics.getUnhandledCount()).append(")\n");
+
+        for (int i = 0; i < Math.min(entries.size(), HANDLER_LIMIT); i++) {
+            var entry = entries.get(i);
+            var handle = entry.getHandle();
+
+            sb.append(String.format("%s%s: %d reqs, %d errors, total %.1fms, p50 %.2fms, p99 %.2fms, encode p99 %.2fms, %d db ops, %d/%d bytes",
+                    entry.getName(),
+                    entry.isDummy() ? " (dummy)" : "",
+                    entry.getRequests(),
+                    entry.getErrors(),
+                    handle.getSum() / 1e6,
+                    handle.getPercentile(50) / 1e6,
+                    handle.getPercentile(99) / 1e6,
+                    entry.getEncode().getPercentile(99) / 1e6,
+                    entry.getDbOps(),
+                    entry.getRequestBytes(),
+                    entry.getResponseBytes()
+            )).append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    private static String getDatabaseStatus(boolean reset) {
+        var database = Nebula.getGameDatabase();
+        if (database == null || !database.getProfiler().isEnabled()) {
+            return "Error - Database profiling is disabled. Set \"profile\" to true in the game database config.";
+        }
+
+        var profiler = database.getProfiler();
+
+        if (reset) {
+            profiler.reset();
+            return "Database profiler reset.";
+        }
+
+        var sb = new StringBuilder();
+        var stats = profiler.getStats();
+
+        sb.append("Database operations (by total time)\n");
+
+        for (int i = 0; i < Math.min(stats.size(), HANDLER_LIMIT); i++) {
+            var op = stats.get(i);
+
+            sb.append(String.format("%s: %d ops, total %.1fms, max %.2fms, %d docs, %d bytes",
+                    op.getKey(),
+                    op.getCount(),
+                    op.getTime() / 1e6,
+                    op.getMaxTime() / 1e6,
+                    op.getDocuments(),
+                    op.getBytes()
+            )).append('\n');
+        }
+
+        sb.append("Slowest operations\n");
+
+        for (var op : profiler.getSlowOps()) {
+            sb.append(String.format("%.2fms %s at %s (%s)", op.time() / 1e6, op.key(), op.callSite(), Utils.formatTimestamp(op.timestamp() * 1000))).append('\n');
+        }
+
+        var lookups = profiler.getLookups();
+
+        if (!lookups.isEmpty()) {
+            sb.append("Repeated single document lookups (N+1)\n");
+            lookups.forEach((key, count) -> sb.append(key).append(": ").append(count).append(" requests\n"));
+        }
+
         return sb.toString();
     }
 
@@ -0,0 +1,26 @@
+package emu.nebula.data;
+
+import java.util.function.Supplier;
+
+/**
+ * Lookup cache derived from game data, like the maps that resources fill in their onLoad. Every
+ * {@link DataSnapshot} has its own copy, so the cache is rebuilt along with the tables when resources are reloaded.
+ */
+public class DataCache<T> {
+    private final Supplier<T> factory;
+
+    public DataCache(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the cache for the game data snapshot used by the current thread
+     */
+    public T get() {
+        return GameData.getSnapshot().getCache(this);
+    }
+
+    T create() {
+        return this.factory.get();
+    }
+}
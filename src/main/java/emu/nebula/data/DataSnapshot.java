@@ -0,0 +1,79 @@
+package emu.nebula.data;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import lombok.Getter;
+
+/**
+ * One version of the loaded game data. Holds the contents of every {@link DataTable} and {@link DataCache}.
+ * A new snapshot is filled in the background when resources are reloaded, then swapped in all at once,
+ * so readers never see a mix of old and new tables. Snapshots are read only once they are published.
+ */
+@Getter
+public class DataSnapshot {
+    private final int version;
+    private final long createTime;
+
+    private final Int2ObjectMap<?>[] tables;
+    private final Map<DataCache<?>, Object> caches;
+
+    private volatile boolean published;
+
+    DataSnapshot(int version) {
+        this.version = version;
+        this.createTime = System.currentTimeMillis();
+        this.tables = new Int2ObjectMap<?>[DataTable.getCount()];
+        this.caches = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < this.tables.length; i++) {
+            this.tables[i] = new Int2ObjectOpenHashMap<>();
+        }
+    }
+
+    void publish() {
+        this.published = true;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> Int2ObjectMap<T> getTable(int index) {
+        if (index >= this.tables.length) {
+            return Int2ObjectMaps.emptyMap();
+        }
+
+        return (Int2ObjectMap<T>) this.tables[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> void add(int index, int id, T def) {
+        if (this.published) {
+            throw new IllegalStateException("Game data version " + this.version + " is read only");
+        }
+
+        ((Int2ObjectMap<T>) this.tables[index]).put(id, def);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T getCache(DataCache<T> cache) {
+        return (T) this.caches.computeIfAbsent(cache, DataCache::create);
+    }
+
+    /**
+     * Returns the number of tables that have data in the other snapshot, but are empty in this one.
+     * Used to reject reloads where resource files failed to load.
+     */
+    public int countMissingTables(DataSnapshot other) {
+        int count = 0;
+
+        for (int i = 0; i < this.tables.length; i++) {
+            if (this.getTable(i).isEmpty() && !other.getTable(i).isEmpty()) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
@@ -1,31 +1,48 @@
 package emu.nebula.data;
 
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntCollection;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.ObjectCollection;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
 
+/**
+ * Handle to a game data table. The table contents are stored in the {@link DataSnapshot} used by the current
+ * thread, so a reload swaps every table at once.
+ */
 public class DataTable<T> implements Iterable<T> {
-    private Int2ObjectMap<T> map;
+    private static final AtomicInteger COUNT = new AtomicInteger();
+    
+    private final int index;
     
     public DataTable() {
-        this.map = new Int2ObjectOpenHashMap<>();
+        this.index = COUNT.getAndIncrement();
+    }
+    
+    static int getCount() {
+        return COUNT.get();
     }
     
+    private Int2ObjectMap<T> getMap() {
+        return GameData.getSnapshot().getTable(this.index);
+    }
+    
+    /**
+     * Adds a resource to the snapshot that is currently being loaded
+     */
     @SuppressWarnings("unchecked")
     public void add(Object res) {
         if (res instanceof BaseDef r) {
-            this.map.put(r.getId(), (T) res);
+            GameData.getSnapshot().add(this.index, r.getId(), (T) res);
         }
     }
     
     public int size() {
-        return this.map.size();
+        return this.getMap().size();
     }
     
     // Wrapper functions
@@ -34,35 +51,35 @@ public class DataTable<T> implements Iterable<T> {
      * Wrapper for {@link it.unimi.dsi.fastutil.ints.Int2ObjectMap.get}
      */
     public T get(int id) {
-        return this.map.get(id);
+        return this.getMap().get(id);
     }
 
     /**
      * Wrapper for {@link it.unimi.dsi.fastutil.ints.Int2ObjectMap.containsKey}
      */
     public boolean containsKey(int id) {
-        return this.map.containsKey(id);
+        return this.getMap().containsKey(id);
     }
 
     /**
      * Wrapper for {@link it.unimi.dsi.fastutil.ints.Int2ObjectMap.keySet}
      */
     public IntSet keySet() {
-        return this.map.keySet();
+        return this.getMap().keySet();
     }
 
     /**
      * Wrapper for {@link it.unimi.dsi.fastutil.ints.Int2ObjectMap.values}
      */
     public ObjectCollection<T> values() {
-        return this.map.values();
+        return this.getMap().values();
     }
 
     /**
      * Wrapper for {@link it.unimi.dsi.fastutil.ints.Int2ObjectMap.int2ObjectEntrySet}
      */
     public ObjectSet<Int2ObjectMap.Entry<T>> int2ObjectEntrySet() {
-        return this.map.int2ObjectEntrySet();
+        return this.getMap().int2ObjectEntrySet();
     }
     
     // Iterable/Streamable
@@ -79,7 +96,7 @@ public class DataTable<T> implements Iterable<T> {
     // Custom
     
     public IntCollection getIds() {
-        return this.map.keySet();
+        return this.getMap().keySet();
     }
     
     public IntCollection getAllIds() {
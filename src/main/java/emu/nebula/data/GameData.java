@@ -5,6 +5,7 @@ import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.Callable;
 
 import java.util.stream.Collectors;
 
@@ -168,4 +169,51 @@ public class GameData {
     @Getter private static DataTable<ActivityShopDef> ActivityShopDataTable = new DataTable<>();
     @Getter private static DataTable<ActivityShopControlDef> ActivityShopControlDataTable = new DataTable<>();
     @Getter private static DataTable<ActivityGoodsDef> ActivityGoodsDataTable = new DataTable<>();
-}
\ No newline at end of file
+    
+    // ===== Snapshot =====
+    
+    // Must be created after all the tables above
+    private static volatile DataSnapshot snapshot = new DataSnapshot(0);
+    private static final ThreadLocal<DataSnapshot> pinnedSnapshot = new ThreadLocal<>();
+    
+    /**
+     * Returns the game data snapshot for the current thread. This is the snapshot the current request started
+     * with if one was pinned, otherwise the latest published snapshot.
+     */
+    public static DataSnapshot getSnapshot() {
+        var pinned = pinnedSnapshot.get();
+        return pinned != null ? pinned : snapshot;
+    }
+    
+    public static int getVersion() {
+        return snapshot.getVersion();
+    }
+    
+    /**
+     * Runs the task with the game data snapshot pinned to the current thread, so it keeps reading the same
+     * version of the game data even if a reload finishes in the meantime.
+     */
+    public static <T> T withSnapshot(DataSnapshot data, Callable<T> task) throws Exception {
+        var previous = pinnedSnapshot.get();
+        pinnedSnapshot.set(data);
+        
+        try {
+            return task.call();
+        } finally {
+            if (previous != null) {
+                pinnedSnapshot.set(previous);
+            } else {
+                pinnedSnapshot.remove();
+            }
+        }
+    }
+    
+    static DataSnapshot createSnapshot() {
+        return new DataSnapshot(snapshot.getVersion() + 1);
+    }
+    
+    static synchronized void publish(DataSnapshot data) {
+        data.publish();
+        snapshot = data;
+    }
+}
@@ -2,7 +2,13 @@ package emu.nebula.data;
 
 import java.io.InputStreamReader;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.reflections.Reflections;
@@ -13,24 +19,51 @@ import emu.nebula.Nebula;
 import emu.nebula.game.achievement.AchievementHelper;
 
 public class ResourceLoader {
-    private static boolean loaded = false;
-
-    // Load all resources
-    public static void loadAll() {
-        // Make sure we don't load more than once
-        if (loaded) return;
+    
+    /**
+     * Loads all resources into a new game data snapshot and swaps it in once everything is loaded. Can be called
+     * again while the server is running to reload the game data; requests that are already being handled keep
+     * the old snapshot until they finish.
+     * @return If the new game data was published
+     */
+    public static synchronized boolean loadAll() {
+        var current = GameData.getSnapshot();
+        var snapshot = GameData.createSnapshot();
         
-        // Load
-        loadResources();
+        // Load into the new snapshot
+        try {
+            GameData.withSnapshot(snapshot, () -> {
+                // Load
+                loadResources();
+                
+                // Add hardcoded achievements params
+                AchievementHelper.init();
+                
+                return null;
+            });
+        } catch (Exception e) {
+            Nebula.getLogger().error("Error loading resources", e);
+            return false;
+        }
         
-        // Add hardcoded achievements params
-        AchievementHelper.init();
+        // Don't replace working game data with tables that failed to load
+        int missing = snapshot.countMissingTables(current);
+        
+        if (missing > 0) {
+            Nebula.getLogger().error("Resource loading failed, " + missing + " tables are missing. Keeping game data version " + current.getVersion());
+            return false;
+        }
         
         // Done
-        loaded = true;
-        Nebula.getLogger().info("Resource loading complete");
+        GameData.publish(snapshot);
+        Nebula.getLogger().info("Resource loading complete (version " + snapshot.getVersion() + ")");
+        
+        return true;
     }
     
+    /**
+     * Loads all resource files into the game data snapshot used by the current thread
+     */
     public static void loadResources() {
         // Get resource classes and sort
         List<Class<?>> classes = new Reflections(ResourceLoader.class.getPackage().getName())
@@ -40,30 +73,116 @@ public class ResourceLoader {
 
         classes.sort((a, b) -> b.getAnnotation(ResourceType.class).loadPriority().value() - a.getAnnotation(ResourceType.class).loadPriority().value());
 
-        // Load resource
+        // Open binary snapshot of the resource files, or create a new one if its missing/outdated
+        long start = System.currentTimeMillis();
+        
+        ResourceSnapshot snapshot = null;
+        ResourceSnapshot.Builder builder = null;
+        
+        if (Nebula.getConfig().getServerOptions().isUseResourceSnapshot()) {
+            snapshot = ResourceSnapshot.open(classes);
+            
+            if (snapshot == null) {
+                builder = new ResourceSnapshot.Builder();
+            }
+        }
+        
+        // Parse all resource files in parallel, since parsing doesn't depend on other resources
+        final var source = snapshot;
+        final var output = builder;
+        var tasks = new HashMap<Class<?>, ForkJoinTask<ParsedResource>>();
+        
         for (Class<?> def : classes) {
-            loadFromResource(def);
+            tasks.put(def, ForkJoinPool.commonPool().submit(() -> parseResource(def, source, output)));
         }
+
+        // Call onLoad in dependency order
+        for (Class<?> def : sortByDependencies(classes)) {
+            loadDefs(def, tasks.get(def).join());
+        }
+        
+        // Save snapshot
+        if (builder != null) {
+            builder.save(classes);
+        }
+        
+        Nebula.getLogger().info("Loaded resources in " + (System.currentTimeMillis() - start) + "ms" + (snapshot != null ? " (from snapshot)" : ""));
     }
 
-    public static void loadFromResource(Class<?> resourceClass) {
-        // Load to map
-        DataTable<?> table = getTableForResource(GameData.class, resourceClass);
+    /**
+     * Sorts resource classes so that every class comes after its dependencies. Classes without dependencies
+     * between them keep their load priority order.
+     */
+    private static List<Class<?>> sortByDependencies(List<Class<?>> classes) {
+        var sorted = new ArrayList<Class<?>>(classes.size());
+        var remaining = new ArrayList<Class<?>>(classes);
+        var done = new HashSet<Class<?>>();
+        
+        while (!remaining.isEmpty()) {
+            Class<?> next = null;
+            
+            // Get the first class in priority order that has all of its dependencies loaded
+            for (var cls : remaining) {
+                boolean ready = true;
+                
+                for (var dependency : cls.getAnnotation(ResourceType.class).dependencies()) {
+                    if (classes.contains(dependency) && !done.contains(dependency)) {
+                        ready = false;
+                        break;
+                    }
+                }
+                
+                if (ready) {
+                    next = cls;
+                    break;
+                }
+            }
+            
+            // Circular dependency, just load the rest in priority order
+            if (next == null) {
+                Nebula.getLogger().warn("Circular resource dependency found in: " + remaining.stream().map(Class::getSimpleName).toList());
+                sorted.addAll(remaining);
+                break;
+            }
+            
+            remaining.remove(next);
+            done.add(next);
+            sorted.add(next);
+        }
+        
+        return sorted;
+    }
+
+    private record ParsedResource(Iterable<?> defs, long parseTime) {
+        
+    }
+
+    private static ParsedResource parseResource(Class<?> resourceClass, ResourceSnapshot snapshot, ResourceSnapshot.Builder builder) {
         ResourceType type = resourceClass.getAnnotation(ResourceType.class);
+        long start = System.nanoTime();
+        
+        // Init defs collection
+        Iterable<?> defs = null;
         
         // Sanity check
         if (type == null) {
-            return;
+            return new ParsedResource(defs, 0);
         }
         
-        int count = 0;
-        
         try {
-            // Init defs collection
-            Iterable<?> defs = null;
-            
             // Load resource file
-            if (type.useInternal()) {
+            if (snapshot != null && !type.useInternal()) {
+                // Load from binary snapshot, falls back to json if it fails
+                try {
+                    defs = snapshot.read(resourceClass);
+                } catch (Exception e) {
+                    Nebula.getLogger().warn("Error reading " + resourceClass.getSimpleName() + " from the resource snapshot", e);
+                }
+            }
+            
+            if (defs != null) {
+                // Already loaded from the snapshot
+            } else if (type.useInternal()) {
                 // Load from internal resources in jar
                 try (var in = ResourceLoader.class.getResourceAsStream("/defs/" + type.name()); var reader = new InputStreamReader(in)) {
                     defs = JsonUtils.loadToList(reader, resourceClass);
@@ -76,9 +195,35 @@ public class ResourceLoader {
                 
                 // Get json values
                 defs = json.values();
+                
+                // Add to snapshot before onLoad is called
+                if (builder != null) {
+                    builder.add(resourceClass, json.values());
+                }
             }
+        } catch (Exception e) {
+            e.printStackTrace();
+            Nebula.getLogger().error("Error loading resource file: " + type.name(), e);
+        }
+        
+        return new ParsedResource(defs, System.nanoTime() - start);
+    }
 
-            for (Object o : defs) {
+    private static void loadDefs(Class<?> resourceClass, ParsedResource parsed) {
+        // Load to map
+        DataTable<?> table = getTableForResource(GameData.class, resourceClass);
+        ResourceType type = resourceClass.getAnnotation(ResourceType.class);
+        
+        // Sanity check
+        if (type == null || parsed.defs() == null) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        int count = 0;
+        
+        try {
+            for (Object o : parsed.defs()) {
                 BaseDef res = (BaseDef) o;
 
                 if (res == null) {
@@ -98,7 +243,10 @@ public class ResourceLoader {
             Nebula.getLogger().error("Error loading resource file: " + type.name(), e);
         }
         
-        Nebula.getLogger().info("Loaded " + count + " " + resourceClass.getSimpleName() + "s.");
+        long parseTime = TimeUnit.NANOSECONDS.toMillis(parsed.parseTime());
+        long loadTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        Nebula.getLogger().info("Loaded " + count + " " + resourceClass.getSimpleName() + "s. (parse " + parseTime + "ms, onLoad " + loadTime + "ms)");
     }
     
     // Utility
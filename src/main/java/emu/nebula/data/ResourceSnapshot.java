@@ -0,0 +1,654 @@
+package emu.nebula.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+import com.google.gson.JsonObject;
+
+import emu.nebula.GameConstants;
+import emu.nebula.Nebula;
+import emu.nebula.util.JsonUtils;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+
+/**
+ * Binary snapshot of the parsed resource files. Defs are stored field by field as they were right after the json
+ * was parsed (before onLoad), so later boots can skip json parsing. The snapshot is only used if the data version,
+ * every resource file hash and every def schema still match, otherwise the resources are loaded from json again.
+ */
+public class ResourceSnapshot {
+    private static final int MAGIC = 0x4E425253; // NBRS
+    private static final int FORMAT_VERSION = 2;
+
+    // Value tags
+    private static final byte NULL = 0;
+    private static final byte PRESENT = 1;
+
+    // Cached reflection data for each class
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Instantiator> INSTANTIATORS = new ConcurrentHashMap<>();
+    private static final Map<String, Constructor<?>> CONSTRUCTORS = new ConcurrentHashMap<>();
+
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> tables;
+
+    private ResourceSnapshot(ByteBuffer buffer, Map<String, Integer> tables) {
+        this.buffer = buffer;
+        this.tables = tables;
+    }
+
+    public static Path getPath() {
+        return Path.of("./cache/resources.bin");
+    }
+
+    // Reading
+
+    /**
+     * Opens the snapshot file. Returns null if it doesn't exist or if it doesn't match the current resource files.
+     */
+    public static ResourceSnapshot open(List<Class<?>> classes) {
+        var path = getPath();
+
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try {
+            // Read the whole file into the heap. A memory mapped file stays locked until the mapping is garbage
+            // collected, which stops the snapshot from being replaced on Windows
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+
+            // Check header
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            if (buffer.getInt() != GameConstants.getDataVersion()) {
+                return null;
+            }
+
+            // Read table index
+            var expected = getHeaders(classes);
+            var tables = new HashMap<String, Integer>();
+            int count = buffer.getInt();
+
+            if (count != expected.size()) {
+                return null;
+            }
+
+            for (int i = 0; i < count; i++) {
+                String name = readString(buffer);
+                long hash = buffer.getLong();
+                String schema = readString(buffer);
+                int offset = buffer.getInt();
+
+                var header = expected.get(name);
+
+                if (header == null || header.hash() != hash || !header.schema().equals(schema)) {
+                    return null;
+                }
+
+                tables.put(name, offset);
+            }
+
+            return new ResourceSnapshot(buffer, tables);
+        } catch (Exception e) {
+            Nebula.getLogger().warn("Could not read resource snapshot, loading resources from json instead", e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the defs for this resource class
+     */
+    public List<Object> read(Class<?> resourceClass) throws Exception {
+        var offset = this.tables.get(resourceClass.getName());
+
+        if (offset == null) {
+            return null;
+        }
+
+        // Each table gets its own view so tables can be read by multiple threads
+        var buffer = this.buffer.duplicate().position(offset);
+
+        int count = buffer.getInt();
+        var list = new ArrayList<Object>(count);
+
+        for (int i = 0; i < count; i++) {
+            list.add(readObject(buffer, resourceClass));
+        }
+
+        return list;
+    }
+
+    private static Object readValue(ByteBuffer buffer, Type type) throws Exception {
+        var cls = getRawClass(type);
+
+        // Primitives are never null
+        if (cls == int.class) return buffer.getInt();
+        if (cls == long.class) return buffer.getLong();
+        if (cls == boolean.class) return buffer.get() != 0;
+        if (cls == double.class) return buffer.getDouble();
+        if (cls == float.class) return buffer.getFloat();
+        if (cls == short.class) return buffer.getShort();
+        if (cls == byte.class) return buffer.get();
+        if (cls == char.class) return buffer.getChar();
+
+        // Null check
+        if (buffer.get() == NULL) {
+            return null;
+        }
+
+        if (cls == Integer.class) return buffer.getInt();
+        if (cls == Long.class) return buffer.getLong();
+        if (cls == Boolean.class) return buffer.get() != 0;
+        if (cls == Double.class) return buffer.getDouble();
+        if (cls == Float.class) return buffer.getFloat();
+        if (cls == String.class) return readString(buffer);
+
+        if (cls.isEnum()) {
+            return readEnum(cls, readString(buffer));
+        }
+
+        if (cls.isArray()) {
+            int length = buffer.getInt();
+            var component = cls.getComponentType();
+
+            if (component == int.class) {
+                var array = new int[length];
+                buffer.asIntBuffer().get(array);
+                buffer.position(buffer.position() + (length * Integer.BYTES));
+                return array;
+            }
+
+            var array = Array.newInstance(component, length);
+
+            for (int i = 0; i < length; i++) {
+                Array.set(array, i, readValue(buffer, component));
+            }
+
+            return array;
+        }
+
+        if (IntCollection.class.isAssignableFrom(cls)) {
+            var collection = (IntCollection) newInstance(readString(buffer));
+            int size = buffer.getInt();
+
+            for (int i = 0; i < size; i++) {
+                collection.add(buffer.getInt());
+            }
+
+            return collection;
+        }
+
+        if (Int2ObjectMap.class.isAssignableFrom(cls)) {
+            var valueType = getTypeArgument(type, 0);
+            var map = new Int2ObjectOpenHashMap<Object>();
+            int size = buffer.getInt();
+
+            for (int i = 0; i < size; i++) {
+                map.put(buffer.getInt(), readValue(buffer, valueType));
+            }
+
+            return map;
+        }
+
+        if (Collection.class.isAssignableFrom(cls)) {
+            @SuppressWarnings("unchecked")
+            var collection = (Collection<Object>) newInstance(readString(buffer));
+            var elementType = getCollectionElementType(type, cls);
+            int size = buffer.getInt();
+
+            for (int i = 0; i < size; i++) {
+                collection.add(readValue(buffer, elementType));
+            }
+
+            return collection;
+        }
+
+        if (Map.class.isAssignableFrom(cls)) {
+            @SuppressWarnings("unchecked")
+            var map = (Map<Object, Object>) newInstance(readString(buffer));
+            var keyType = getTypeArgument(type, 0);
+            var valueType = getTypeArgument(type, 1);
+            int size = buffer.getInt();
+
+            for (int i = 0; i < size; i++) {
+                map.put(readValue(buffer, keyType), readValue(buffer, valueType));
+            }
+
+            return map;
+        }
+
+        return readObject(buffer, cls);
+    }
+
+    private static Object readObject(ByteBuffer buffer, Class<?> cls) throws Exception {
+        var obj = getInstantiator(cls).create();
+
+        for (var field : getFields(cls)) {
+            field.set(obj, readValue(buffer, field.getGenericType()));
+        }
+
+        return obj;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readEnum(Class<?> cls, String name) {
+        return Enum.valueOf((Class<? extends Enum>) cls, name);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        var bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Writing
+
+    /**
+     * Collects the parsed defs of each table, then writes them all to the snapshot file
+     */
+    public static class Builder {
+        private final Map<String, byte[]> tables = new ConcurrentHashMap<>();
+
+        /**
+         * Encodes the defs right away, since onLoad can change them
+         */
+        public void add(Class<?> resourceClass, Collection<?> defs) {
+            try {
+                var bytes = new ByteArrayOutputStream();
+                var out = new DataOutputStream(bytes);
+
+                // Gson maps can contain null values
+                var list = defs.stream().filter(Objects::nonNull).toList();
+
+                out.writeInt(list.size());
+
+                for (var def : list) {
+                    writeObject(out, def, resourceClass);
+                }
+
+                this.tables.put(resourceClass.getName(), bytes.toByteArray());
+            } catch (Exception e) {
+                Nebula.getLogger().warn("Could not add " + resourceClass.getSimpleName() + " to the resource snapshot", e);
+            }
+        }
+
+        public void save(List<Class<?>> classes) {
+            try {
+                var headers = getHeaders(classes);
+
+                // Skip if a table failed to encode
+                if (!this.tables.keySet().containsAll(headers.keySet())) {
+                    return;
+                }
+
+                // Write header
+                var index = new ByteArrayOutputStream();
+                var out = new DataOutputStream(index);
+
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(GameConstants.getDataVersion());
+                out.writeInt(headers.size());
+
+                // Calculate where the table data starts
+                int offset = out.size() + 4 * headers.size(); // Table offsets
+
+                for (var header : headers.values()) {
+                    offset += getStringSize(header.name()) + 8 + getStringSize(header.schema());
+                }
+
+                // Write table index
+                for (var header : headers.values()) {
+                    writeString(out, header.name());
+                    out.writeLong(header.hash());
+                    writeString(out, header.schema());
+                    out.writeInt(offset);
+
+                    offset += this.tables.get(header.name()).length;
+                }
+
+                // Write to a temp file first, so a crash doesn't leave a broken snapshot
+                var path = getPath();
+                var temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+                Files.createDirectories(path.getParent());
+
+                try (var file = Files.newOutputStream(temp)) {
+                    file.write(index.toByteArray());
+
+                    for (var header : headers.values()) {
+                        file.write(this.tables.get(header.name()));
+                    }
+                }
+
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Nebula.getLogger().info("Saved resource snapshot to " + path);
+            } catch (Exception e) {
+                Nebula.getLogger().warn("Could not save resource snapshot", e);
+            }
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value, Type type) throws Exception {
+        var cls = getRawClass(type);
+
+        // Primitives
+        if (cls == int.class) { out.writeInt((Integer) value); return; }
+        if (cls == long.class) { out.writeLong((Long) value); return; }
+        if (cls == boolean.class) { out.writeBoolean((Boolean) value); return; }
+        if (cls == double.class) { out.writeDouble((Double) value); return; }
+        if (cls == float.class) { out.writeFloat((Float) value); return; }
+        if (cls == short.class) { out.writeShort((Short) value); return; }
+        if (cls == byte.class) { out.writeByte((Byte) value); return; }
+        if (cls == char.class) { out.writeChar((Character) value); return; }
+
+        // Null check
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        out.writeByte(PRESENT);
+
+        if (cls == Integer.class) { out.writeInt((Integer) value); return; }
+        if (cls == Long.class) { out.writeLong((Long) value); return; }
+        if (cls == Boolean.class) { out.writeBoolean((Boolean) value); return; }
+        if (cls == Double.class) { out.writeDouble((Double) value); return; }
+        if (cls == Float.class) { out.writeFloat((Float) value); return; }
+        if (cls == String.class) { writeString(out, (String) value); return; }
+
+        // Enums are stored by name, so reordering the constants doesn't change the values that are read back
+        if (cls.isEnum()) {
+            writeString(out, ((Enum<?>) value).name());
+            return;
+        }
+
+        if (cls.isArray()) {
+            int length = Array.getLength(value);
+            out.writeInt(length);
+
+            for (int i = 0; i < length; i++) {
+                writeValue(out, Array.get(value, i), cls.getComponentType());
+            }
+
+            return;
+        }
+
+        if (value instanceof IntCollection collection) {
+            writeString(out, value.getClass().getName());
+            out.writeInt(collection.size());
+
+            for (int i : collection) {
+                out.writeInt(i);
+            }
+
+            return;
+        }
+
+        if (value instanceof Int2ObjectMap<?> map) {
+            var valueType = getTypeArgument(type, 0);
+            out.writeInt(map.size());
+
+            for (var entry : map.int2ObjectEntrySet()) {
+                out.writeInt(entry.getIntKey());
+                writeValue(out, entry.getValue(), valueType);
+            }
+
+            return;
+        }
+
+        if (value instanceof Collection<?> collection) {
+            var elementType = getCollectionElementType(type, cls);
+
+            writeString(out, value.getClass().getName());
+            out.writeInt(collection.size());
+
+            for (var element : collection) {
+                writeValue(out, element, elementType);
+            }
+
+            return;
+        }
+
+        if (value instanceof Map<?, ?> map) {
+            var keyType = getTypeArgument(type, 0);
+            var valueType = getTypeArgument(type, 1);
+
+            writeString(out, value.getClass().getName());
+            out.writeInt(map.size());
+
+            for (var entry : map.entrySet()) {
+                writeValue(out, entry.getKey(), keyType);
+                writeValue(out, entry.getValue(), valueType);
+            }
+
+            return;
+        }
+
+        writeObject(out, value, cls);
+    }
+
+    private static void writeObject(DataOutputStream out, Object obj, Class<?> cls) throws Exception {
+        for (var field : getFields(cls)) {
+            writeValue(out, field.get(obj), field.getGenericType());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static int getStringSize(String value) {
+        return 4 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // Headers
+
+    private record TableHeader(String name, long hash, String schema) {
+
+    }
+
+    private static Map<String, TableHeader> getHeaders(List<Class<?>> classes) throws IOException {
+        var headers = new LinkedHashMap<String, TableHeader>();
+
+        for (var cls : classes) {
+            var type = cls.getAnnotation(ResourceType.class);
+
+            // Internal resources are always loaded from the jar
+            if (type == null || type.useInternal()) {
+                continue;
+            }
+
+            // Hash resource file
+            var path = Path.of(Nebula.getConfig().resourceDir, "bin", type.name());
+            var crc = new CRC32C();
+
+            if (Files.exists(path)) {
+                crc.update(Files.readAllBytes(path));
+            }
+
+            // Add
+            var schema = new StringBuilder();
+            getSchema(cls, schema, new ArrayList<>());
+
+            headers.put(cls.getName(), new TableHeader(cls.getName(), crc.getValue(), schema.toString()));
+        }
+
+        return headers;
+    }
+
+    /**
+     * Creates a string with all of the field names and types of this class, so the snapshot isn't used
+     * if a def class was changed.
+     */
+    private static void getSchema(Class<?> cls, StringBuilder schema, List<Class<?>> visited) {
+        if (visited.contains(cls)) {
+            return;
+        }
+
+        visited.add(cls);
+
+        // Enum constants, a renamed or removed constant couldn't be read back
+        if (cls.isEnum()) {
+            for (var constant : cls.getEnumConstants()) {
+                schema.append(((Enum<?>) constant).name()).append(',');
+            }
+
+            schema.append(';');
+            return;
+        }
+
+        // Element types of collection classes
+        if (cls.getGenericSuperclass() instanceof ParameterizedType superclass) {
+            for (var arg : superclass.getActualTypeArguments()) {
+                var argClass = getRawClass(arg);
+
+                if (argClass.getName().startsWith("emu.nebula.")) {
+                    getSchema(argClass, schema, visited);
+                }
+            }
+        }
+
+        for (var field : getFields(cls)) {
+            schema.append(field.getName()).append(':').append(field.getGenericType().getTypeName()).append(';');
+
+            // Nested classes
+            var fieldClass = field.getType();
+
+            while (fieldClass.isArray()) {
+                fieldClass = fieldClass.getComponentType();
+            }
+
+            if (fieldClass.getName().startsWith("emu.nebula.")) {
+                getSchema(fieldClass, schema, visited);
+            }
+
+            if (field.getGenericType() instanceof ParameterizedType parameterized) {
+                for (var arg : parameterized.getActualTypeArguments()) {
+                    var argClass = getRawClass(arg);
+
+                    if (argClass.getName().startsWith("emu.nebula.")) {
+                        getSchema(argClass, schema, visited);
+                    }
+                }
+            }
+        }
+    }
+
+    // Reflection
+
+    /**
+     * Returns the fields that gson would serialize
+     */
+    private static Field[] getFields(Class<?> cls) {
+        return FIELDS.computeIfAbsent(cls, c -> {
+            var fields = new ArrayList<Field>();
+
+            // Only our own classes are walked, collection classes like ItemRewardList are handled separately
+            for (var type = c; type != null && type.getName().startsWith("emu.nebula."); type = type.getSuperclass()) {
+                for (var field : type.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+
+            return fields.toArray(Field[]::new);
+        });
+    }
+
+    private static Class<?> getRawClass(Type type) {
+        if (type instanceof Class<?> cls) {
+            return cls;
+        } else if (type instanceof ParameterizedType parameterized) {
+            return (Class<?>) parameterized.getRawType();
+        }
+
+        return Object.class;
+    }
+
+    private static Type getTypeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType parameterized) {
+            return parameterized.getActualTypeArguments()[index];
+        }
+
+        return Object.class;
+    }
+
+    private static Type getCollectionElementType(Type type, Class<?> cls) {
+        // Collection classes like ItemRewardList don't have type arguments themselves
+        if (!(type instanceof ParameterizedType) && cls.getGenericSuperclass() instanceof ParameterizedType parameterized) {
+            return parameterized.getActualTypeArguments()[0];
+        }
+
+        return getTypeArgument(type, 0);
+    }
+
+    private static Object newInstance(String className) throws Exception {
+        var constructor = CONSTRUCTORS.get(className);
+
+        if (constructor == null) {
+            constructor = Class.forName(className).getDeclaredConstructor();
+            constructor.setAccessible(true);
+            CONSTRUCTORS.put(className, constructor);
+        }
+
+        return constructor.newInstance();
+    }
+
+    /**
+     * Returns a function that creates objects of this class the same way gson does: with the no-args constructor
+     * if there is one, otherwise through gson's own type adapter.
+     */
+    private static Instantiator getInstantiator(Class<?> cls) {
+        return INSTANTIATORS.computeIfAbsent(cls, c -> {
+            try {
+                var constructor = c.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return constructor::newInstance;
+            } catch (NoSuchMethodException e) {
+                var adapter = JsonUtils.getGsonFactory().getAdapter(c);
+                return () -> adapter.fromJsonTree(new JsonObject());
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Instantiator {
+        Object create() throws Exception;
+    }
+}
@@ -19,6 +19,11 @@ public @interface ResourceType {
      */
     boolean useInternal() default false;
     
+    /**
+     * Resources that must be loaded before this one, because its onLoad reads their data tables
+     */
+    Class<? extends BaseDef>[] dependencies() default {};
+    
     public enum LoadPriority {
         HIGHEST(4), HIGH(3), NORMAL(2), LOW(1), LOWEST(0);
 
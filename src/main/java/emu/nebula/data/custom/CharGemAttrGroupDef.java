@@ -79,6 +79,8 @@ public class CharGemAttrGroupDef extends BaseDef {
             }
         }
         
+        this.uniqueAttrNum.build();
+        
         // Init attribute types
         this.attributeTypes = new ObjectArrayList<>();
         
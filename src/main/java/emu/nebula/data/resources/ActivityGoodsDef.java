@@ -8,7 +8,7 @@ import emu.nebula.game.inventory.ItemParamMap;
 import lombok.Getter;
 
 @Getter
-@ResourceType(name = "ActivityGoods.json", loadPriority = LoadPriority.LOW)
+@ResourceType(name = "ActivityGoods.json", loadPriority = LoadPriority.LOW, dependencies = ActivityShopDef.class)
 public class ActivityGoodsDef extends BaseDef {
     private int Id;
     private int ShopId;
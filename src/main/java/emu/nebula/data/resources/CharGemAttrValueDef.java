@@ -3,11 +3,12 @@ package emu.nebula.data.resources;
 import emu.nebula.data.BaseDef;
 import emu.nebula.data.GameData;
 import emu.nebula.data.ResourceType;
+import emu.nebula.data.custom.CharGemAttrGroupDef;
 import emu.nebula.data.ResourceType.LoadPriority;
 import lombok.Getter;
 
 @Getter
-@ResourceType(name = "CharGemAttrValue.json", loadPriority = LoadPriority.LOW)
+@ResourceType(name = "CharGemAttrValue.json", loadPriority = LoadPriority.LOW, dependencies = CharGemAttrGroupDef.class)
 public class CharGemAttrValueDef extends BaseDef {
     private int Id;
     private int TypeId;
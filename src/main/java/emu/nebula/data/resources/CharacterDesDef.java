@@ -8,7 +8,7 @@ import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import lombok.Getter;
 
 @Getter
-@ResourceType(name = "CharacterDes.json", loadPriority = LoadPriority.LOW)
+@ResourceType(name = "CharacterDes.json", loadPriority = LoadPriority.LOW, dependencies = CharacterDef.class)
 public class CharacterDesDef extends BaseDef {
     private int Id;
     private int[] Tag;
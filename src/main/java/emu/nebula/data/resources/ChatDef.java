@@ -7,7 +7,7 @@ import emu.nebula.data.ResourceType.LoadPriority;
 import lombok.Getter;
 
 @Getter
-@ResourceType(name = "Chat.json", loadPriority = LoadPriority.LOW)
+@ResourceType(name = "Chat.json", loadPriority = LoadPriority.LOW, dependencies = CharacterDef.class)
 public class ChatDef extends BaseDef {
     private int Id;
     private int AddressBookId;
@@ -10,7 +10,7 @@ import emu.nebula.game.dating.DatingEvent;
 import lombok.Getter;
 
 @Getter
-@ResourceType(name = "DatingLandmarkEvent.json", loadPriority = LoadPriority.LOW)
+@ResourceType(name = "DatingLandmarkEvent.json", loadPriority = LoadPriority.LOW, dependencies = DatingLandmarkDef.class)
 public class DatingLandmarkEventDef extends BaseDef implements DatingEvent {
     private int Id;
     private int DatingEventType;
@@ -7,7 +7,7 @@ import emu.nebula.data.ResourceType.LoadPriority;
 import lombok.Getter;
 
 @Getter
-@ResourceType(name = "DictionaryEntry.json", loadPriority = LoadPriority.LOW)
+@ResourceType(name = "DictionaryEntry.json", loadPriority = LoadPriority.LOW, dependencies = DictionaryTabDef.class)
 public class DictionaryEntryDef extends BaseDef {
     private int Id;
     private int Tab;
@@ -1,6 +1,7 @@
 package emu.nebula.data.resources;
 
 import emu.nebula.data.BaseDef;
+import emu.nebula.data.DataCache;
 import emu.nebula.data.ResourceType;
 import emu.nebula.util.Utils;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
@@ -15,7 +16,7 @@ public class DropPkgDef extends BaseDef {
     private int PkgId;
     private int ItemId;
     
-    private static Int2ObjectMap<IntList> PACKAGES = new Int2ObjectOpenHashMap<>();
+    private static final DataCache<Int2ObjectMap<IntList>> PACKAGES = new DataCache<>(Int2ObjectOpenHashMap::new);
     
     @Override
     public int getId() {
@@ -24,12 +25,12 @@ public class DropPkgDef extends BaseDef {
     
     @Override
     public void onLoad() {
-        var packageList = PACKAGES.computeIfAbsent(this.PkgId, i -> new IntArrayList());
+        var packageList = PACKAGES.get().computeIfAbsent(this.PkgId, i -> new IntArrayList());
         packageList.add(this.ItemId);
     }
     
     public static int getRandomDrop(int packageId) {
-        var packageList = PACKAGES.get(packageId);
+        var packageList = PACKAGES.get().get(packageId);
         
         if (packageList == null) {
             return 0;
@@ -11,7 +11,7 @@ import lombok.Getter;
  * We don't need a DataTable for this, since we are only using this class to verify event options for the client
  */
 @Getter
-@ResourceType(name = "EventOptions.json", loadPriority = LoadPriority.LOW)
+@ResourceType(name = "EventOptions.json", loadPriority = LoadPriority.LOW, dependencies = StarTowerEventDef.class)
 public class EventOptionsDef extends BaseDef {
     private int Id;
     
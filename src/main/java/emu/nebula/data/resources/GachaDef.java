@@ -7,7 +7,7 @@ import emu.nebula.util.WeightedList;
 import lombok.Getter;
 
 @Getter
-@ResourceType(name = "Gacha.json")
+@ResourceType(name = "Gacha.json", dependencies = GachaStorageDef.class)
 public class GachaDef extends BaseDef {
     private int Id;
     private int StorageId;
@@ -94,6 +94,11 @@ public class GachaDef extends BaseDef {
                     new GachaPackage(GachaPackageType.C, this.CTypePkg)
             );
         }
+        
+        // Build alias tables
+        this.packageA.build();
+        this.packageB.build();
+        this.packageC.build();
     }
     
     @Getter
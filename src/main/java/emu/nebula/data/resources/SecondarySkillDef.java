@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import emu.nebula.data.BaseDef;
+import emu.nebula.data.DataCache;
 import emu.nebula.data.GameData;
 import emu.nebula.data.ResourceType;
 import emu.nebula.game.inventory.ItemParamMap;
@@ -23,8 +24,7 @@ public class SecondarySkillDef extends BaseDef {
     
     private transient ItemParamMap reqSubNotes;
     
-    @Getter
-    private static transient Int2ObjectMap<List<SecondarySkillDef>> groups = new Int2ObjectOpenHashMap<>();
+    private static final DataCache<Int2ObjectMap<List<SecondarySkillDef>>> groups = new DataCache<>(Int2ObjectOpenHashMap::new);
     
     @Override
     public int getId() {
@@ -51,7 +51,7 @@ public class SecondarySkillDef extends BaseDef {
         this.reqSubNotes = ItemParamMap.fromJsonString(this.NeedSubNoteSkills);
         
         // Add to group cache
-        var group = groups.computeIfAbsent(this.GroupId, id -> new ArrayList<>());
+        var group = groups.get().computeIfAbsent(this.GroupId, id -> new ArrayList<>());
         group.add(this);
         
         // Clear to save memory
@@ -61,7 +61,7 @@ public class SecondarySkillDef extends BaseDef {
     // Static sub note skill group group
 
     public static List<SecondarySkillDef> getGroup(int id) {
-        return groups.get(id);
+        return groups.get().get(id);
     }
     
     public static IntSet calculateSecondarySkills(int[] discIds, ItemParamMap subNotes) {
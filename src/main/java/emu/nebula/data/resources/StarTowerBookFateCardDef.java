@@ -7,7 +7,7 @@ import emu.nebula.data.ResourceType.LoadPriority;
 import lombok.Getter;
 
 @Getter
-@ResourceType(name = "StarTowerBookFateCard.json", loadPriority = LoadPriority.LOW)
+@ResourceType(name = "StarTowerBookFateCard.json", loadPriority = LoadPriority.LOW, dependencies = {FateCardDef.class, StarTowerBookFateCardBundleDef.class})
 public class StarTowerBookFateCardDef extends BaseDef {
     private int Id;
     private int BundleId;
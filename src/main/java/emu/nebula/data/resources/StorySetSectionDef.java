@@ -1,6 +1,7 @@
 package emu.nebula.data.resources;
 
 import emu.nebula.data.BaseDef;
+import emu.nebula.data.DataCache;
 import emu.nebula.data.ResourceType;
 import emu.nebula.game.inventory.ItemParamMap;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
@@ -18,18 +19,21 @@ public class StorySetSectionDef extends BaseDef {
     
     private transient ItemParamMap rewards;
     
-    @Getter
-    private static IntSet chapterIds = new IntOpenHashSet();
+    private static final DataCache<IntSet> chapterIds = new DataCache<>(IntOpenHashSet::new);
     
     @Override
     public int getId() {
         return Id;
     }
     
+    public static IntSet getChapterIds() {
+        return chapterIds.get();
+    }
+    
     @Override
     public void onLoad() {
         // Add to chapter ids
-        chapterIds.add(this.getChapterId());
+        getChapterIds().add(this.getChapterId());
         
         // Parse rewards
         this.rewards = new ItemParamMap();
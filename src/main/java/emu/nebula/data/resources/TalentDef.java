@@ -7,7 +7,7 @@ import emu.nebula.data.ResourceType.LoadPriority;
 import lombok.Getter;
 
 @Getter
-@ResourceType(name = "Talent.json", loadPriority = LoadPriority.LOW)
+@ResourceType(name = "Talent.json", loadPriority = LoadPriority.LOW, dependencies = TalentGroupDef.class)
 public class TalentDef extends BaseDef {
     private int Id;
     private int Index;
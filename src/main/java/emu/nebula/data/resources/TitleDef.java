@@ -7,7 +7,7 @@ import emu.nebula.data.ResourceType.LoadPriority;
 import lombok.Getter;
 
 @Getter
-@ResourceType(name = "Title.json", loadPriority = LoadPriority.LOW)
+@ResourceType(name = "Title.json", loadPriority = LoadPriority.LOW, dependencies = ItemDef.class)
 public class TitleDef extends BaseDef {
     private int Id;
     private int ItemId;
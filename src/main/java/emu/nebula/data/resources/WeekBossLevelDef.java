@@ -12,7 +12,7 @@ import emu.nebula.util.JsonUtils;
 import lombok.Getter;
 
 @Getter
-@ResourceType(name = "WeekBossLevel.json", loadPriority = LoadPriority.LOW)
+@ResourceType(name = "WeekBossLevel.json", loadPriority = LoadPriority.LOW, dependencies = ItemDef.class)
 public class WeekBossLevelDef extends BaseDef implements InstanceData {
     private int Id;
     private int Difficulty;
@@ -1,6 +1,9 @@
 package emu.nebula.database;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import emu.nebula.Config.DatabaseInfo;
@@ -10,7 +13,11 @@ import emu.nebula.Nebula.ServerType;
 import emu.nebula.database.codecs.*;
 import emu.nebula.util.Utils;
 
+import org.bson.Document;
 import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.reflections.Reflections;
 
 import com.mongodb.MongoCommandException;
@@ -18,6 +25,10 @@ import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 
 import de.bwaldvogel.mongo.MongoBackend;
@@ -29,8 +40,10 @@ import dev.morphia.annotations.Entity;
 import dev.morphia.mapping.MapperOptions;
 import dev.morphia.query.FindOptions;
 import dev.morphia.query.Sort;
+import dev.morphia.query.filters.Filter;
 import dev.morphia.query.filters.Filters;
 import dev.morphia.query.updates.UpdateOperators;
+import it.unimi.dsi.fastutil.ints.IntCollection;
 import lombok.Getter;
 
 @Getter
@@ -38,10 +51,14 @@ public final class DatabaseManager {
     @Getter
     private static MongoServer server;
     private Datastore datastore;
+    private DatabaseWriteQueue writeQueue;
+    private DatabaseProfiler profiler;
 
     private static final InsertOneOptions INSERT_OPTIONS = new InsertOneOptions();
     private static final DeleteOptions DELETE_OPTIONS = new DeleteOptions();
     private static final DeleteOptions DELETE_MANY = new DeleteOptions().multi(true);
+    private static final ReplaceOptions REPLACE_OPTIONS = new ReplaceOptions().upsert(true);
+    private static final BulkWriteOptions BULK_OPTIONS = new BulkWriteOptions().ordered(false);
 
     public DatabaseManager(DatabaseInfo info, ServerType type) {
         // Variables
@@ -107,6 +124,14 @@ public final class DatabaseManager {
         // Ensure indexes
         ensureIndexes();
         
+        // Setup profiler
+        this.profiler = new DatabaseProfiler(info.isProfile(), info.getProfileSlowOps(), info.getProfileLookupThreshold());
+        
+        // Setup write-behind queue for partial updates
+        if (info.getWriteBehindInterval() > 0) {
+            this.writeQueue = new DatabaseWriteQueue(this, info.getWriteBehindInterval(), info.getWriteBehindMaxPending());
+        }
+        
         // Done
         Nebula.getLogger().info("Connected to the MongoDB database at " + connectionString);
     }
@@ -136,56 +161,228 @@ public final class DatabaseManager {
     // Database Functions
 
     public boolean checkIfObjectExists(Class<?> cls, String filter, String value) {
-        return getDatastore().find(cls).filter(Filters.eq(filter, value)).count() > 0;
+        this.flushPending(cls, filter, value);
+        
+        long start = this.profiler.start();
+        boolean exists = getDatastore().find(cls).filter(Filters.eq(filter, value)).count() > 0;
+        
+        this.profiler.record(cls, "count", filter, start, 0, 0);
+        return exists;
     }
 
     public <T> T getObjectByUid(Class<T> cls, long uid) {
-        return getDatastore().find(cls).filter(Filters.eq("_id", uid)).first();
+        this.flushPending(cls, uid);
+        this.profiler.recordLookup(cls);
+        
+        long start = this.profiler.start();
+        T obj = getDatastore().find(cls).filter(Filters.eq("_id", uid)).first();
+        
+        this.profiler.record(cls, "find", "_id", start, obj != null ? 1 : 0, 0);
+        return obj;
     }
 
     public <T> T getObjectByField(Class<T> cls, String filter, Object value) {
-        return getDatastore().find(cls).filter(Filters.eq(filter, value)).first();
+        this.flushPending(cls, filter, value);
+        
+        long start = this.profiler.start();
+        T obj = getDatastore().find(cls).filter(Filters.eq(filter, value)).first();
+        
+        this.profiler.record(cls, "find", filter, start, obj != null ? 1 : 0, 0);
+        return obj;
     }
 
     public <T> T getObjectByField(Class<T> cls, String filter, long value) {
-        return getDatastore().find(cls).filter(Filters.eq(filter, value)).first();
+        if (filter.equals("_id")) {
+            this.flushPending(cls, value);
+            this.profiler.recordLookup(cls);
+        } else {
+            this.flushPending(cls, filter, value);
+        }
+        
+        long start = this.profiler.start();
+        T obj = getDatastore().find(cls).filter(Filters.eq(filter, value)).first();
+        
+        this.profiler.record(cls, "find", filter, start, obj != null ? 1 : 0, 0);
+        return obj;
     }
     
+    /**
+     * Returns only the projected fields of the objects with these ids, as raw documents. Useful when the whole
+     * object isn't needed, like when showing other players.
+     */
+    public List<Document> getDocumentsByUid(Class<?> cls, IntCollection uids, Bson projection) {
+        for (int uid : uids) {
+            this.flushPending(cls, uid);
+            this.profiler.recordLookup(cls);
+        }
+        
+        var filter = uids.size() == 1 ?
+                com.mongodb.client.model.Filters.eq("_id", uids.iterator().nextInt()) :
+                com.mongodb.client.model.Filters.in("_id", uids);
+        
+        long start = this.profiler.start();
+        var list = getDatastore().getCollection(cls)
+                .withDocumentClass(Document.class)
+                .find(filter)
+                .projection(projection)
+                .into(new ArrayList<>());
+        
+        this.profiler.record(cls, "find", "_id", start, list.size(), 0);
+        return list;
+    }
+    
+    // Streams are read lazily, so only the time to open the cursor is recorded
+    
     public <T> Stream<T> getObjects(Class<T> cls, String filter, Object value) {
-        return getDatastore().find(cls).filter(Filters.eq(filter, value)).stream();
+        this.flushPending(cls, filter, value);
+        
+        long start = this.profiler.start();
+        var stream = getDatastore().find(cls).filter(Filters.eq(filter, value)).stream();
+        
+        this.profiler.record(cls, "stream", filter, start, 0, 0);
+        return stream;
     }
 
     public <T> Stream<T> getObjects(Class<T> cls, String filter, long value) {
-        return getDatastore().find(cls).filter(Filters.eq(filter, value)).stream();
+        this.flushPending(cls, filter, value);
+        
+        long start = this.profiler.start();
+        var stream = getDatastore().find(cls).filter(Filters.eq(filter, value)).stream();
+        
+        this.profiler.record(cls, "stream", filter, start, 0, 0);
+        return stream;
     }
 
     public <T> Stream<T> getObjects(Class<T> cls) {
-        return getDatastore().find(cls).stream();
+        this.flushPending(cls);
+        
+        long start = this.profiler.start();
+        var stream = getDatastore().find(cls).stream();
+        
+        this.profiler.record(cls, "stream", null, start, 0, 0);
+        return stream;
     }
     
     public <T> List<T> getSortedObjects(Class<T> cls, String filter, int value, String sortBy, int limit) {
+        this.flushPending(cls, filter, value);
+        
+        long start = this.profiler.start();
+        
         var options = new FindOptions()
                 .sort(Sort.descending(sortBy))
                 .limit(limit);
         
-        return getDatastore()
+        var list = getDatastore()
                 .find(cls)
                 .filter(Filters.eq(filter, value))
                 .iterator(options)
                 .toList();
+        
+        this.profiler.record(cls, "find", filter, start, list.size(), 0);
+        return list;
     }
 
     public <T> void save(T obj) {
+        // Queued updates must reach the database before the document is replaced
+        this.flushPending(obj);
+        
+        long start = this.profiler.start();
         getDatastore().save(obj, INSERT_OPTIONS);
+        
+        // If the flush failed its updates were queued again, they are older than the document that was just saved
+        this.discardPending(obj);
+        
+        this.profiler.record(obj.getClass(), "save", null, start, 1, this.profiler.getSize(this.getCodecRegistry(), obj));
+    }
+
+    /**
+     * Saves a list of objects of the same class with a single bulk write. Objects without an id are given one.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void saveAll(List<T> objects) {
+        // Sanity check
+        if (objects == null || objects.isEmpty()) {
+            return;
+        }
+        
+        // Get entity info
+        var cls = (Class<T>) objects.get(0).getClass();
+        var mapper = getDatastore().getMapper();
+        var idProperty = mapper.getEntityModel(cls).getIdProperty();
+        long bytes = 0;
+        
+        // Create replace models
+        var models = new ArrayList<WriteModel<T>>(objects.size());
+        
+        for (var obj : objects) {
+            var id = mapper.getId(obj);
+            
+            if (id == null) {
+                id = new ObjectId();
+                idProperty.setValue(obj, id);
+            } else {
+                this.flushPending(obj);
+            }
+            
+            models.add(new ReplaceOneModel<>(com.mongodb.client.model.Filters.eq("_id", id), obj, REPLACE_OPTIONS));
+            bytes += this.profiler.getSize(this.getCodecRegistry(), obj);
+        }
+        
+        // Write
+        long start = this.profiler.start();
+        getDatastore().getCollection(cls).bulkWrite(models, BULK_OPTIONS);
+        
+        // Same as save, drop updates that were queued again by a failed flush
+        for (var obj : objects) {
+            this.discardPending(obj);
+        }
+        
+        this.profiler.record(cls, "saveAll", null, start, models.size(), bytes);
     }
 
     public <T> boolean delete(T obj) {
+        this.discardPending(obj);
+        
+        long start = this.profiler.start();
         DeleteResult result = getDatastore().delete(obj, DELETE_OPTIONS);
+        
+        this.profiler.record(obj.getClass(), "delete", "_id", start, (int) result.getDeletedCount(), 0);
         return result.getDeletedCount() > 0;
     }
 
     public boolean delete(Class<?> cls, String filter, long uid) {
+        this.discardPending(cls, filter, uid);
+        
+        long start = this.profiler.start();
         DeleteResult result = getDatastore().find(cls).filter(Filters.eq(filter, uid)).delete(DELETE_MANY);
+        
+        this.profiler.record(cls, "delete", filter, start, (int) result.getDeletedCount(), 0);
+        return result.getDeletedCount() > 0;
+    }
+
+    public boolean delete(Class<?> cls, String filter, Object value) {
+        this.discardPending(cls, filter, value);
+        
+        long start = this.profiler.start();
+        DeleteResult result = getDatastore().find(cls).filter(Filters.eq(filter, value)).delete(DELETE_MANY);
+        
+        this.profiler.record(cls, "delete", filter, start, (int) result.getDeletedCount(), 0);
+        return result.getDeletedCount() > 0;
+    }
+
+    /**
+     * Deletes every object that matches all of the filters
+     */
+    public boolean delete(Class<?> cls, Filter... filters) {
+        var fields = Arrays.stream(filters).map(Filter::getField).collect(Collectors.joining(","));
+        
+        // Queued upserts could match the filters, so write them first and let the delete remove them
+        this.flushPending(cls);
+        
+        long start = this.profiler.start();
+        DeleteResult result = getDatastore().find(cls).filter(filters).delete(DELETE_MANY);
+        
+        this.profiler.record(cls, "delete", fields, start, (int) result.getDeletedCount(), 0);
         return result.getDeletedCount() > 0;
     }
     
@@ -194,14 +391,26 @@ public final class DatabaseManager {
     }
     
     public void update(Object obj, int uid, String field, Object value, boolean upsert) {
+        long start = this.profiler.start();
+        long bytes = this.profiler.getSize(this.getCodecRegistry(), field, value);
+        
+        // Queue update
+        if (this.writeQueue != null) {
+            this.writeQueue.set(obj.getClass(), uid, field, value, upsert);
+            this.profiler.record(obj.getClass(), "queue.set", field, start, 1, bytes);
+            return;
+        }
+        
         var opt = new UpdateOptions().upsert(upsert);
         
         getDatastore().find(obj.getClass())
             .filter(Filters.eq("_id", uid))
             .update(opt, UpdateOperators.set(field, value));
+        
+        this.profiler.record(obj.getClass(), "set", field, start, 1, bytes);
     }
     
-    // TODO optimize to not require 2 db calls
+    // Both updates are merged into a single db call when the write queue is enabled
     public void update(Object obj, int uid, String field, Object value, String field2, Object value2) {
         /*
         getDatastore().find(obj.getClass())
@@ -212,21 +421,170 @@ public final class DatabaseManager {
         update(obj, uid, field2, value2);
     }
     
+    /**
+     * Partial update for documents that are keyed by an ObjectId instead of the player uid.
+     * @param owner Uid of the player that owns the document
+     */
+    public void update(Object obj, ObjectId id, int owner, String field, Object value) {
+        long start = this.profiler.start();
+        long bytes = this.profiler.getSize(this.getCodecRegistry(), field, value);
+        
+        // Queue update
+        if (this.writeQueue != null) {
+            this.writeQueue.set(obj.getClass(), id, owner, field, value, false);
+            this.profiler.record(obj.getClass(), "queue.set", field, start, 1, bytes);
+            return;
+        }
+        
+        getDatastore().find(obj.getClass())
+            .filter(Filters.eq("_id", id))
+            .update(new UpdateOptions(), UpdateOperators.set(field, value));
+        
+        this.profiler.record(obj.getClass(), "set", field, start, 1, bytes);
+    }
+    
     public void updateNested(Object obj, int uid, String filter, int filterId, String field, Object item) {
+        long start = this.profiler.start();
+        long bytes = this.profiler.getSize(this.getCodecRegistry(), field, item);
+        
+        // Queue update
+        if (this.writeQueue != null) {
+            this.writeQueue.setNested(obj.getClass(), uid, filter, filterId, field, item);
+            this.profiler.record(obj.getClass(), "queue.set", field, start, 1, bytes);
+            return;
+        }
+        
         var opt = new UpdateOptions().upsert(false);
         
         getDatastore().find(obj.getClass())
             .filter(Filters.eq("_id", uid))
             .filter(Filters.eq(filter, filterId))
             .update(opt, UpdateOperators.set(field, item));
+        
+        this.profiler.record(obj.getClass(), "set", field, start, 1, bytes);
     }
     
     public void addToSet(Object obj, int uid, String field, Object item) {
+        long start = this.profiler.start();
+        long bytes = this.profiler.getSize(this.getCodecRegistry(), field, item);
+        
+        // Queue update
+        if (this.writeQueue != null) {
+            this.writeQueue.addToSet(obj.getClass(), uid, field, item);
+            this.profiler.record(obj.getClass(), "queue.addToSet", field, start, 1, bytes);
+            return;
+        }
+        
         var opt = new UpdateOptions().upsert(false);
         
         getDatastore().find(obj.getClass())
             .filter(Filters.eq("_id", uid))
             .update(opt, UpdateOperators.addToSet(field, item));
+        
+        this.profiler.record(obj.getClass(), "addToSet", field, start, 1, bytes);
+    }
+    
+    private CodecRegistry getCodecRegistry() {
+        return getDatastore().getMapper().getCodecRegistry();
+    }
+    
+    // Write-behind queue
+    
+    /**
+     * Writes any queued updates for this uid to the database
+     */
+    public void flush(int uid) {
+        if (this.writeQueue != null) {
+            this.writeQueue.flush(uid);
+        }
+    }
+    
+    /**
+     * Writes all queued updates to the database
+     */
+    public void flush() {
+        if (this.writeQueue != null) {
+            this.writeQueue.flush();
+        }
+    }
+    
+    public void shutdown() {
+        if (this.writeQueue != null) {
+            this.writeQueue.shutdown();
+        }
+    }
+    
+    private void flushPending(Class<?> cls, long uid) {
+        if (this.writeQueue != null) {
+            this.writeQueue.flush(cls, (int) uid);
+        }
+    }
+    
+    /**
+     * Writes queued updates for a whole class, queries that aren't by id could match any of them
+     */
+    private void flushPending(Class<?> cls) {
+        if (this.writeQueue != null) {
+            this.writeQueue.flush(cls);
+        }
+    }
+    
+    /**
+     * Writes the queued updates that a query on this field could match. Queries by player uid only need the
+     * updates owned by that player.
+     */
+    private void flushPending(Class<?> cls, String filter, Object value) {
+        if (this.writeQueue == null) {
+            return;
+        }
+        
+        if (filter.equals("playerUid") && value instanceof Number uid) {
+            this.writeQueue.flushOwner(cls, uid.intValue());
+        } else {
+            this.flushPending(cls);
+        }
+    }
+    
+    private void flushPending(Object obj) {
+        if (this.writeQueue == null) {
+            return;
+        }
+        
+        var id = getDatastore().getMapper().getId(obj);
+        
+        if (id != null) {
+            this.writeQueue.flush(obj.getClass(), id);
+        }
+    }
+    
+    private void discardPending(Object obj) {
+        if (this.writeQueue == null) {
+            return;
+        }
+        
+        var id = getDatastore().getMapper().getId(obj);
+        
+        if (id != null) {
+            this.writeQueue.discard(obj.getClass(), id);
+        }
+    }
+    
+    /**
+     * Drops queued updates for the documents a filtered delete removes, so they aren't upserted back afterwards
+     */
+    private void discardPending(Class<?> cls, String filter, Object value) {
+        if (this.writeQueue == null) {
+            return;
+        }
+        
+        if (filter.equals("_id")) {
+            this.writeQueue.discard(cls, value instanceof Long uid ? (Object) uid.intValue() : value);
+        } else if (filter.equals("playerUid") && value instanceof Number uid) {
+            this.writeQueue.discardOwner(cls, uid.intValue());
+        } else {
+            // Can't tell which documents match, so write the updates and let the delete remove them
+            this.flushPending(cls);
+        }
     }
     
     // Database counter
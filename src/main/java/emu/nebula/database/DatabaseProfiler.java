@@ -0,0 +1,369 @@
+package emu.nebula.database;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+
+import com.mongodb.client.model.Updates;
+
+import emu.nebula.Nebula;
+import emu.nebula.net.HandlerMetrics;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import lombok.Getter;
+
+/**
+ * Records how long database operations take, grouped by entity class, operation and field path. Also keeps the
+ * slowest operations with the code that issued them, and counts requests that load many documents of the same
+ * class one at a time (N+1 queries).
+ * <p>
+ * Timing is only done when profiling is enabled in the database config, the handler op count is always recorded.
+ */
+public class DatabaseProfiler {
+    // Request currently being handled on this thread, used to find N+1 lookups
+    private static final ThreadLocal<RequestScope> REQUEST = new ThreadLocal<>();
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    @Getter private final boolean enabled;
+    @Getter private final int slowOpLimit;
+    @Getter private final int lookupThreshold;
+
+    private final Map<String, OpStats> stats;
+    private final Map<String, LongAdder> lookups;
+
+    // Min heap, so the fastest of the slow ops is replaced first
+    private final PriorityQueue<SlowOp> slowOps;
+    private volatile long slowOpThreshold;
+
+    public DatabaseProfiler(boolean enabled, int slowOpLimit, int lookupThreshold) {
+        this.enabled = enabled;
+        this.slowOpLimit = Math.max(slowOpLimit, 1);
+        this.lookupThreshold = Math.max(lookupThreshold, 2);
+        this.stats = new ConcurrentHashMap<>();
+        this.lookups = new ConcurrentHashMap<>();
+        this.slowOps = new PriorityQueue<>(Comparator.comparingLong(SlowOp::time));
+    }
+
+    /**
+     * Returns the start time of an operation, pass it to {@link #record} when the operation is done
+     */
+    public long start() {
+        return this.enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a finished operation
+     * @param field Field path that was changed or filtered on, numeric parts are replaced with *
+     * @param documents Amount of documents read or written
+     * @param bytes Encoded size of the data that was written
+     */
+    public void record(Class<?> cls, String op, String field, long start, int documents, long bytes) {
+        HandlerMetrics.recordDatabaseOp();
+
+        if (!this.enabled) {
+            return;
+        }
+
+        long time = System.nanoTime() - start;
+        var key = new OpKey(cls.getSimpleName(), op, normalizeField(field));
+
+        // Update stats
+        var opStats = this.stats.computeIfAbsent(key.toString(), k -> new OpStats(key));
+        opStats.count.increment();
+        opStats.time.add(time);
+        opStats.maxTime.accumulate(time);
+        opStats.documents.add(documents);
+        opStats.bytes.add(bytes);
+
+        // Keep the slowest ops. Only walk the stack if the op would make it into the list
+        if (time > this.slowOpThreshold) {
+            this.addSlowOp(new SlowOp(key, time, Nebula.getCurrentTime(), getCallSite()));
+        }
+    }
+
+    /**
+     * Counts a single document lookup by id for the request that is being handled on this thread
+     */
+    public void recordLookup(Class<?> cls) {
+        if (!this.enabled) {
+            return;
+        }
+
+        var scope = REQUEST.get();
+
+        if (scope != null) {
+            scope.profiler = this;
+            scope.lookups.mergeInt(cls.getSimpleName(), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Returns the encoded size of a field update, or 0 if profiling is disabled
+     */
+    public long getSize(CodecRegistry registry, String field, Object value) {
+        if (!this.enabled || value == null) {
+            return 0;
+        }
+
+        try {
+            var update = Updates.set(field, value).toBsonDocument(BsonDocument.class, registry);
+            return new RawBsonDocument(update, new BsonDocumentCodec()).getByteBuffer().remaining();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the encoded size of a document, or 0 if profiling is disabled
+     */
+    @SuppressWarnings("unchecked")
+    public <T> long getSize(CodecRegistry registry, T obj) {
+        if (!this.enabled || obj == null) {
+            return 0;
+        }
+
+        try {
+            var codec = registry.get((Class<T>) obj.getClass());
+            return new RawBsonDocument(obj, codec).getByteBuffer().remaining();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private synchronized void addSlowOp(SlowOp op) {
+        if (this.slowOps.size() >= this.slowOpLimit) {
+            if (op.time() <= this.slowOps.peek().time()) {
+                return;
+            }
+
+            this.slowOps.poll();
+        }
+
+        this.slowOps.add(op);
+
+        if (this.slowOps.size() >= this.slowOpLimit) {
+            this.slowOpThreshold = this.slowOps.peek().time();
+        }
+    }
+
+    public synchronized void reset() {
+        this.stats.clear();
+        this.lookups.clear();
+        this.slowOps.clear();
+        this.slowOpThreshold = 0;
+    }
+
+    // Results
+
+    /**
+     * Returns the stats of every operation, sorted by total time
+     */
+    public List<OpStats> getStats() {
+        var list = new ArrayList<>(this.stats.values());
+        list.sort(Comparator.comparingLong(OpStats::getTime).reversed());
+        return list;
+    }
+
+    /**
+     * Returns the slowest operations, slowest first
+     */
+    public synchronized List<SlowOp> getSlowOps() {
+        var list = new ArrayList<>(this.slowOps);
+        list.sort(Comparator.comparingLong(SlowOp::time).reversed());
+        return list;
+    }
+
+    /**
+     * Returns how many requests loaded many documents of the same class one by one, keyed by "handler entity"
+     */
+    public Map<String, Long> getLookups() {
+        var map = new TreeMap<String, Long>();
+        this.lookups.forEach((key, count) -> map.put(key, count.sum()));
+        return map;
+    }
+
+    /**
+     * Writes the stats in the Prometheus text format
+     */
+    public void writePrometheus(StringBuilder sb) {
+        var list = this.getStats();
+
+        sb.append("# HELP nebula_db_ops_total Database operations\n");
+        sb.append("# TYPE nebula_db_ops_total counter\n");
+        for (var s : list) {
+            sb.append("nebula_db_ops_total{").append(s.getLabels()).append("} ").append(s.getCount()).append('\n');
+        }
+
+        sb.append("# HELP nebula_db_op_seconds_total Time spent in database operations\n");
+        sb.append("# TYPE nebula_db_op_seconds_total counter\n");
+        for (var s : list) {
+            sb.append("nebula_db_op_seconds_total{").append(s.getLabels()).append("} ").append(s.getTime() / 1e9).append('\n');
+        }
+
+        sb.append("# HELP nebula_db_op_max_seconds Slowest database operation\n");
+        sb.append("# TYPE nebula_db_op_max_seconds gauge\n");
+        for (var s : list) {
+            sb.append("nebula_db_op_max_seconds{").append(s.getLabels()).append("} ").append(s.getMaxTime() / 1e9).append('\n');
+        }
+
+        sb.append("# HELP nebula_db_documents_total Documents read or written\n");
+        sb.append("# TYPE nebula_db_documents_total counter\n");
+        for (var s : list) {
+            sb.append("nebula_db_documents_total{").append(s.getLabels()).append("} ").append(s.getDocuments()).append('\n');
+        }
+
+        sb.append("# HELP nebula_db_bytes_written_total Encoded bytes written\n");
+        sb.append("# TYPE nebula_db_bytes_written_total counter\n");
+        for (var s : list) {
+            sb.append("nebula_db_bytes_written_total{").append(s.getLabels()).append("} ").append(s.getBytes()).append('\n');
+        }
+
+        sb.append("# HELP nebula_db_repeated_lookups_total Requests that loaded many documents of the same class one by one\n");
+        sb.append("# TYPE nebula_db_repeated_lookups_total counter\n");
+        this.lookups.forEach((key, count) -> {
+            var split = key.split(" ", 2);
+            sb.append("nebula_db_repeated_lookups_total{handler=\"").append(split[0]).append("\",entity=\"").append(split[1]).append("\"} ").append(count.sum()).append('\n');
+        });
+    }
+
+    // Request scope
+
+    /**
+     * Starts tracking lookups for a request on this thread
+     * @return The previous scope, pass it to {@link #endRequest}
+     */
+    public static Object beginRequest() {
+        var previous = REQUEST.get();
+        REQUEST.set(new RequestScope());
+        return previous;
+    }
+
+    /**
+     * Stops tracking lookups for a request and reports classes that were looked up too many times
+     * @param name Name of the request, usually the handler msg name
+     */
+    public static void endRequest(String name, Object previous) {
+        var scope = REQUEST.get();
+
+        if (previous instanceof RequestScope p) {
+            REQUEST.set(p);
+        } else {
+            REQUEST.remove();
+        }
+
+        if (scope == null || scope.profiler == null) {
+            return;
+        }
+
+        var profiler = scope.profiler;
+
+        for (var entry : scope.lookups.object2IntEntrySet()) {
+            if (entry.getIntValue() < profiler.getLookupThreshold()) {
+                continue;
+            }
+
+            profiler.lookups.computeIfAbsent(name + " " + entry.getKey(), k -> new LongAdder()).increment();
+
+            if (Nebula.getLogger().isDebugEnabled()) {
+                Nebula.getLogger().debug(name + " loaded " + entry.getIntValue() + " " + entry.getKey() + " documents one by one");
+            }
+        }
+    }
+
+    private static class RequestScope {
+        private final Object2IntMap<String> lookups = new Object2IntOpenHashMap<>();
+        private DatabaseProfiler profiler;
+    }
+
+    // Utility
+
+    /**
+     * Replaces numeric parts of a field path with *, so "quests.123.progress" is grouped as "quests.*.progress"
+     */
+    private static String normalizeField(String field) {
+        if (field == null || field.isEmpty()) {
+            return "-";
+        }
+
+        var parts = field.split("\\.");
+        boolean changed = false;
+
+        for (int i = 0; i < parts.length; i++) {
+            if (!parts[i].isEmpty() && parts[i].chars().allMatch(Character::isDigit)) {
+                parts[i] = "*";
+                changed = true;
+            }
+        }
+
+        return changed ? String.join(".", parts) : field;
+    }
+
+    private static String getCallSite() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(f -> !f.getClassName().startsWith(DatabaseProfiler.class.getPackageName()))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse(Thread.currentThread().getName()));
+    }
+
+    // Records
+
+    public record OpKey(String entity, String op, String field) {
+        @Override
+        public String toString() {
+            return this.entity + " " + this.op + " " + this.field;
+        }
+    }
+
+    public record SlowOp(OpKey key, long time, long timestamp, String callSite) {
+
+    }
+
+    @Getter
+    public static class OpStats {
+        private final OpKey key;
+        private final String labels;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder time = new LongAdder();
+        private final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+        private final LongAdder documents = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        private OpStats(OpKey key) {
+            this.key = key;
+            this.labels = "entity=\"" + key.entity() + "\",op=\"" + key.op() + "\",field=\"" + key.field() + "\"";
+        }
+
+        public long getCount() {
+            return this.count.sum();
+        }
+
+        public long getTime() {
+            return this.time.sum();
+        }
+
+        public long getMaxTime() {
+            return this.maxTime.get();
+        }
+
+        public long getDocuments() {
+            return this.documents.sum();
+        }
+
+        public long getBytes() {
+            return this.bytes.sum();
+        }
+    }
+}
@@ -0,0 +1,583 @@
+package emu.nebula.database;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.bson.BsonDocument;
+import org.bson.BsonNull;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+
+import emu.nebula.Nebula;
+import lombok.Getter;
+
+/**
+ * Write-behind unit of work for partial document updates. Field updates are merged per entity class and uid,
+ * then written to the database as one bulk write per collection by a background thread.
+ * <p>
+ * Drained updates stay in the in-flight set until their bulk write completes, so readers and full saves of the
+ * same document wait for them. Updates from a failed bulk write are queued again and retried on the next flush.
+ * <p>
+ * Flushes hold a {@link ReentrantLock} instead of a monitor, since callers are usually virtual threads and a
+ * monitor held during database I/O would pin their carrier thread.
+ */
+public class DatabaseWriteQueue {
+    private static final BulkWriteOptions BULK_OPTIONS = new BulkWriteOptions().ordered(true);
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final DatabaseManager database;
+    private final Map<PendingKey, PendingWrite> pending;
+    private final Map<PendingKey, PendingWrite> inFlight;
+    private final ScheduledExecutorService executor;
+    private final ReentrantLock flushLock;
+    private final AtomicBoolean flushScheduled;
+
+    @Getter private final int interval;
+    @Getter private final int maxPending;
+
+    public DatabaseWriteQueue(DatabaseManager database, int interval, int maxPending) {
+        this.database = database;
+        this.pending = new ConcurrentHashMap<>();
+        this.inFlight = new ConcurrentHashMap<>();
+        this.flushLock = new ReentrantLock();
+        this.flushScheduled = new AtomicBoolean();
+        this.interval = interval;
+        this.maxPending = maxPending;
+
+        // Start background writer
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "Database-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public int size() {
+        return this.pending.size();
+    }
+
+    public boolean hasPending(Class<?> cls, Object id) {
+        return this.hasPending(new PendingKey(cls, id));
+    }
+
+    /**
+     * Returns true if this entity has queued updates or updates that are still being written. The pending map
+     * is checked first, drain() adds keys to the in-flight set before removing them from it.
+     */
+    private boolean hasPending(PendingKey key) {
+        return this.pending.containsKey(key) || this.inFlight.containsKey(key);
+    }
+
+    private boolean hasPending(Class<?> cls) {
+        for (var key : this.pending.keySet()) {
+            if (key.type() == cls) {
+                return true;
+            }
+        }
+
+        for (var key : this.inFlight.keySet()) {
+            if (key.type() == cls) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean hasPending(Class<?> cls, int owner) {
+        for (var entry : this.pending.entrySet()) {
+            if (entry.getKey().type() == cls && entry.getValue().getOwner() == owner) {
+                return true;
+            }
+        }
+
+        for (var entry : this.inFlight.entrySet()) {
+            if (entry.getKey().type() == cls && entry.getValue().getOwner() == owner) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Queue
+
+    public void set(Class<?> cls, int uid, String field, Object value, boolean upsert) {
+        this.set(cls, uid, uid, field, value, upsert);
+    }
+
+    /**
+     * Queues a $set for a document that isn't keyed by the player uid (characters, discs).
+     * @param owner Uid of the player that owns the document, used to flush their updates on logout
+     */
+    public void set(Class<?> cls, Object id, int owner, String field, Object value, boolean upsert) {
+        var encoded = this.encode(field, value);
+        
+        this.pending.compute(new PendingKey(cls, id), (key, write) -> {
+            if (write == null) {
+                write = new PendingWrite(owner);
+            }
+
+            write.set(field, encoded, upsert);
+            return write;
+        });
+
+        this.checkSize();
+    }
+
+    public void setNested(Class<?> cls, int uid, String filter, int filterId, String field, Object value) {
+        var encoded = this.encode(field, value);
+        
+        this.pending.compute(new PendingKey(cls, uid), (key, write) -> {
+            if (write == null) {
+                write = new PendingWrite(uid);
+            }
+
+            write.setNested(filter, filterId, field, encoded);
+            return write;
+        });
+
+        this.checkSize();
+    }
+
+    public void addToSet(Class<?> cls, int uid, String field, Object value) {
+        var encoded = this.encode(field, value);
+        
+        this.pending.compute(new PendingKey(cls, uid), (key, write) -> {
+            if (write == null) {
+                write = new PendingWrite(uid);
+            }
+
+            write.addToSet(field, encoded);
+            return write;
+        });
+
+        this.checkSize();
+    }
+
+    /**
+     * Drops any queued updates for this entity. Used when the whole document is replaced or deleted.
+     */
+    public void discard(Class<?> cls, Object id) {
+        this.flushLock.lock();
+
+        try {
+            this.pending.remove(new PendingKey(cls, id));
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drops any queued updates for documents of this class owned by the uid. Used when they are deleted.
+     */
+    public void discardOwner(Class<?> cls, int owner) {
+        this.flushLock.lock();
+
+        try {
+            this.pending.entrySet().removeIf(entry -> entry.getKey().type() == cls && entry.getValue().getOwner() == owner);
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Encodes the value right away, so later changes to mutable objects (lists, sets, embedded entities)
+     * can't race with the background writer.
+     */
+    private BsonValue encode(String field, Object value) {
+        if (value == null) {
+            return BsonNull.VALUE;
+        }
+        
+        var registry = this.database.getDatastore().getMapper().getCodecRegistry();
+        var update = Updates.set(field, value).toBsonDocument(BsonDocument.class, registry);
+        
+        return update.getDocument("$set").get(field);
+    }
+
+    private void checkSize() {
+        if (this.maxPending <= 0 || this.pending.size() < this.maxPending) {
+            return;
+        }
+
+        // Only schedule one flush at a time, updates queued before it starts are written by it
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            this.executor.execute(() -> {
+                this.flushScheduled.set(false);
+                this.flush();
+            });
+        }
+    }
+
+    // Flush
+
+    /**
+     * Writes all queued updates to the database
+     */
+    public void flush() {
+        this.flushLock.lock();
+
+        try {
+            var batches = new LinkedHashMap<Class<?>, Map<PendingKey, PendingWrite>>();
+
+            for (var key : this.pending.keySet()) {
+                this.drain(key, batches);
+            }
+
+            this.write(batches);
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes queued updates for a single entity to the database. Waits for updates of this entity that are
+     * already being written by another thread.
+     */
+    public void flush(Class<?> cls, Object id) {
+        var key = new PendingKey(cls, id);
+
+        // Skip if we dont have any updates queued or in flight for this entity
+        if (!this.hasPending(key)) {
+            return;
+        }
+
+        this.flushLock.lock();
+
+        try {
+            var batches = new LinkedHashMap<Class<?>, Map<PendingKey, PendingWrite>>();
+            this.drain(key, batches);
+            this.write(batches);
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes all queued updates for an entity class to the database. Used before queries that could match any
+     * document of the class.
+     */
+    public void flush(Class<?> cls) {
+        if (!this.hasPending(cls)) {
+            return;
+        }
+
+        this.flushLock.lock();
+
+        try {
+            var batches = new LinkedHashMap<Class<?>, Map<PendingKey, PendingWrite>>();
+
+            for (var key : this.pending.keySet()) {
+                if (key.type() == cls) {
+                    this.drain(key, batches);
+                }
+            }
+
+            this.write(batches);
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes queued updates for documents of this class owned by the uid. Used before queries by player uid,
+     * so loading one player doesn't write every other player's updates.
+     */
+    public void flushOwner(Class<?> cls, int owner) {
+        if (!this.hasPending(cls, owner)) {
+            return;
+        }
+
+        this.flushLock.lock();
+
+        try {
+            var batches = new LinkedHashMap<Class<?>, Map<PendingKey, PendingWrite>>();
+
+            for (var entry : this.pending.entrySet()) {
+                if (entry.getKey().type() == cls && entry.getValue().getOwner() == owner) {
+                    this.drain(entry.getKey(), batches);
+                }
+            }
+
+            this.write(batches);
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes all queued updates owned by this uid to the database. Called when a player logs out.
+     */
+    public void flush(int uid) {
+        this.flushLock.lock();
+
+        try {
+            var batches = new LinkedHashMap<Class<?>, Map<PendingKey, PendingWrite>>();
+
+            for (var entry : this.pending.entrySet()) {
+                if (entry.getValue().getOwner() == uid) {
+                    this.drain(entry.getKey(), batches);
+                }
+            }
+
+            this.write(batches);
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    public void shutdown() {
+        this.executor.shutdown();
+        this.flush();
+    }
+
+    private void drain(PendingKey key, Map<Class<?>, Map<PendingKey, PendingWrite>> batches) {
+        var write = this.pending.get(key);
+        if (write == null) {
+            return;
+        }
+
+        // Mark as in flight before removing it, so readers always see one of the two
+        this.inFlight.put(key, write);
+
+        // Remove from the pending map so new updates for this key start a new unit of work
+        if (!this.pending.remove(key, write)) {
+            this.inFlight.remove(key);
+            return;
+        }
+
+        batches.computeIfAbsent(key.type(), c -> new LinkedHashMap<>()).put(key, write);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void write(Map<Class<?>, Map<PendingKey, PendingWrite>> batches) {
+        for (var entry : batches.entrySet()) {
+            var writes = entry.getValue();
+            var models = new ArrayList<WriteModel<?>>(writes.size());
+
+            for (var write : writes.entrySet()) {
+                for (var segment : write.getValue().getSegments()) {
+                    models.add(segment.toModel(write.getKey().id()));
+                }
+            }
+
+            try {
+                var collection = this.database.getDatastore().getCollection(entry.getKey());
+                long start = this.database.getProfiler().start();
+                
+                collection.bulkWrite((List) models, BULK_OPTIONS);
+                
+                this.database.getProfiler().record(entry.getKey(), "flush", null, start, models.size(), 0);
+            } catch (Exception e) {
+                Nebula.getLogger().error("Error writing queued updates for " + entry.getKey().getSimpleName(), e);
+                
+                // Queue again, updates that were already written are safe to repeat ($set and $addToSet)
+                for (var write : writes.entrySet()) {
+                    this.requeue(write.getKey(), write.getValue());
+                }
+            } finally {
+                this.inFlight.keySet().removeAll(writes.keySet());
+            }
+        }
+    }
+
+    /**
+     * Puts updates from a failed write back in front of any updates that were queued since
+     */
+    private void requeue(PendingKey key, PendingWrite write) {
+        if (write.incrementAttempts() >= MAX_ATTEMPTS) {
+            Nebula.getLogger().error("Dropping queued updates for " + key.type().getSimpleName() + " " + key.id() + " after " + MAX_ATTEMPTS + " failed writes");
+            return;
+        }
+
+        this.pending.merge(key, write, (newer, failed) -> {
+            failed.getSegments().addAll(newer.getSegments());
+            return failed;
+        });
+    }
+
+    // Pending writes
+
+    private record PendingKey(Class<?> type, Object id) {
+
+    }
+
+    @Getter
+    private static class PendingWrite {
+        private final int owner;
+        private final List<UpdateSegment> segments = new ArrayList<>(1);
+        private int attempts;
+
+        public PendingWrite(int owner) {
+            this.owner = owner;
+        }
+
+        public int incrementAttempts() {
+            return ++this.attempts;
+        }
+
+        public void set(String field, BsonValue value, boolean upsert) {
+            var segment = this.getLastSegment();
+
+            if (segment == null || !segment.canSet(null, 0, upsert, field)) {
+                segment = this.addSegment(null, 0, upsert);
+            }
+
+            segment.getSets().put(field, value);
+        }
+
+        public void setNested(String filter, int filterId, String field, BsonValue value) {
+            var segment = this.getLastSegment();
+
+            if (segment == null || !segment.canSet(filter, filterId, false, field)) {
+                segment = this.addSegment(filter, filterId, false);
+            }
+
+            segment.getSets().put(field, value);
+        }
+
+        public void addToSet(String field, BsonValue value) {
+            var segment = this.getLastSegment();
+
+            if (segment == null || !segment.canAddToSet(field)) {
+                segment = this.addSegment(null, 0, false);
+            }
+
+            segment.getAddToSets().computeIfAbsent(field, f -> new ArrayList<>()).add(value);
+        }
+
+        private UpdateSegment getLastSegment() {
+            if (this.segments.isEmpty()) {
+                return null;
+            }
+
+            return this.segments.get(this.segments.size() - 1);
+        }
+
+        private UpdateSegment addSegment(String filter, int filterId, boolean upsert) {
+            var segment = new UpdateSegment(filter, filterId, upsert);
+            this.segments.add(segment);
+            return segment;
+        }
+    }
+
+    /**
+     * A group of update operators that can be sent to the database as a single update
+     */
+    @Getter
+    private static class UpdateSegment {
+        private final String filter;
+        private final int filterId;
+        private final boolean upsert;
+
+        private final Map<String, BsonValue> sets;
+        private final Map<String, List<BsonValue>> addToSets;
+
+        public UpdateSegment(String filter, int filterId, boolean upsert) {
+            this.filter = filter;
+            this.filterId = filterId;
+            this.upsert = upsert;
+            this.sets = new LinkedHashMap<>();
+            this.addToSets = new LinkedHashMap<>();
+        }
+
+        private boolean hasFilter(String filter, int filterId) {
+            if (this.filter == null) {
+                return filter == null;
+            }
+
+            return this.filter.equals(filter) && this.filterId == filterId;
+        }
+
+        public boolean canSet(String filter, int filterId, boolean upsert, String field) {
+            // Updates must target the same document
+            if (!this.hasFilter(filter, filterId) || this.upsert != upsert) {
+                return false;
+            }
+
+            // Setting the same field again replaces the old value, but mongo rejects overlapping paths
+            for (var path : this.sets.keySet()) {
+                if (!path.equals(field) && isConflict(path, field)) {
+                    return false;
+                }
+            }
+
+            for (var path : this.addToSets.keySet()) {
+                if (isConflict(path, field)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        public boolean canAddToSet(String field) {
+            // Updates must target the same document
+            if (!this.hasFilter(null, 0) || this.upsert) {
+                return false;
+            }
+
+            for (var path : this.sets.keySet()) {
+                if (isConflict(path, field)) {
+                    return false;
+                }
+            }
+
+            for (var path : this.addToSets.keySet()) {
+                if (!path.equals(field) && isConflict(path, field)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        public UpdateOneModel<?> toModel(Object id) {
+            // Create filter
+            Bson filter = Filters.eq("_id", id);
+
+            if (this.filter != null) {
+                filter = Filters.and(filter, Filters.eq(this.filter, this.filterId));
+            }
+
+            // Merge update operators
+            var updates = new ArrayList<Bson>(this.sets.size() + this.addToSets.size());
+
+            for (var entry : this.sets.entrySet()) {
+                updates.add(Updates.set(entry.getKey(), entry.getValue()));
+            }
+
+            for (var entry : this.addToSets.entrySet()) {
+                updates.add(Updates.addEachToSet(entry.getKey(), entry.getValue()));
+            }
+
+            return new UpdateOneModel<>(filter, Updates.combine(updates), new UpdateOptions().upsert(this.upsert));
+        }
+
+        private static boolean isConflict(String a, String b) {
+            if (a.equals(b)) {
+                return true;
+            }
+
+            return a.startsWith(b + ".") || b.startsWith(a + ".");
+        }
+    }
+}
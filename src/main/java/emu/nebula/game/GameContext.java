@@ -2,6 +2,12 @@ package emu.nebula.game;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -11,27 +17,29 @@ import emu.nebula.Nebula;
 import emu.nebula.game.activity.ActivityModule;
 import emu.nebula.game.ban.BanModule;
 import emu.nebula.game.gacha.GachaModule;
+import emu.nebula.game.mail.GlobalMailModule;
 import emu.nebula.game.player.PlayerModule;
+import emu.nebula.game.ranking.RankingModule;
 import emu.nebula.game.scoreboss.ScoreBossModule;
 import emu.nebula.game.tutorial.TutorialModule;
 import emu.nebula.net.GameSession;
 import emu.nebula.util.Utils;
-import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
-
 import lombok.Getter;
 
 @Getter
 public class GameContext implements Runnable {
-    private final Object2ObjectMap<String, GameSession> sessions;
+    private final Map<String, GameSession> sessions;
+    private final NavigableMap<Long, Queue<GameSession>> sessionExpiry;
     
     // Modules
     private final PlayerModule playerModule;
     private final GachaModule gachaModule;
     private final TutorialModule tutorialModule;
     private final ActivityModule activityModule;
+    private final RankingModule rankingModule;
     private final ScoreBossModule scoreBossModule;
     private final BanModule banModule;
+    private final GlobalMailModule globalMailModule;
     
     // Game loop
     private final ScheduledExecutorService scheduler;
@@ -42,62 +50,99 @@ public class GameContext implements Runnable {
     private int epochMonths;
     
     public GameContext() {
-        this.sessions = new Object2ObjectOpenHashMap<>();
+        this.sessions = new ConcurrentHashMap<>();
+        this.sessionExpiry = new ConcurrentSkipListMap<>();
         
         // Setup game modules
         this.playerModule = new PlayerModule(this);
         this.gachaModule = new GachaModule(this);
         this.tutorialModule = new TutorialModule(this);
         this.activityModule = new ActivityModule(this);
+        this.rankingModule = new RankingModule(this);
         this.scoreBossModule = new ScoreBossModule(this);
         this.banModule = new BanModule(this);
+        this.globalMailModule = new GlobalMailModule(this);
         
         // Run game loop
         this.scheduler = Executors.newScheduledThreadPool(1);
         this.scheduler.scheduleAtFixedRate(this, 0, 1, TimeUnit.SECONDS);
     }
     
-    public synchronized GameSession getSessionByToken(String token) {
+    public GameSession getSessionByToken(String token) {
         return sessions.get(token);
     }
     
-    public synchronized void addSession(GameSession session) {
+    public void addSession(GameSession session) {
         this.sessions.put(session.getToken(), session);
+        this.scheduleExpiry(session, session.getLastActiveTime() + this.getSessionTimeout());
     }
 
-    public synchronized void generateSessionToken(GameSession session) {
+    public void generateSessionToken(GameSession session) {
         // Remove token
-        if (session.getToken() != null) {
-            this.sessions.remove(session.getToken());
-        }
+        boolean registered = session.getToken() != null;
         
-        // Generate token
-        String token = null;
+        if (registered) {
+            this.sessions.remove(session.getToken(), session);
+        }
         
+        // Generate token and register session
         do {
-            token = session.generateToken();
-        } while (this.getSessions().containsKey(token));
+            session.generateToken();
+        } while (this.sessions.putIfAbsent(session.getToken(), session) != null);
         
-        // Register session
-        this.sessions.put(session.getToken(), session);
+        // Sessions that were already registered still have an entry in the expiry queue
+        if (!registered) {
+            this.scheduleExpiry(session, session.getLastActiveTime() + this.getSessionTimeout());
+        }
     }
     
-    // TODO add timeout to config
-    public synchronized void cleanupInactiveSessions() {
-        var it = this.getSessions().entrySet().iterator();
-        
-        int time = Nebula.getConfig().getServerOptions().sessionTimeout;
-        long timeout = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(time);
+    /**
+     * Removes the session from the session map and clears its player
+     */
+    public void removeSession(GameSession session) {
+        if (session.getToken() != null && this.sessions.remove(session.getToken(), session)) {
+            session.clearPlayer();
+        }
+    }
+    
+    // Session expiry
+    
+    private long getSessionTimeout() {
+        // Timeout must be at least 1 second so new entries never land in a bucket that is being swept
+        int time = Math.max(Nebula.getConfig().getServerOptions().sessionTimeout, 1);
+        return TimeUnit.SECONDS.toMillis(time);
+    }
+    
+    private void scheduleExpiry(GameSession session, long time) {
+        // Round up to the next second
+        long bucket = Math.floorDiv(time, 1000L) + 1;
+        this.sessionExpiry.computeIfAbsent(bucket, b -> new ConcurrentLinkedQueue<>()).add(session);
+    }
+    
+    /**
+     * Removes sessions that have been idle for longer than the session timeout. Only sessions whose expiry time
+     * has passed are checked. Sessions that were active since then are put back into the queue with a new expiry time.
+     */
+    public void cleanupInactiveSessions() {
+        long now = System.currentTimeMillis();
+        long timeout = this.getSessionTimeout();
         
-        while (it.hasNext()) {
-            var session = it.next().getValue();
+        while (!this.sessionExpiry.isEmpty() && this.sessionExpiry.firstKey() * 1000L <= now) {
+            var bucket = this.sessionExpiry.pollFirstEntry().getValue();
             
-            if (timeout > session.getLastActiveTime() || session.isRemove()) {
-                // Remove from session map
-                it.remove();
+            for (var session : bucket) {
+                // Skip if the session was already removed
+                if (this.sessions.get(session.getToken()) != session) {
+                    continue;
+                }
                 
-                // Clear player
-                session.clearPlayer();
+                long expiry = session.getLastActiveTime() + timeout;
+                
+                if (expiry <= now || session.isRemove()) {
+                    this.removeSession(session);
+                } else {
+                    this.scheduleExpiry(session, expiry);
+                }
             }
         }
     }
@@ -125,12 +170,15 @@ public class GameContext implements Runnable {
         
         // Clean up any inactive sessions
         this.cleanupInactiveSessions();
+        
+        // Update rankings
+        this.rankingModule.tick();
     }
 
     /**
      * Resets the daily missions/etc for all players on the server
      */
-    public synchronized void resetDailies() {
+    public void resetDailies() {
         for (var session : this.getSessions().values()) {
             // Cache
             var player = session.getPlayer();
@@ -140,8 +188,8 @@ public class GameContext implements Runnable {
                 continue;
             }
             
-            //
-            player.checkResetDailies();
+            // Reset on the player's executor so we don't race with their packet handlers
+            player.getExecutor().execute(player::checkResetDailies);
         }
     }
 }
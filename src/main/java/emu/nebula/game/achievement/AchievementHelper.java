@@ -3,6 +3,7 @@ package emu.nebula.game.achievement;
 import java.util.List;
 
 import emu.nebula.GameConstants;
+import emu.nebula.data.DataCache;
 import emu.nebula.data.GameData;
 import emu.nebula.data.resources.AchievementDef;
 import emu.nebula.game.tower.room.RoomType;
@@ -10,29 +11,14 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
-import lombok.Getter;
 
 // Because achievements in the data files do not have params, we will hardcode them here
 public class AchievementHelper {
     // Cache
-    private static IntSet incrementalAchievementSet = new IntOpenHashSet();
+    private static final IntSet incrementalAchievementSet = new IntOpenHashSet();
+    private static final DataCache<Int2ObjectMap<List<AchievementDef>>> cache = new DataCache<>(Int2ObjectOpenHashMap::new);
     
-    @Getter
-    private static Int2ObjectMap<List<AchievementDef>> cache = new Int2ObjectOpenHashMap<>();
-    
-    public static List<AchievementDef> getAchievementsByCondition(int condition) {
-        return cache.get(condition);
-    }
-    
-    //
-    
-    public static boolean isIncrementalAchievement(int condition) {
-        return incrementalAchievementSet.contains(condition);
-    }
-    
-    // Fix params
-    
-    public static void init() {
+    static {
         // Cache total achievements
         for (var condition : AchievementCondition.values()) {
             if (condition.name().endsWith("Total") || condition.name().endsWith("Times")) {
@@ -47,7 +33,28 @@ public class AchievementHelper {
         
         incrementalAchievementSet.add(AchievementCondition.TowerItemsGet.getValue());
         incrementalAchievementSet.add(AchievementCondition.TowerEnterRoom.getValue());
-        
+    }
+    
+    public static Int2ObjectMap<List<AchievementDef>> getCache() {
+        return cache.get();
+    }
+    
+    public static List<AchievementDef> getAchievementsByCondition(int condition) {
+        return getCache().get(condition);
+    }
+    
+    //
+    
+    public static boolean isIncrementalAchievement(int condition) {
+        return incrementalAchievementSet.contains(condition);
+    }
+    
+    // Fix params
+    
+    /**
+     * Called after the achievement data is loaded into a new game data snapshot
+     */
+    public static void init() {
         // Fix params
         fixParams();
     }
@@ -47,7 +47,7 @@ public class AchievementManager extends PlayerManager implements GameDatabaseObj
         this.save();
     }
     
-    public synchronized int getCompletedAchievementsCount() {
+    public int getCompletedAchievementsCount() {
         return (int) this.getAchievements().values().stream()
                 .filter(GameAchievement::isComplete)
                 .count();
@@ -56,7 +56,10 @@ public class AchievementManager extends PlayerManager implements GameDatabaseObj
     /**
      * Returns true if there are any unclaimed achievements
      */
-    public synchronized boolean hasNewAchievements() {
+    public boolean hasNewAchievements() {
+        // Apply queued triggers first, so progress made earlier in this request is counted
+        this.getPlayer().flushTriggers();
+        
         for (var achievement : this.getAchievements().values()) {
             if (achievement.isClaimable()) {
                 return true;
@@ -66,7 +69,7 @@ public class AchievementManager extends PlayerManager implements GameDatabaseObj
         return false;
     }
     
-    public synchronized GameAchievement getAchievement(AchievementDef data) {
+    public GameAchievement getAchievement(AchievementDef data) {
         // Try and get achievement normally
         var achievement = this.getAchievements().get(data.getId());
         
@@ -80,7 +83,7 @@ public class AchievementManager extends PlayerManager implements GameDatabaseObj
         return achievement;
     }
     
-    public synchronized void handleClientEvents(Events events) {
+    public void handleClientEvents(Events events) {
         // Parse events
         for (var event : events.getList()) {
             // Check id
@@ -129,15 +132,15 @@ public class AchievementManager extends PlayerManager implements GameDatabaseObj
         }
     }
     
-    public synchronized void trigger(AchievementCondition condition, int progress) {
+    public void trigger(AchievementCondition condition, int progress) {
         this.trigger(condition.getValue(), progress, 0, 0);
     }
     
-    public synchronized void trigger(AchievementCondition condition, int progress, int param1, int param2) {
+    public void trigger(AchievementCondition condition, int progress, int param1, int param2) {
         this.trigger(condition.getValue(), progress, param1, param2);
     }
     
-    public synchronized void trigger(int condition, int progress, int param1, int param2) {
+    public void trigger(int condition, int progress, int param1, int param2) {
         // Sanity check
         if (progress <= 0) {
             return;
@@ -179,7 +182,7 @@ public class AchievementManager extends PlayerManager implements GameDatabaseObj
         }
     }
     
-    public synchronized void triggerOne(int id, int progress, int param1, int param2) {
+    public void triggerOne(int id, int progress, int param1, int param2) {
         // Get achievement data
         var data = GameData.getAchievementDataTable().get(id);
         if (data == null) return;
@@ -228,7 +231,10 @@ public class AchievementManager extends PlayerManager implements GameDatabaseObj
         );
     }
    
-    public synchronized PlayerChangeInfo recvRewards(RepeatedInt ids) {
+    public PlayerChangeInfo recvRewards(RepeatedInt ids) {
+        // Apply queued triggers first, so progress made earlier in this request is counted
+        this.getPlayer().flushTriggers();
+        
         // Sanity check
         if (ids.length() <= 0) {
             return null;
@@ -262,7 +268,10 @@ public class AchievementManager extends PlayerManager implements GameDatabaseObj
     
     // Proto
     
-    public synchronized Achievements toProto() {
+    public Achievements toProto() {
+        // Apply queued triggers first, so progress made earlier in this request is counted
+        this.getPlayer().flushTriggers();
+        
         var proto = Achievements.newInstance();
         
         for (var achievement : this.getAchievements().values()) {
@@ -16,11 +16,13 @@ import emu.nebula.game.inventory.ItemParamMap;
 import emu.nebula.game.player.Player;
 import emu.nebula.game.player.PlayerChangeInfo;
 import emu.nebula.game.quest.GameQuest;
+import emu.nebula.game.quest.QuestIndex;
 import emu.nebula.game.quest.QuestType;
 import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.BattlePassInfoOuterClass.BattlePassInfo;
 import emu.nebula.util.Bitset;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 @Getter
@@ -41,6 +43,10 @@ public class BattlePass implements GameDatabaseObject {
     
     private Map<Integer, GameQuest> quests;
     
+    // Quests by condition, rebuilt when quests are added
+    @Getter(AccessLevel.NONE)
+    private transient QuestIndex questIndex;
+    
     @Deprecated // Morphia only
     public BattlePass() {
         
@@ -74,7 +80,7 @@ public class BattlePass implements GameDatabaseObject {
     /**
      * Sets the mode directly
      */
-    public synchronized void setMode(int mode) {
+    public void setMode(int mode) {
         this.mode = mode;
     }
     
@@ -89,7 +95,7 @@ public class BattlePass implements GameDatabaseObject {
     /**
      * Sets the level directly, use getMaxExp() instead if adding exp.
      */
-    public synchronized void setLevel(int level) {
+    public void setLevel(int level) {
         this.level = level;
         this.exp = 0;
     }
@@ -118,7 +124,10 @@ public class BattlePass implements GameDatabaseObject {
     /**
      * Returns true if any rewards or quests are claimable
      */
-    public synchronized boolean hasNew() {
+    public boolean hasNew() {
+        // Apply queued triggers first, so progress made earlier in this request is counted
+        this.getPlayer().flushTriggers();
+        
         // Check if any quests are complete but unclaimed
         for (var quest : getQuests().values()) {
             if (quest.isComplete() && !quest.isClaimed()) {
@@ -141,7 +150,7 @@ public class BattlePass implements GameDatabaseObject {
         return false;
     }
     
-    public synchronized void resetDailyQuests(boolean resetWeekly) {
+    public void resetDailyQuests(boolean resetWeekly) {
         // Reset daily quests
         for (var data : GameData.getBattlePassQuestDataTable()) {
             // Get quest
@@ -159,6 +168,9 @@ public class BattlePass implements GameDatabaseObject {
             this.syncQuest(quest);
         }
         
+        // Rebuild quest index
+        this.questIndex = null;
+        
         // Reset weekly limit for exp
         if (resetWeekly) {
             this.expWeek = 0;
@@ -168,14 +180,22 @@ public class BattlePass implements GameDatabaseObject {
         this.save();
     }
     
-    public synchronized void trigger(int condition, int progress, int param1, int param2) {
-        for (var quest : getQuests().values()) {
+    private QuestIndex getQuestIndex() {
+        if (this.questIndex == null) {
+            this.questIndex = new QuestIndex(this.getQuests().values());
+        }
+        
+        return this.questIndex;
+    }
+    
+    public void trigger(int condition, int progress, int param1, int param2) {
+        this.getQuestIndex().forEach(condition, param1, quest -> {
             // Try to trigger quest
             boolean result = quest.trigger(condition, progress, param1, param2);
             
             // Skip if quest progress wasn't changed
             if (!result) {
-                continue;
+                return;
             }
             
             // Sync quest with player client
@@ -183,7 +203,7 @@ public class BattlePass implements GameDatabaseObject {
             
             // Update in database
             Nebula.getGameDatabase().update(this, this.getUid(), "quests." + quest.getId(), quest);
-        }
+        });
     }
     
     /**
@@ -201,6 +221,9 @@ public class BattlePass implements GameDatabaseObject {
     }
     
     public BattlePass receiveQuestReward(int questId) {
+        // Apply queued triggers first, so progress made earlier in this request is counted
+        this.getPlayer().flushTriggers();
+        
         // Get received quests
         var claimList = new ArrayList<GameQuest>();
         
@@ -268,6 +291,9 @@ public class BattlePass implements GameDatabaseObject {
     }
     
     public PlayerChangeInfo receiveReward(boolean premium, int levelId) {
+        // Apply queued triggers first, so progress made earlier in this request is counted
+        this.getPlayer().flushTriggers();
+        
         // Get bitset
         Bitset rewards = null;
         
@@ -303,6 +329,9 @@ public class BattlePass implements GameDatabaseObject {
     }
     
     public PlayerChangeInfo receiveReward() {
+        // Apply queued triggers first, so progress made earlier in this request is counted
+        this.getPlayer().flushTriggers();
+        
         // Init rewards
         var rewards = new ItemParamMap();
         
@@ -358,6 +387,9 @@ public class BattlePass implements GameDatabaseObject {
     // Proto
     
     public BattlePassInfo toProto() {
+        // Apply queued triggers first, so progress made earlier in this request is counted
+        this.getPlayer().flushTriggers();
+        
         var proto = BattlePassInfo.newInstance()
                 .setId(this.getBattlePassId())
                 .setLevel(this.getLevel())
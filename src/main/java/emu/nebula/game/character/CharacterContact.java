@@ -114,8 +114,8 @@ public class CharacterContact {
         // Add next chat
         this.addNextChat();
         
-        // TODO save more efficiently
-        this.getCharacter().save();
+        // Save to database
+        this.getCharacter().update("contact", this);
         
         // Add rewards
         if (chat.isEnd()) {
@@ -137,8 +137,8 @@ public class CharacterContact {
         // Toggle
         this.top = !this.top;
         
-        // TODO save more efficiently
-        this.getCharacter().save();
+        // Save to database
+        this.getCharacter().update("contact", this);
     }
     
     // Proto
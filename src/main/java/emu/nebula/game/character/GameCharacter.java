@@ -22,6 +22,7 @@ import emu.nebula.game.achievement.AchievementCondition;
 import emu.nebula.game.inventory.ItemParamMap;
 import emu.nebula.game.player.Player;
 import emu.nebula.game.player.PlayerChangeInfo;
+import emu.nebula.game.player.PlayerInfoCache.Section;
 import emu.nebula.game.quest.QuestCondition;
 import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.Notify.Skin;
@@ -113,7 +114,7 @@ public class GameCharacter implements GameDatabaseObject {
         // Check contacts
         if (this.contact == null) {
             this.contact = new CharacterContact(this);
-            this.save();
+            this.update("contact", this.contact);
         } else {
             this.contact.setCharacter(this);
         }
@@ -196,7 +197,8 @@ public class GameCharacter implements GameDatabaseObject {
         }
         
         // Save to database
-        this.save();
+        this.update("level", this.level);
+        this.update("exp", this.exp);
     }
     
     // Handlers
@@ -276,7 +278,8 @@ public class GameCharacter implements GameDatabaseObject {
         }
         
         // Save to database
-        this.save();
+        this.update("advance", this.advance);
+        this.update("skin", this.skin);
         
         // Trigger quest/achievement
         this.getPlayer().trigger(AchievementCondition.CharacterAdvanceTotal, 1);
@@ -313,7 +316,7 @@ public class GameCharacter implements GameDatabaseObject {
         this.skills[index]++;
         
         // Save to database
-        this.save();
+        this.update("skills." + index, this.skills[index]);
         
         // Success
         return changes.setSuccess(true);
@@ -370,7 +373,7 @@ public class GameCharacter implements GameDatabaseObject {
         changes.setExtraData(nodes);
         
         // Save to database
-        this.save();
+        this.update("talents", this.talents);
         
         // Success
         return changes.setSuccess(true);
@@ -391,7 +394,7 @@ public class GameCharacter implements GameDatabaseObject {
         this.skin = skinId;
         
         // Save
-        this.save();
+        this.update("skin", this.skin);
         
         // Success
         return true;
@@ -425,7 +428,8 @@ public class GameCharacter implements GameDatabaseObject {
         }
         
         // Save to database
-        this.save();
+        this.update("affinityLevel", this.affinityLevel);
+        this.update("affinityExp", this.affinityExp);
     }
 
     public PlayerChangeInfo sendGift(ItemParamMap items) {
@@ -503,7 +507,7 @@ public class GameCharacter implements GameDatabaseObject {
         this.getPlots().add(plotId);
         
         // Update to database
-        this.save();
+        this.update("plots", this.plots);
         
         // Add items
         this.getPlayer().getInventory().addItems(plot.getRewards(), change);
@@ -538,7 +542,7 @@ public class GameCharacter implements GameDatabaseObject {
         
         // Set current preset and save to database
         this.gemPresetIndex = index;
-        this.save();
+        this.update("gemPresetIndex", this.gemPresetIndex);
         
         // Success
         return true;
@@ -559,7 +563,7 @@ public class GameCharacter implements GameDatabaseObject {
         preset.setName(name);
         
         // Update to database
-        this.save();
+        this.update("gemPresets", this.gemPresets);
         
         // Success
         return true;
@@ -611,7 +615,7 @@ public class GameCharacter implements GameDatabaseObject {
         
         // Save if successful
         if (success) {
-            this.save();
+            this.update("gemPresets", this.gemPresets);
         }
         
         return success;
@@ -655,13 +659,13 @@ public class GameCharacter implements GameDatabaseObject {
         gem.setLocked(lock);
         
         // Save to database
-        this.save();
+        this.update(this.getGemPath(slotId, gemIndex) + ".locked", lock);
         
         // Success
         return true;
     }
 
-    public synchronized PlayerChangeInfo generateGem(int slotId) throws ServerException {
+    public PlayerChangeInfo generateGem(int slotId) throws ServerException {
         // Get gem slot
         var slot = this.getGemSlot(slotId);
         if (slot == null) {
@@ -694,8 +698,8 @@ public class GameCharacter implements GameDatabaseObject {
         // Add gem to slot
         slot.getGems().add(gem);
         
-        // Save to database
-        this.save();
+        // Save to database. The slot may have just been created, so we replace the whole slot
+        this.update("gemSlots." + (slotId - 1), slot);
         
         // Consume materials
         var change = getPlayer().getInventory().removeItem(gemData.getGenerateCostTid(), gemControl.getGeneratenCostQty());
@@ -708,7 +712,7 @@ public class GameCharacter implements GameDatabaseObject {
     }
     
     @SuppressWarnings("deprecation")
-    public synchronized PlayerChangeInfo refreshGem(int slotId, int gemIndex, RepeatedInt lockedAttributes) throws ServerException {
+    public PlayerChangeInfo refreshGem(int slotId, int gemIndex, RepeatedInt lockedAttributes) throws ServerException {
         // Get gem from slot
         var gem = this.getGemFromSlot(slotId, gemIndex);
         if (gem == null) {
@@ -761,7 +765,7 @@ public class GameCharacter implements GameDatabaseObject {
         gem.setNewAttributes(attributes);
         
         // Save to database
-        this.save();
+        this.update(this.getGemPath(slotId, gemIndex) + ".alterAttributes", gem.getAlterAttributes());
         
         // Consume materials
         var change = getPlayer().getInventory().removeItems(materials);
@@ -783,13 +787,34 @@ public class GameCharacter implements GameDatabaseObject {
         
         // Save to database
         if (success) {
-            this.save();
+            this.update(this.getGemPath(slotId, gemIndex), gem);
         }
         
         // Success
         return success;
     }
     
+    // Database
+    
+    @Override
+    public void save() {
+        GameDatabaseObject.super.save();
+        this.getPlayer().getInfoCache().invalidate(Section.CHARACTERS);
+    }
+    
+    /**
+     * Queues a $set for a single field instead of replacing the whole document. Updates made while handling
+     * the same request are merged by the database write queue.
+     */
+    void update(String field, Object value) {
+        Nebula.getGameDatabase().update(this, this.getUid(), this.getPlayerUid(), field, value);
+        this.getPlayer().getInfoCache().invalidate(Section.CHARACTERS);
+    }
+    
+    private String getGemPath(int slotId, int gemIndex) {
+        return "gemSlots." + (slotId - 1) + ".gems." + gemIndex;
+    }
+    
     // Proto
     
     public Char toProto() {
@@ -15,6 +15,7 @@ import emu.nebula.game.achievement.AchievementCondition;
 import emu.nebula.game.inventory.ItemParamMap;
 import emu.nebula.game.player.Player;
 import emu.nebula.game.player.PlayerChangeInfo;
+import emu.nebula.game.player.PlayerInfoCache.Section;
 import emu.nebula.game.quest.QuestCondition;
 import emu.nebula.proto.Public.Disc;
 import emu.nebula.proto.PublicStarTower.StarTowerDisc;
@@ -154,7 +155,8 @@ public class GameDisc implements GameDatabaseObject {
         }
         
         // Save to database
-        this.save();
+        this.update("level", this.level);
+        this.update("exp", this.exp);
     }
     
     // Handlers
@@ -218,7 +220,7 @@ public class GameDisc implements GameDatabaseObject {
         this.phase++;
         
         // Save to database
-        this.save();
+        this.update("phase", this.phase);
         
         // Trigger quest/achievement
         this.getPlayer().trigger(AchievementCondition.DiscPromoteTotal, 1);
@@ -253,7 +255,7 @@ public class GameDisc implements GameDatabaseObject {
         
         // Save to database if star count changed
         if (this.star != old) {
-            this.save();
+            this.update("star", this.star);
         }
         
         // Success
@@ -285,20 +287,35 @@ public class GameDisc implements GameDatabaseObject {
             this.getPlayer().getInventory().addItem(id, count, change);
         }
         
-        // Set flag
+        // Set flag and save to database
         if (readType == 1) {
             this.read = true;
+            this.update("read", true);
         } else if (readType == 2) {
             this.avg = true;
+            this.update("avg", true);
         }
         
-        // Save to database
-        this.save();
-        
         // Success
         return change;
     }
     
+    // Database
+    
+    @Override
+    public void save() {
+        GameDatabaseObject.super.save();
+        this.getPlayer().getInfoCache().invalidate(Section.DISCS);
+    }
+    
+    /**
+     * Queues a $set for a single field instead of replacing the whole document
+     */
+    private void update(String field, Object value) {
+        Nebula.getGameDatabase().update(this, this.getUid(), this.getPlayerUid(), field, value);
+        this.getPlayer().getInfoCache().invalidate(Section.DISCS);
+    }
+    
     // Proto
     
     public Disc toProto() {
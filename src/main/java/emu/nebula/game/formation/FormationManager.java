@@ -11,6 +11,7 @@ import emu.nebula.GameConstants;
 import emu.nebula.Nebula;
 import emu.nebula.database.GameDatabaseObject;
 import emu.nebula.game.player.Player;
+import emu.nebula.game.player.PlayerInfoCache.Section;
 import emu.nebula.proto.Public.FormationInfo;
 import lombok.Getter;
 
@@ -65,6 +66,7 @@ public class FormationManager extends PlayerManager implements GameDatabaseObjec
         
         // Save to db
         Nebula.getGameDatabase().update(this, this.getPlayerUid(), "formations." + formation.getNum(), formation, true);
+        this.getPlayer().getInfoCache().invalidate(Section.FORMATIONS);
         
         // Success
         return true;
@@ -14,6 +14,7 @@ import emu.nebula.proto.Public.FriendDetail;
 import emu.nebula.proto.Public.FriendState;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import lombok.Getter;
 import us.hebi.quickbuf.RepeatedLong;
 
@@ -295,10 +296,25 @@ public class FriendList extends PlayerManager {
     private FriendListGetResp updateCache() {
         var proto = FriendListGetResp.newInstance();
         
+        // Load all friend summaries at once
+        var uids = new IntArrayList(getFriends().size() + getPendingFriends().size());
+        
+        for (var friend : getFriends().values()) {
+            uids.add(friend.getFriendUid());
+        }
+        
+        for (var friend : getPendingFriends().values()) {
+            if (friend.getAskerUid() != this.getPlayerUid()) {
+                uids.add(friend.getFriendUid());
+            }
+        }
+        
+        var summaries = getGameContext().getPlayerModule().getSummaries(uids);
+        
         // Encode friends list
         for (var friend : getFriends().values()) {
             // Get base friend info
-            var base = friend.toProto();
+            var base = friend.toProto(summaries.get(friend.getFriendUid()));
             if (base == null) continue;
             
             // Create info
@@ -319,7 +335,7 @@ public class FriendList extends PlayerManager {
             }
             
             // Get base friend info
-            var base = friend.toProto();
+            var base = friend.toProto(summaries.get(friend.getFriendUid()));
             if (base == null) continue;
             
             // Add
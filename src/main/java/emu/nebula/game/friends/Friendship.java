@@ -6,6 +6,7 @@ import dev.morphia.annotations.Indexed;
 import emu.nebula.Nebula;
 import emu.nebula.database.GameDatabaseObject;
 import emu.nebula.game.player.Player;
+import emu.nebula.game.player.PlayerSummary;
 import emu.nebula.proto.Public.Friend;
 import lombok.Getter;
 import lombok.Setter;
@@ -45,12 +46,16 @@ public class Friendship implements GameDatabaseObject {
     // Proto
     
     public Friend toProto() {
-        // Get target player
-        var target = Nebula.getGameContext().getPlayerModule().getPlayer(this.getFriendUid());
+        // Get target player summary
+        var target = Nebula.getGameContext().getPlayerModule().getSummary(this.getFriendUid());
+        return this.toProto(target);
+    }
+    
+    public Friend toProto(PlayerSummary target) {
         if (target == null) return null;
         
         // Encode player to simple friend proto
-        return target.getFriendProto();
+        return target.toProto();
     }
     
     // Extra
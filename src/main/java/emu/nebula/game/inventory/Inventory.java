@@ -1,5 +1,6 @@
 package emu.nebula.game.inventory;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import dev.morphia.annotations.Entity;
@@ -8,9 +9,11 @@ import emu.nebula.GameConstants;
 import emu.nebula.Nebula;
 import emu.nebula.data.GameData;
 import emu.nebula.data.resources.DropPkgDef;
+import emu.nebula.data.resources.ItemDef;
 import emu.nebula.data.resources.MallShopDef;
 import emu.nebula.data.resources.ResidentGoodsDef;
 import emu.nebula.database.GameDatabaseObject;
+import emu.nebula.game.player.PlayerInfoCache.Section;
 import emu.nebula.game.player.PlayerManager;
 import emu.nebula.game.quest.QuestCondition;
 import emu.nebula.net.NetMsgId;
@@ -162,6 +165,7 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
         
         // Set flag for player to update character skins in their handbook
         this.getPlayer().getCharacters().setUpdateCharHandbook(true);
+        this.getPlayer().getInfoCache().invalidate(Section.CHARACTERS);
         
         // Success
         return true;
@@ -238,6 +242,7 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
         
         // Save to database
         Nebula.getGameDatabase().addToSet(this, this.getUid(), "titles", id);
+        this.getPlayer().getInfoCache().invalidate(Section.INVENTORY);
         
         // Success
         return true;
@@ -254,6 +259,7 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
         
         // Save to database
         Nebula.getGameDatabase().addToSet(this, this.getUid(), "honorList", id);
+        this.getPlayer().getInfoCache().invalidate(Section.INVENTORY);
         
         // Success
         return true;
@@ -261,14 +267,14 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
     
     // Resources
     
-    public synchronized int getResourceCount(int id) {
+    public int getResourceCount(int id) {
         var res = this.resources.get(id);
         return res != null ? res.getCount() : 0;
     }
     
     // Items
     
-    public synchronized int getItemCount(int id) {
+    public int getItemCount(int id) {
         var item = this.getItems().get(id);
         return item != null ? item.getCount() : 0;
     }
@@ -279,7 +285,7 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
         return this.addItem(id, count, null);
     }
     
-    public synchronized PlayerChangeInfo addItem(int id, int count, PlayerChangeInfo change) {
+    public PlayerChangeInfo addItem(int id, int count, PlayerChangeInfo change) {
         // Changes
         if (change == null) {
             change = new PlayerChangeInfo();
@@ -332,6 +338,8 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
                 }
                 
                 if (diff != 0) {
+                    this.getPlayer().getInfoCache().invalidate(Section.INVENTORY);
+                    
                     var proto = Res.newInstance()
                             .setTid(id)
                             .setQty(diff);
@@ -345,16 +353,10 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
                     // Cannot remove packages
                     if (count <= 0) break;
                     
-                    // Add random packages
-                    for (var entry : data.getUseParams()) {
-                        int pkgId = entry.getIntKey();
-                        int pkgCount = entry.getIntValue() * count;
-                        
-                        for (int i = 0; i < pkgCount; i++) {
-                            int pkgDropId = DropPkgDef.getRandomDrop(pkgId);
-                            this.addItem(pkgDropId, 1, change);
-                        }
-                    }
+                    // Roll all drops first, then add them as one batch
+                    var drops = new ItemParamMap();
+                    this.rollPackage(data, count, drops);
+                    this.addItems(drops, change);
                     
                     // End early
                     break;
@@ -391,6 +393,8 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
                 }
                 
                 if (diff != 0) {
+                    this.getPlayer().getInfoCache().invalidate(Section.INVENTORY);
+                    
                     var proto = Item.newInstance()
                             .setTid(id)
                             .setQty(diff);
@@ -523,7 +527,7 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
     }
 
     @Deprecated
-    public synchronized PlayerChangeInfo addItems(List<ItemParam> params, PlayerChangeInfo change) {
+    public PlayerChangeInfo addItems(List<ItemParam> params, PlayerChangeInfo change) {
         // Changes
         if (change == null) {
             change = new PlayerChangeInfo();
@@ -536,11 +540,15 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
         return change;
     }
     
-    public synchronized PlayerChangeInfo addItems(ItemParamMap params) {
+    public PlayerChangeInfo addItems(ItemParamMap params) {
         return this.addItems(params, null);
     }
     
-    public synchronized PlayerChangeInfo addItems(ItemParamMap params, PlayerChangeInfo change) {
+    /**
+     * Adds items as one batch. Random packages are rolled first and duplicate ids are merged, then
+     * resources/items are updated in memory and saved with a single bulk write per collection.
+     */
+    public PlayerChangeInfo addItems(ItemParamMap params, PlayerChangeInfo change) {
         // Changes
         if (change == null) {
             change = new PlayerChangeInfo();
@@ -551,19 +559,127 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
             return change;
         }
         
-        // Add items
+        // Roll random packages and merge duplicate ids
+        var grant = new ItemParamMap();
+        
         for (var param : params.entries()) {
-            this.addItem(param.getIntKey(), param.getIntValue(), change);
+            this.expandItem(param.getIntKey(), param.getIntValue(), grant);
+        }
+        
+        // Documents that need to be saved
+        var changedResources = new ArrayList<GameResource>();
+        var changedItems = new ArrayList<GameItem>();
+        
+        // Add items
+        for (var param : grant.entries()) {
+            int id = param.getIntKey();
+            int count = param.getIntValue();
+            
+            // Get game data
+            var data = GameData.getItemDataTable().get(id);
+            if (data == null) {
+                continue;
+            }
+            
+            // Only stackable items are batched, everything else is added normally
+            if (count < 0 || (data.getItemType() != ItemType.Res && data.getItemType() != ItemType.Item)) {
+                this.addItem(id, count, change);
+                continue;
+            }
+            
+            int diff = 0;
+            
+            if (data.getItemType() == ItemType.Res) {
+                // Add resource
+                var res = this.resources.get(id);
+                
+                if (res == null) {
+                    res = new GameResource(this.getPlayer(), id, count);
+                    this.resources.put(res.getResourceId(), res);
+                    
+                    diff = count;
+                } else {
+                    diff = res.add(count);
+                }
+                
+                if (diff != 0) {
+                    changedResources.add(res);
+                    change.add(Res.newInstance().setTid(id).setQty(diff));
+                }
+            } else {
+                // Add item
+                var item = this.items.get(id);
+                
+                if (item == null) {
+                    item = new GameItem(this.getPlayer(), id, count);
+                    this.items.put(item.getItemId(), item);
+                    
+                    diff = count;
+                } else {
+                    diff = item.add(count);
+                }
+                
+                if (diff != 0) {
+                    changedItems.add(item);
+                    change.add(Item.newInstance().setTid(id).setQty(diff));
+                }
+            }
+            
+            // Trigger quest + achievement
+            this.getPlayer().trigger(QuestCondition.ItemsAdd, count, id);
+        }
+        
+        // Save to database
+        Nebula.getGameDatabase().saveAll(changedResources);
+        Nebula.getGameDatabase().saveAll(changedItems);
+        
+        if (changedResources.size() > 0 || changedItems.size() > 0) {
+            this.getPlayer().getInfoCache().invalidate(Section.INVENTORY);
         }
         
         return change;
     }
     
+    /**
+     * Adds the item to the grant map. Random packages are replaced with their rolled drops.
+     */
+    private void expandItem(int id, int count, ItemParamMap grant) {
+        // Sanity check
+        if (id <= 0 || count == 0) {
+            return;
+        }
+        
+        // Check if item is a random package
+        var data = GameData.getItemDataTable().get(id);
+        
+        if (count > 0 && data != null && data.getItemType() == ItemType.Item && data.getItemSubType() == ItemSubType.RandomPackage && data.getUseParams() != null) {
+            this.rollPackage(data, count, grant);
+            
+            // Trigger quest + achievement for the package itself
+            this.getPlayer().trigger(QuestCondition.ItemsAdd, count, id);
+            return;
+        }
+        
+        grant.add(id, count);
+    }
+    
+    private void rollPackage(ItemDef data, int count, ItemParamMap drops) {
+        for (var entry : data.getUseParams()) {
+            int pkgId = entry.getIntKey();
+            int pkgCount = entry.getIntValue() * count;
+            
+            for (int i = 0; i < pkgCount; i++) {
+                int pkgDropId = DropPkgDef.getRandomDrop(pkgId);
+                this.expandItem(pkgDropId, 1, drops);
+            }
+        }
+    }
+    
     public PlayerChangeInfo removeItem(int id, int count) {
         return this.removeItem(id, count, null);
     }
     
-    public synchronized PlayerChangeInfo removeItem(int id, int count, PlayerChangeInfo change) {
+    public PlayerChangeInfo removeItem(int id, int count, PlayerChangeInfo change) {
         if (count > 0) {
             count = -count;
         }
@@ -571,11 +687,11 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
         return this.addItem(id, count, change);
     }
     
-    public synchronized PlayerChangeInfo removeItems(ItemParamMap params) {
+    public PlayerChangeInfo removeItems(ItemParamMap params) {
         return this.removeItems(params, null);
     }
     
-    public synchronized PlayerChangeInfo removeItems(ItemParamMap params, PlayerChangeInfo change) {
+    public PlayerChangeInfo removeItems(ItemParamMap params, PlayerChangeInfo change) {
         // Changes
         if (change == null) {
             change = new PlayerChangeInfo();
@@ -597,7 +713,7 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
     /**
      * Checks if the player has enough quanity of this item
      */
-    public synchronized boolean hasItem(int id, int count) {
+    public boolean hasItem(int id, int count) {
         // Sanity check
         if (count == 0) {
             return true;
@@ -641,7 +757,7 @@ public class Inventory extends PlayerManager implements GameDatabaseObject {
         return result;
     }
     
-    public synchronized boolean hasItems(ItemParamMap params) {
+    public boolean hasItems(ItemParamMap params) {
         boolean hasItems = true;
         
         for (var param : params.entries()) {
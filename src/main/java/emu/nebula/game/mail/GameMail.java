@@ -46,6 +46,14 @@ public class GameMail {
             this.id = id;
         }
     }
+    
+    protected void setTime(long time) {
+        this.time = time;
+    }
+    
+    protected void setExpiry(long expiry) {
+        this.expiry = expiry;
+    }
 
     public boolean canRemove() {
         return (this.isRead() || (this.hasAttachments() && this.isRecv())) && !this.isPin();
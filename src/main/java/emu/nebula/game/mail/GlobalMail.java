@@ -0,0 +1,125 @@
+package emu.nebula.game.mail;
+
+import java.util.concurrent.TimeUnit;
+
+import dev.morphia.annotations.Entity;
+import dev.morphia.annotations.Id;
+import emu.nebula.Nebula;
+import emu.nebula.database.GameDatabaseObject;
+import emu.nebula.game.inventory.ItemParamMap;
+import emu.nebula.game.player.Player;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A mail sent to every player that matches its filter. It is only stored once, and copied into a player's
+ * mailbox the next time they log in or open their mailbox.
+ */
+@Getter
+@Entity(value = "global_mail", useDiscriminator = false)
+public class GlobalMail implements GameDatabaseObject {
+    @Id
+    private int id;
+    
+    private String author;
+    private String subject;
+    private String desc;
+    
+    private ItemParamMap attachments;
+    
+    private long time;
+    private long expiry;
+    
+    // Filters, 0 = no limit
+    @Setter private int minLevel;
+    @Setter private int maxLevel;
+    @Setter private long createdBefore;
+    
+    @Deprecated // Morphia only
+    public GlobalMail() {
+        
+    }
+    
+    public GlobalMail(String author, String subject, String desc) {
+        this.author = author;
+        this.subject = subject;
+        this.desc = desc;
+        this.time = Nebula.getCurrentTime();
+        this.expiry = this.time + TimeUnit.DAYS.toSeconds(30);
+    }
+    
+    /**
+     * Creates a global mail with the same content as the mail
+     */
+    public GlobalMail(GameMail mail) {
+        this(mail.getAuthor(), mail.getSubject(), mail.getDesc());
+        
+        if (mail.getAttachments() != null) {
+            this.attachments = new ItemParamMap();
+            this.attachments.add(mail.getAttachments());
+        }
+    }
+    
+    protected void setId(int id) {
+        if (this.id == 0) {
+            this.id = id;
+        }
+    }
+    
+    public void setExpiry(long expiry) {
+        this.expiry = expiry;
+    }
+    
+    public boolean isExpired() {
+        return this.expiry > 0 && this.expiry <= Nebula.getCurrentTime();
+    }
+    
+    public void addAttachment(int itemId, int count) {
+        if (this.attachments == null) {
+            this.attachments = new ItemParamMap();
+        }
+        
+        this.attachments.add(itemId, count);
+    }
+    
+    /**
+     * Returns true if the player should receive this mail
+     */
+    public boolean canReceive(Player player) {
+        if (this.isExpired()) {
+            return false;
+        }
+        
+        if (this.minLevel > 0 && player.getLevel() < this.minLevel) {
+            return false;
+        }
+        
+        if (this.maxLevel > 0 && player.getLevel() > this.maxLevel) {
+            return false;
+        }
+        
+        if (this.createdBefore > 0 && player.getCreateTime() >= this.createdBefore) {
+            return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Creates a copy of this mail for a player's mailbox
+     */
+    public GameMail toMail() {
+        var mail = new GameMail(this.getAuthor(), this.getSubject(), this.getDesc());
+        
+        if (this.getAttachments() != null) {
+            for (var entry : this.getAttachments().int2IntEntrySet()) {
+                mail.addAttachment(entry.getIntKey(), entry.getIntValue());
+            }
+        }
+        
+        mail.setTime(this.getTime());
+        mail.setExpiry(this.getExpiry());
+        
+        return mail;
+    }
+}
@@ -0,0 +1,96 @@
+package emu.nebula.game.mail;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import emu.nebula.Nebula;
+import emu.nebula.game.GameContext;
+import emu.nebula.game.GameContextModule;
+
+/**
+ * Keeps the global mails that haven't expired yet. Players copy new mails into their mailbox with
+ * {@link Mailbox#checkGlobalMail}, so sending a mail to every player is a single database write.
+ */
+public class GlobalMailModule extends GameContextModule {
+    // Sorted by id, replaced whenever a mail is added or removed
+    private volatile List<GlobalMail> mails;
+    
+    public GlobalMailModule(GameContext context) {
+        super(context);
+        this.mails = List.of();
+        this.load();
+    }
+    
+    private void load() {
+        var list = new ArrayList<GlobalMail>();
+        
+        try (var stream = Nebula.getGameDatabase().getObjects(GlobalMail.class)) {
+            stream.forEach(list::add);
+        }
+        
+        list.sort(Comparator.comparingInt(GlobalMail::getId));
+        
+        this.mails = List.copyOf(list);
+        this.removeExpired();
+    }
+    
+    /**
+     * Returns the global mails, sorted by id
+     */
+    public List<GlobalMail> getMails() {
+        return this.mails;
+    }
+    
+    public int getLastMailId() {
+        var list = this.mails;
+        return list.isEmpty() ? 0 : list.get(list.size() - 1).getId();
+    }
+    
+    /**
+     * Saves a global mail. Players will receive it the next time they log in or open their mailbox.
+     */
+    public synchronized void sendMail(GlobalMail mail) {
+        // Ids are only used in increasing order, so players never skip a mail that was sent after they checked
+        mail.setId(Math.max(Nebula.getGameDatabase().getNextObjectId(GlobalMail.class), this.getLastMailId() + 1));
+        mail.save();
+        
+        var list = new ArrayList<GlobalMail>(this.mails);
+        list.add(mail);
+        
+        this.mails = List.copyOf(list);
+        this.removeExpired();
+    }
+    
+    /**
+     * Deletes a global mail. Players that already received it will keep their copy.
+     */
+    public synchronized boolean removeMail(int id) {
+        var list = new ArrayList<GlobalMail>(this.mails);
+        
+        if (!list.removeIf(mail -> mail.getId() == id)) {
+            return false;
+        }
+        
+        Nebula.getGameDatabase().delete(GlobalMail.class, "_id", id);
+        this.mails = List.copyOf(list);
+        
+        return true;
+    }
+    
+    private synchronized void removeExpired() {
+        var list = new ArrayList<GlobalMail>(this.mails.size());
+        
+        for (var mail : this.mails) {
+            if (mail.isExpired()) {
+                Nebula.getGameDatabase().delete(GlobalMail.class, "_id", mail.getId());
+            } else {
+                list.add(mail);
+            }
+        }
+        
+        if (list.size() != this.mails.size()) {
+            this.mails = List.copyOf(list);
+        }
+    }
+}
@@ -3,29 +3,41 @@ package emu.nebula.game.mail;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import dev.morphia.annotations.Entity;
 import dev.morphia.annotations.Id;
+import dev.morphia.annotations.PostLoad;
 import emu.nebula.Nebula;
 import emu.nebula.database.GameDatabaseObject;
+import emu.nebula.game.inventory.ItemParamMap;
 import emu.nebula.game.player.Player;
 import emu.nebula.game.player.PlayerChangeInfo;
 import emu.nebula.game.player.PlayerManager;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntList;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 @Getter
 @Entity(value = "mailbox", useDiscriminator = false)
 public class Mailbox extends PlayerManager implements GameDatabaseObject, Iterable<GameMail> {
+    // Max amount of mails kept in the mailbox. Old mails that were already read or claimed are removed first.
+    public static final int MAX_MAILS = 100;
+    
     @Id
     private int uid;
     private int lastMailId;
+    private int lastGlobalMailId;
     
     private List<GameMail> list;
     
+    // Index
+    @Getter(AccessLevel.NONE)
+    private transient Int2ObjectMap<GameMail> mails;
+    private transient int unreadCount;
+    
     private transient boolean newState;
     
     @Deprecated // Morphia only
@@ -38,6 +50,7 @@ public class Mailbox extends PlayerManager implements GameDatabaseObject, Iterab
         
         this.uid = player.getUid();
         this.list = new ArrayList<>();
+        this.mails = new Int2ObjectOpenHashMap<>();
         
         this.save();
     }
@@ -46,20 +59,34 @@ public class Mailbox extends PlayerManager implements GameDatabaseObject, Iterab
         this.newState = false;
     }
     
-    // TODO optimize to an O(n) algorithm like a map
+    public int size() {
+        return this.getList().size();
+    }
+    
     public GameMail getMailById(int id) {
-        return this.getList().stream()
-                .filter(m -> m.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return this.mails.get(id);
     }
     
     public boolean hasNewMail() {
-        return this.getList()
-                .stream()
-                .filter(mail -> !mail.isRead() && !mail.isRecv())
-                .findAny()
-                .isPresent();
+        return this.unreadCount > 0;
+    }
+    
+    private static boolean isUnread(GameMail mail) {
+        return !mail.isRead() && !mail.isRecv();
+    }
+    
+    /**
+     * Returns a page of mails, newest first
+     */
+    public List<GameMail> getMails(int offset, int limit) {
+        int size = this.getList().size();
+        var result = new ArrayList<GameMail>(Math.max(Math.min(limit, size - offset), 0));
+        
+        for (int i = size - 1 - offset; i >= 0 && result.size() < limit; i--) {
+            result.add(this.getList().get(i));
+        }
+        
+        return result;
     }
     
     public void sendMail(GameMail mail) {
@@ -67,16 +94,76 @@ public class Mailbox extends PlayerManager implements GameDatabaseObject, Iterab
         mail.setId(++this.lastMailId);
         
         // Add to mail list
-        this.list.add(mail);
+        this.addMail(mail);
         
         // Set new state only if player has a session connected
         if (this.getPlayer().hasSession()) {
             this.newState = true;
         }
         
-        // Save to database
+        // Save to database. The whole list is only written when old mails had to be removed
         Nebula.getGameDatabase().update(this, getUid(), "lastMailId", this.getLastMailId());
-        Nebula.getGameDatabase().addToSet(this, getUid(), "list", mail);
+        
+        if (this.prune()) {
+            this.saveList();
+        } else {
+            Nebula.getGameDatabase().addToSet(this, getUid(), "list", mail);
+        }
+    }
+    
+    private void addMail(GameMail mail) {
+        this.list.add(mail);
+        this.mails.put(mail.getId(), mail);
+        
+        if (isUnread(mail)) {
+            this.unreadCount++;
+        }
+    }
+    
+    private void unindexMail(GameMail mail) {
+        this.mails.remove(mail.getId());
+        
+        if (isUnread(mail)) {
+            this.unreadCount--;
+        }
+    }
+    
+    /**
+     * Removes expired mails, then removes the oldest mails that were read or claimed until the mailbox is under the cap.
+     * Mails with unclaimed attachments are only removed once they expire.
+     * @return If any mails were removed
+     */
+    private boolean prune() {
+        long time = Nebula.getCurrentTime();
+        int excess = this.list.size() - MAX_MAILS;
+        boolean removed = false;
+        
+        var it = this.list.iterator();
+        
+        while (it.hasNext()) {
+            var mail = it.next();
+            
+            if (mail.getExpiry() > 0 && mail.getExpiry() <= time) {
+                // Expired
+            } else if (excess > 0 && mail.canRemove()) {
+                // Over the cap
+            } else {
+                continue;
+            }
+            
+            this.unindexMail(mail);
+            it.remove();
+            
+            excess--;
+            removed = true;
+        }
+        
+        return removed;
+    }
+    
+    // Writes the mail list to the database in a single update
+    private void saveList() {
+        Nebula.getGameDatabase().update(this, getUid(), "list", this.getList());
     }
     
     public boolean readMail(int id, long flag) {
@@ -88,6 +175,10 @@ public class Mailbox extends PlayerManager implements GameDatabaseObject, Iterab
         }
         
         // Set read
+        if (isUnread(mail)) {
+            this.unreadCount--;
+        }
+        
         mail.setRead(true);
         
         // Update in database
@@ -109,7 +200,7 @@ public class Mailbox extends PlayerManager implements GameDatabaseObject, Iterab
         mail.setPin(pin);
         
         // Update in database
-        Nebula.getGameDatabase().updateNested(this, getUid(), "list.id", id, "list.$.pin", true);
+        Nebula.getGameDatabase().updateNested(this, getUid(), "list.id", id, "list.$.pin", pin);
         
         // Success
         return mail;
@@ -144,22 +235,34 @@ public class Mailbox extends PlayerManager implements GameDatabaseObject, Iterab
         
         // Recieved mail id list
         var recvMails = new IntArrayList();
+        var attachments = new ItemParamMap();
         
         // Recv mails
         for (var mail : mails) {
-            // Add attachments to player
-            player.getInventory().addItems(mail.getAttachments(), changes);
+            // Add attachments
+            attachments.add(mail.getAttachments());
             
             // Set claimed flag
+            if (isUnread(mail)) {
+                this.unreadCount--;
+            }
+            
             mail.setRecv(true);
             
             // Add to recvied mail list
             recvMails.add(mail.getId());
-            
-            // Update in database
-            Nebula.getGameDatabase().updateNested(this, getUid(), "list.id", mail.getId(), "list.$.recv", true);
         }
         
+        // Update in database
+        if (mails.size() == 1) {
+            Nebula.getGameDatabase().updateNested(this, getUid(), "list.id", mails.get(0).getId(), "list.$.recv", true);
+        } else {
+            this.saveList();
+        }
+        
+        // Add attachments to player in one batch
+        player.getInventory().addItems(attachments, changes);
+        
         // Set extra change data
         changes.setExtraData(recvMails);
         
@@ -168,50 +271,56 @@ public class Mailbox extends PlayerManager implements GameDatabaseObject, Iterab
     }
     
     public IntList removeMail(Player player, int id) {
-        // Get mails that we want to claim
-        Set<GameMail> toRemove = null;
-        
-        if (id == 0) {
-            // Claim all
-            toRemove = this.getList()
-                    .stream()
-                    .filter(mail -> mail.canRemove())
-                    .collect(Collectors.toSet());
-        } else {
-            // Claim one
-            var mail = this.getMailById(id);
-            
-            if (mail != null && mail.canRemove()) {
-                toRemove = Set.of(mail);
-            }
-        }
-        
         // Recieved mail id list
         var removed = new IntArrayList();
         
-        // Sanity check
-        if (toRemove == null || toRemove.isEmpty()) {
-            return removed;
-        }
-        
         // Remove
         var it = this.getList().iterator();
+        
         while (it.hasNext()) {
             var mail = it.next();
             
-            if (toRemove.contains(mail)) {
-                removed.add(mail.getId());
+            if ((id == 0 || mail.getId() == id) && mail.canRemove()) {
+                this.unindexMail(mail);
                 it.remove();
+                
+                removed.add(mail.getId());
             }
         }
         
         // Save
-        this.save();
+        if (removed.size() > 0) {
+            this.saveList();
+        }
         
         // Success
         return removed;
     }
     
+    /**
+     * Copies global mails that were sent since the last check into the mailbox
+     */
+    public void checkGlobalMail() {
+        var module = Nebula.getGameContext().getGlobalMailModule();
+        var mails = module.getMails();
+        
+        if (mails.isEmpty() || mails.get(mails.size() - 1).getId() <= this.lastGlobalMailId) {
+            return;
+        }
+        
+        for (var globalMail : mails) {
+            if (globalMail.getId() <= this.lastGlobalMailId || !globalMail.canReceive(this.getPlayer())) {
+                continue;
+            }
+            
+            this.sendMail(globalMail.toMail());
+        }
+        
+        // Update watermark
+        this.lastGlobalMailId = mails.get(mails.size() - 1).getId();
+        Nebula.getGameDatabase().update(this, getUid(), "lastGlobalMailId", this.lastGlobalMailId);
+    }
+    
     public void sendWelcomeMail() {
         var welcomeMail = Nebula.getConfig().getServerOptions().welcomeMail;
         if (welcomeMail == null) return;
@@ -225,6 +334,32 @@ public class Mailbox extends PlayerManager implements GameDatabaseObject, Iterab
         this.sendMail(mail);
     }
 
+    // Database fixes
+    
+    @PostLoad
+    public void onLoad() {
+        if (this.list == null) {
+            this.list = new ArrayList<>();
+        }
+        
+        // Build index
+        this.mails = new Int2ObjectOpenHashMap<>(this.list.size());
+        this.unreadCount = 0;
+        
+        for (var mail : this.list) {
+            this.mails.put(mail.getId(), mail);
+            
+            if (isUnread(mail)) {
+                this.unreadCount++;
+            }
+        }
+        
+        // Remove expired mails so the document stays small
+        if (this.prune()) {
+            this.saveList();
+        }
+    }
+
     @Override
     public Iterator<GameMail> iterator() {
         return this.getList().iterator();
@@ -1,6 +1,9 @@
 package emu.nebula.game.player;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.TimeUnit;
 
 import dev.morphia.annotations.AlsoLoad;
 import dev.morphia.annotations.Entity;
@@ -28,6 +31,7 @@ import emu.nebula.game.inventory.Inventory;
 import emu.nebula.game.mail.Mailbox;
 import emu.nebula.game.quest.QuestCondition;
 import emu.nebula.game.quest.QuestManager;
+import emu.nebula.game.quest.TriggerQueue;
 import emu.nebula.game.scoreboss.ScoreBossManager;
 import emu.nebula.game.story.StoryManager;
 import emu.nebula.game.tower.StarTowerManager;
@@ -36,19 +40,16 @@ import emu.nebula.net.GameSession;
 import emu.nebula.net.NetMsgId;
 import emu.nebula.net.NetMsgPacket;
 import emu.nebula.proto.Notify.SigninRewardUpdate;
-import emu.nebula.proto.PlayerData.DictionaryEntry;
-import emu.nebula.proto.PlayerData.DictionaryTab;
 import emu.nebula.proto.PlayerData.PlayerInfo;
 import emu.nebula.proto.Public.CharShow;
 import emu.nebula.proto.Public.Energy;
 import emu.nebula.proto.Public.Friend;
 import emu.nebula.proto.Public.HonorInfo;
-import emu.nebula.proto.Public.NewbieInfo;
 import emu.nebula.proto.Public.QuestType;
 import emu.nebula.proto.Public.WorldClass;
 import emu.nebula.proto.Public.WorldClassRewardState;
+import emu.nebula.util.SerialExecutor;
 import emu.nebula.util.Utils;
-import emu.nebula.proto.Public.Title;
 
 import lombok.Getter;
 import us.hebi.quickbuf.ProtoMessage;
@@ -57,6 +58,9 @@ import us.hebi.quickbuf.RepeatedInt;
 @Getter
 @Entity(value = "players", useDiscriminator = false)
 public class Player implements GameDatabaseObject {
+    // Achievement flags are not tracked, so the client always gets an empty bitset
+    private static final byte[] EMPTY_ACHIEVEMENTS = new byte[64];
+    
     @Id private int uid;
     @Indexed private String accountUid;
     
@@ -115,8 +119,15 @@ public class Player implements GameDatabaseObject {
     
     // Extra
     private transient Stack<NetMsgPacket> nextPackages;
+    private transient TriggerQueue triggerQueue;
     private transient boolean loaded;
     
+    // Encoded player info sections, sent on login
+    private final transient PlayerInfoCache infoCache;
+    
+    // Runs packet handlers and other player state changes one at a time
+    private final transient SerialExecutor executor;
+    
     @Deprecated // Morphia only
     public Player() {
         // Init player managers
@@ -132,6 +143,15 @@ public class Player implements GameDatabaseObject {
         
         // Init next packages stack
         this.nextPackages = new Stack<>();
+        
+        // Init trigger queue
+        this.triggerQueue = new TriggerQueue(this);
+        
+        // Init executor
+        this.executor = new SerialExecutor();
+        
+        // Init player info cache
+        this.infoCache = new PlayerInfoCache(this);
     }
     
     public Player(Account account, String name, boolean gender) {
@@ -205,7 +225,11 @@ public class Player implements GameDatabaseObject {
         
         // We cleared session, now remove player from cache
         if (this.session == null) {
+            this.flushTriggers();
             Nebula.getGameContext().getPlayerModule().removeFromCache(this);
+            
+            // Write any queued updates so the player can be loaded again
+            Nebula.getGameDatabase().flush(this.getUid());
         }
     }
     
@@ -700,6 +724,25 @@ public class Player implements GameDatabaseObject {
     // Trigger quests + achievements
     
     public void trigger(int condition, int progress, int param1, int param2) {
+        // Merge incremental triggers while the player is online, they are dispatched before the next response
+        if (this.hasSession() && TriggerQueue.canQueue(condition)) {
+            this.getTriggerQueue().add(condition, progress, param1, param2);
+            return;
+        }
+        
+        this.dispatchTrigger(condition, progress, param1, param2);
+    }
+    
+    /**
+     * Dispatches any queued triggers to quests and achievements
+     */
+    public void flushTriggers() {
+        if (!this.getTriggerQueue().isEmpty()) {
+            this.getTriggerQueue().flush();
+        }
+    }
+    
+    public void dispatchTrigger(int condition, int progress, int param1, int param2) {
         this.getQuestManager().trigger(condition, progress, param1, param2);
         this.getBattlePassManager().getBattlePass().trigger(condition, progress, param1, param2);
         this.getAchievementManager().trigger(condition, progress, param1, param2);
@@ -740,31 +783,40 @@ public class Player implements GameDatabaseObject {
     }
     
     /**
-     * Called when the player is loaded from the database
+     * Called when the player is loaded from the database. Everything is loaded on the calling thread, so the
+     * queries use the game data snapshot and handler metrics of the current request. The caller may be holding
+     * the player module lock, so loads must never wait on other threads.
      */
     public void onLoad() {
+        long start = System.nanoTime();
+        var timings = new LinkedHashMap<String, Long>();
+        
         // Load from database
-        this.getCharacters().loadFromDatabase();
-        this.getFriendList().loadFromDatabase();
-        this.getStarTowerManager().loadFromDatabase();
-        this.getBattlePassManager().loadFromDatabase();
-        
-        // Load inventory before referenced classes
-        if (this.inventory == null) {
-            this.inventory = this.loadManagerFromDatabase(Inventory.class);
-        }
-        this.getInventory().loadFromDatabase();
+        timed(timings, "characters", () -> this.getCharacters().loadFromDatabase());
+        timed(timings, "friends", () -> this.getFriendList().loadFromDatabase());
+        timed(timings, "builds", () -> this.getStarTowerManager().loadFromDatabase());
+        timed(timings, "battlePass", () -> this.getBattlePassManager().loadFromDatabase());
+        
+        // Load inventory before its items
+        timed(timings, "inventory", () -> {
+            if (this.inventory == null) {
+                this.inventory = this.loadManagerFromDatabase(Inventory.class);
+            }
+            this.getInventory().loadFromDatabase();
+        });
         
         // Load referenced classes from the database
-        this.formations = this.loadManagerFromDatabase(FormationManager.class);
-        this.mailbox = this.loadManagerFromDatabase(Mailbox.class);
-        this.progress = this.loadManagerFromDatabase(PlayerProgress.class);
-        this.gachaManager = this.loadManagerFromDatabase(GachaManager.class);
-        this.storyManager = this.loadManagerFromDatabase(StoryManager.class);
-        this.questManager = this.loadManagerFromDatabase(QuestManager.class);
-        this.achievementManager = this.loadManagerFromDatabase(AchievementManager.class);
-        this.agentManager = this.loadManagerFromDatabase(AgentManager.class);
-        this.activityManager = this.loadManagerFromDatabase(ActivityManager.class);
+        timed(timings, "formations", () -> this.formations = this.loadManagerFromDatabase(FormationManager.class));
+        timed(timings, "mailbox", () -> this.mailbox = this.loadManagerFromDatabase(Mailbox.class));
+        timed(timings, "progress", () -> this.progress = this.loadManagerFromDatabase(PlayerProgress.class));
+        timed(timings, "gacha", () -> this.gachaManager = this.loadManagerFromDatabase(GachaManager.class));
+        timed(timings, "story", () -> this.storyManager = this.loadManagerFromDatabase(StoryManager.class));
+        timed(timings, "quests", () -> this.questManager = this.loadManagerFromDatabase(QuestManager.class));
+        timed(timings, "achievements", () -> this.achievementManager = this.loadManagerFromDatabase(AchievementManager.class));
+        timed(timings, "agents", () -> this.agentManager = this.loadManagerFromDatabase(AgentManager.class));
+        timed(timings, "activities", () -> this.activityManager = this.loadManagerFromDatabase(ActivityManager.class));
+        
+        long fetchTime = System.nanoTime() - start;
         
         // Database fixes
         if (this.showChars == null) {
@@ -777,6 +829,27 @@ public class Player implements GameDatabaseObject {
         
         // Load complete
         this.loaded = true;
+        
+        // Log timings
+        if (Nebula.getLogger().isDebugEnabled()) {
+            var sb = new StringBuilder();
+            
+            timings.forEach((phase, time) -> {
+                sb.append(", ").append(phase).append("=").append(TimeUnit.NANOSECONDS.toMillis(time)).append("ms");
+            });
+            
+            Nebula.getLogger().debug(
+                "Loaded player " + this.getUid() + 
+                " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms" +
+                " (fetch=" + TimeUnit.NANOSECONDS.toMillis(fetchTime) + "ms" + sb + ")"
+            );
+        }
+    }
+    
+    private static void timed(Map<String, Long> timings, String phase, Runnable task) {
+        long start = System.nanoTime();
+        task.run();
+        timings.put(phase, System.nanoTime() - start);
     }
 
     public void onCreate() {
@@ -791,6 +864,9 @@ public class Player implements GameDatabaseObject {
         // Update last login time
         this.lastLogin = System.currentTimeMillis();
         Nebula.getGameDatabase().update(this, this.getUid(), "lastLogin", this.getLastLogin());
+        
+        // Receive global mails
+        this.getMailbox().checkGlobalMail();
     }
     
     // Next packages
@@ -809,6 +885,9 @@ public class Player implements GameDatabaseObject {
      * Called AFTER a response is sent to the client
      */
     public void afterResponse() {
+        // Dispatch triggers that were queued after the response was encoded
+        this.flushTriggers();
+        
         // Check if we need save achievements
         if (this.getAchievementManager().isQueueSave()) {
             this.getAchievementManager().save();
@@ -817,13 +896,31 @@ public class Player implements GameDatabaseObject {
     
     // Proto
 
+    /**
+     * Creates the full player info. Login uses {@link #toBaseProto} and the cached sections from
+     * {@link PlayerInfoCache} instead, so the sections are only encoded when they change.
+     */
     public PlayerInfo toProto() {
+        var proto = this.toBaseProto();
+        
+        for (var section : PlayerInfoCache.Section.values()) {
+            section.encode(this, proto);
+        }
+        
+        return proto;
+    }
+    
+    /**
+     * Creates the player info fields that are not cached by {@link PlayerInfoCache}. These change often
+     * and are cheap to build.
+     */
+    public PlayerInfo toBaseProto() {
         PlayerInfo proto = PlayerInfo.newInstance()
                 .setServerTs(Nebula.getCurrentTime())
                 .setSigninIndex(this.getSignInIndex())
                 .setTowerTicket(this.getProgress().getTowerTickets())
                 .setDailyShopRewardStatus(this.getQuestManager().hasDailyReward())
-                .setAchievements(new byte[64]);
+                .setAchievements(EMPTY_ACHIEVEMENTS);
         
         var acc = proto.getMutableAcc()
             .setNickName(this.getName())
@@ -861,8 +958,6 @@ public class Player implements GameDatabaseObject {
             proto.addHonors(info);
         }
         
-        this.getInventory().getHonorList().forEach(proto::addHonorList);
-        
         // Set world class
         proto.getMutableWorldClass()
             .setCur(this.getLevel())
@@ -870,29 +965,6 @@ public class Player implements GameDatabaseObject {
         
         proto.getMutableEnergy().setEnergy(this.getEnergyProto());
         
-        // Add characters/discs/res/items
-        for (var character : getCharacters().getCharacterCollection()) {
-            proto.addChars(character.toProto());
-        }
-        
-        for (var disc : getCharacters().getDiscCollection()) {
-            proto.addDiscs(disc.toProto());
-        }
-        
-        for (var item : getInventory().getItems().values()) {
-            proto.addItems(item.toProto());
-        }
-        
-        for (var res : getInventory().getResources().values()) {
-            proto.addRes(res.toProto());
-        }
-        
-        // Formations
-        var formations = proto.getMutableFormation();
-        for (var f : this.getFormations().getFormations().values()) {
-            formations.addInfo(f.toProto());
-        }
-        
         // Set player states
         var state = proto.getMutableState()
             .setStorySet(this.getStoryManager().hasNew())
@@ -918,59 +990,11 @@ public class Player implements GameDatabaseObject {
         state.getMutableScoreBoss();
         state.getMutableCharAffinityRewards();
         
-        // Force complete tutorials
-        for (var guide : GameData.getGuideGroupDataTable()) {
-            var info = NewbieInfo.newInstance()
-                    .setGroupId(guide.getId())
-                    .setStepId(-1);
-            
-            acc.addNewbies(info);
-        }
-        
-        acc.addNewbies(NewbieInfo.newInstance().setGroupId(GameConstants.INTRO_GUIDE_ID).setStepId(-1));
-        
-        // Story
-        this.getStoryManager().encodePlayerInfo(proto);
-        
-        // Add titles
-        for (int titleId : this.getInventory().getTitles()) {
-            var titleProto = Title.newInstance()
-                    .setTitleId(titleId);
-            
-            proto.addTitles(titleProto);
-        }
-        
         // Add board ids
         for (int boardId : this.getBoards()) {
             proto.addBoard(boardId);
         }
         
-        // Quests
-        this.getQuestManager().encodePlayerInfo(proto);
-        
-        // Add dictionary tabs
-        for (var dictionaryData : GameData.getDictionaryTabDataTable()) {
-            var dictionaryProto = DictionaryTab.newInstance()
-                    .setTabId(dictionaryData.getId());
-            
-            for (var entry : dictionaryData.getEntries()) {
-                var entryProto = DictionaryEntry.newInstance()
-                        .setIndex(entry.getIndex())
-                        .setStatus(2); // 2 = complete
-                
-                dictionaryProto.addEntries(entryProto);
-            }
-            
-            proto.addDictionaries(dictionaryProto);
-        }
-        
-        // Add progress
-        this.getProgress().encodePlayerInfo(proto);
-        
-        // Handbook
-        proto.addHandbook(this.getCharacters().getCharacterHandbook());
-        proto.addHandbook(this.getCharacters().getDiscHandbook());
-        
         // Phone
         var phone = proto.getMutablePhone();
         phone.setNewMessage(this.getCharacters().getNewPhoneMessageCount());
@@ -992,33 +1016,11 @@ public class Player implements GameDatabaseObject {
     }
     
     public Friend getFriendProto() {
-        var proto = Friend.newInstance()
-                .setId(this.getUid())
-                .setWorldClass(this.getLevel())
-                .setHeadIcon(this.getHeadIcon())
-                .setNickName(this.getName())
-                .setSignature(this.getSignature())
-                .setTitlePrefix(this.getTitlePrefix())
-                .setTitleSuffix(this.getTitleSuffix())
-                .setLastLoginTime(this.getLastLogin() * 1_000_000L);
-        
-        for (int charId : this.getShowChars()) {
-            var info = CharShow.newInstance()
-                    .setCharId(charId)
-                    .setLevel(1)                    // TODO
-                    .setSkin((charId * 100) + 1);   // TODO
-            
-            proto.addCharShows(info);
-        }
-        
-        for (int honorId : this.getHonor()) {
-            var info = HonorInfo.newInstance()
-                    .setId(honorId);
-            
-            proto.addHonors(info);
-        }
-        
-        return proto;
+        return this.getSummary().toProto();
+    }
+    
+    public PlayerSummary getSummary() {
+        return new PlayerSummary(this);
     }
     
     public Energy getEnergyProto() {
@@ -0,0 +1,227 @@
+package emu.nebula.game.player;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import emu.nebula.Config;
+import emu.nebula.GameConstants;
+import emu.nebula.Nebula;
+import emu.nebula.data.DataSnapshot;
+import emu.nebula.data.GameData;
+import emu.nebula.proto.PlayerData.DictionaryEntry;
+import emu.nebula.proto.PlayerData.DictionaryTab;
+import emu.nebula.proto.PlayerData.PlayerInfo;
+import emu.nebula.proto.Public.NewbieInfo;
+import emu.nebula.proto.Public.Title;
+
+/**
+ * Caches the encoded sections of the player info that is sent on login. Each section is encoded as its own
+ * PlayerInfo message, so the sections can be concatenated into one message (repeated fields are appended and
+ * embedded messages are merged when parsed). Managers invalidate their section when they change, so a repeated
+ * data request only encodes the sections that changed.
+ * <p>
+ * Fields that change often and are cheap to build are not cached, see {@link Player#toBaseProto}.
+ * <p>
+ * With the playerInfoCacheCheck log option, cached sections are compared with a fresh encode on every request,
+ * which finds sections that are changed without being invalidated.
+ */
+public class PlayerInfoCache {
+    private final Player player;
+
+    // Incremented whenever a section is invalidated, can be called from any thread
+    private final AtomicIntegerArray versions;
+
+    // Encoded sections and the version they were encoded at
+    private final byte[][] sections;
+    private final int[] sectionVersions;
+
+    // Game data and config the sections were encoded with
+    private DataSnapshot data;
+    private Config config;
+
+    public PlayerInfoCache(Player player) {
+        this.player = player;
+        this.versions = new AtomicIntegerArray(Section.values().length);
+        this.sections = new byte[Section.values().length][];
+        this.sectionVersions = new int[Section.values().length];
+    }
+
+    public void invalidate(Section section) {
+        this.versions.incrementAndGet(section.ordinal());
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < this.versions.length(); i++) {
+            this.versions.incrementAndGet(i);
+        }
+    }
+
+    /**
+     * Returns all cached sections as one encoded PlayerInfo message. Sections that were invalidated are
+     * encoded again.
+     */
+    public synchronized byte[] encode() {
+        // Encode everything again if the game data or config was reloaded
+        var data = GameData.getSnapshot();
+        var config = Nebula.getConfig();
+
+        if (this.data != data || this.config != config) {
+            this.data = data;
+            this.config = config;
+            this.invalidateAll();
+        }
+
+        // Encode changed sections
+        boolean check = config.getLogOptions().playerInfoCacheCheck;
+        int size = 0;
+
+        for (var section : Section.values()) {
+            int i = section.ordinal();
+            int version = this.versions.get(i);
+
+            if (this.sections[i] == null || this.sectionVersions[i] != version) {
+                this.sections[i] = section.encode(this.player);
+                this.sectionVersions[i] = version;
+            } else if (check) {
+                this.checkSection(section);
+            }
+
+            size += this.sections[i].length;
+        }
+
+        // Concatenate
+        byte[] result = new byte[size];
+        int offset = 0;
+
+        for (byte[] bytes : this.sections) {
+            System.arraycopy(bytes, 0, result, offset, bytes.length);
+            offset += bytes.length;
+        }
+
+        return result;
+    }
+
+    // Debug
+
+    private void checkSection(Section section) {
+        byte[] fresh = section.encode(this.player);
+
+        if (!Arrays.equals(this.sections[section.ordinal()], fresh)) {
+            Nebula.getLogger().warn("Player info section " + section + " of player " + this.player.getUid() + " changed without being invalidated");
+            this.sections[section.ordinal()] = fresh;
+        }
+    }
+
+    // Sections
+
+    public enum Section {
+        CHARACTERS {
+            @Override
+            public void encode(Player player, PlayerInfo proto) {
+                for (var character : player.getCharacters().getCharacterCollection()) {
+                    proto.addChars(character.toProto());
+                }
+
+                proto.addHandbook(player.getCharacters().getCharacterHandbook());
+            }
+        },
+        DISCS {
+            @Override
+            public void encode(Player player, PlayerInfo proto) {
+                for (var disc : player.getCharacters().getDiscCollection()) {
+                    proto.addDiscs(disc.toProto());
+                }
+
+                proto.addHandbook(player.getCharacters().getDiscHandbook());
+            }
+        },
+        INVENTORY {
+            @Override
+            public void encode(Player player, PlayerInfo proto) {
+                for (var item : player.getInventory().getItems().values()) {
+                    proto.addItems(item.toProto());
+                }
+
+                for (var res : player.getInventory().getResources().values()) {
+                    proto.addRes(res.toProto());
+                }
+
+                for (int titleId : player.getInventory().getTitles()) {
+                    proto.addTitles(Title.newInstance().setTitleId(titleId));
+                }
+
+                player.getInventory().getHonorList().forEach(proto::addHonorList);
+            }
+        },
+        FORMATIONS {
+            @Override
+            public void encode(Player player, PlayerInfo proto) {
+                var formations = proto.getMutableFormation();
+
+                for (var f : player.getFormations().getFormations().values()) {
+                    formations.addInfo(f.toProto());
+                }
+            }
+        },
+        STORY {
+            @Override
+            public void encode(Player player, PlayerInfo proto) {
+                player.getStoryManager().encodePlayerInfo(proto);
+            }
+        },
+        QUESTS {
+            @Override
+            public void encode(Player player, PlayerInfo proto) {
+                player.getQuestManager().encodePlayerInfo(proto);
+            }
+        },
+        PROGRESS {
+            @Override
+            public void encode(Player player, PlayerInfo proto) {
+                player.getProgress().encodePlayerInfo(proto);
+            }
+        },
+        // Only depends on game data
+        STATIC {
+            @Override
+            public void encode(Player player, PlayerInfo proto) {
+                var acc = proto.getMutableAcc();
+
+                // Force complete tutorials
+                for (var guide : GameData.getGuideGroupDataTable()) {
+                    var info = NewbieInfo.newInstance()
+                            .setGroupId(guide.getId())
+                            .setStepId(-1);
+
+                    acc.addNewbies(info);
+                }
+
+                acc.addNewbies(NewbieInfo.newInstance().setGroupId(GameConstants.INTRO_GUIDE_ID).setStepId(-1));
+
+                // Add dictionary tabs
+                for (var dictionaryData : GameData.getDictionaryTabDataTable()) {
+                    var dictionaryProto = DictionaryTab.newInstance()
+                            .setTabId(dictionaryData.getId());
+
+                    for (var entry : dictionaryData.getEntries()) {
+                        var entryProto = DictionaryEntry.newInstance()
+                                .setIndex(entry.getIndex())
+                                .setStatus(2); // 2 = complete
+
+                        dictionaryProto.addEntries(entryProto);
+                    }
+
+                    proto.addDictionaries(dictionaryProto);
+                }
+            }
+        };
+
+        public abstract void encode(Player player, PlayerInfo proto);
+
+        public byte[] encode(Player player) {
+            var proto = PlayerInfo.newInstance();
+            this.encode(player, proto);
+            return proto.toByteArray();
+        }
+    }
+}
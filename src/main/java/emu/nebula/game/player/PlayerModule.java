@@ -1,7 +1,9 @@
 package emu.nebula.game.player;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.mongodb.client.model.Filters;
@@ -31,32 +33,120 @@ import emu.nebula.net.GameSession;
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntCollection;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import lombok.Getter;
 
 public class PlayerModule extends GameContextModule {
+    // Online players - these are never evicted
     private final Int2ObjectMap<Player> cachedPlayers;
     private final Object2ObjectMap<String, Player> cachedPlayersByAccount;
+    
+    // Recently offline players, evicted by least recently used
+    private final Map<Integer, Player> offlinePlayers;
+    private final Object2IntMap<String> offlinePlayersByAccount;
+    
+    // Summaries of players that aren't in memory
+    private final Map<Integer, PlayerSummary> summaries;
+    
+    // Metrics
+    @Getter private long cacheHits;
+    @Getter private long cacheMisses;
+    @Getter private long cacheEvictions;
+    @Getter private long summaryHits;
+    @Getter private long summaryMisses;
 
     public PlayerModule(GameContext gameContext) {
         super(gameContext);
 
         this.cachedPlayers = new Int2ObjectOpenHashMap<>();
         this.cachedPlayersByAccount = new Object2ObjectOpenHashMap<>();
+        
+        this.offlinePlayers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Player> eldest) {
+                if (size() <= getOfflineCacheSize()) {
+                    return false;
+                }
+                
+                offlinePlayersByAccount.removeInt(eldest.getValue().getAccountUid());
+                cacheEvictions++;
+                
+                return true;
+            }
+        };
+        this.offlinePlayersByAccount = new Object2IntOpenHashMap<>();
+        
+        this.summaries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, PlayerSummary> eldest) {
+                return size() > Nebula.getConfig().getServerOptions().playerSummaryCacheSize;
+            }
+        };
     }
 
     public Int2ObjectMap<Player> getCachedPlayers() {
         return cachedPlayers;
     }
     
+    public synchronized int getOfflineCacheCount() {
+        return this.offlinePlayers.size();
+    }
+    
+    private int getOfflineCacheSize() {
+        return Math.max(Nebula.getConfig().getServerOptions().offlinePlayerCacheSize, 0);
+    }
+    
     private void addToCache(Player player) {
+        // Summaries of players in memory are created from the player object
+        this.summaries.remove(player.getUid());
+        
+        // Remove from offline cache
+        if (this.offlinePlayers.remove(player.getUid()) != null) {
+            this.offlinePlayersByAccount.removeInt(player.getAccountUid());
+        }
+        
         this.cachedPlayers.put(player.getUid(), player);
         this.cachedPlayersByAccount.put(player.getAccountUid(), player);
     }
     
-    public void removeFromCache(Player player) {
+    /**
+     * Removes the player from the online player cache. The player is kept in the offline cache so it doesn't need
+     * to be loaded from the database again if they log back in soon.
+     */
+    public synchronized void removeFromCache(Player player) {
+        // Make sure we are removing the same player object
+        if (this.cachedPlayers.get(player.getUid()) != player) {
+            return;
+        }
+        
         this.cachedPlayers.remove(player.getUid());
         this.cachedPlayersByAccount.remove(player.getAccountUid());
+        
+        this.addToOfflineCache(player);
+    }
+    
+    private void addToOfflineCache(Player player) {
+        if (this.getOfflineCacheSize() <= 0) {
+            return;
+        }
+        
+        this.offlinePlayers.put(player.getUid(), player);
+        this.offlinePlayersByAccount.put(player.getAccountUid(), player.getUid());
+        this.summaries.remove(player.getUid());
+    }
+    
+    private void removeFromOfflineCache(int uid) {
+        var player = this.offlinePlayers.remove(uid);
+        
+        if (player != null) {
+            this.offlinePlayersByAccount.removeInt(player.getAccountUid());
+        }
     }
 
     /**
@@ -70,17 +160,29 @@ public class PlayerModule extends GameContextModule {
     
     /**
      * Returns a player object with the given uid. Returns null if the player doesnt exist.
-     * Warning: Does NOT cache or load the playerdata if the player was loaded from the database.
+     * Warning: Players loaded from the database for this are cached, but their managers are not loaded. Check Player.isLoaded() first.
      * @param uid User id of the player
      * @return
      */
     public synchronized Player getPlayer(int uid) {
         // Get player from cache
         Player player = this.cachedPlayers.get(uid);
-
+        
         if (player == null) {
-            // Retrieve player object from database if its not there
-            player = Nebula.getGameDatabase().getObjectByUid(Player.class, uid);
+            player = this.offlinePlayers.get(uid);
+        }
+
+        if (player != null) {
+            this.cacheHits++;
+            return player;
+        }
+        
+        // Retrieve player object from database if its not there
+        player = Nebula.getGameDatabase().getObjectByUid(Player.class, uid);
+        this.cacheMisses++;
+        
+        if (player != null) {
+            this.addToOfflineCache(player);
         }
 
         return player;
@@ -94,23 +196,94 @@ public class PlayerModule extends GameContextModule {
     public synchronized Player loadPlayer(Account account) {
         // Get player from cache
         Player player = this.cachedPlayersByAccount.get(account.getUid());
-
-        if (player == null) {
+        
+        if (player == null && this.offlinePlayersByAccount.containsKey(account.getUid())) {
+            player = this.offlinePlayers.get(this.offlinePlayersByAccount.getInt(account.getUid()));
+        }
+        
+        if (player != null) {
+            this.cacheHits++;
+        } else {
             // Retrieve player object from database if its not there
             player = Nebula.getGameDatabase().getObjectByField(Player.class, "accountUid", account.getUid());
-
-            if (player != null) {
-                // Load player
+            this.cacheMisses++;
+        }
+        
+        if (player != null) {
+            // Load player managers if they werent loaded yet
+            if (!player.isLoaded()) {
                 player.onLoad();
-
-                // Put in cache
-                this.addToCache(player);
             }
+
+            // Put in cache
+            this.addToCache(player);
         }
 
         return player;
     }
 
+    // Player summaries
+    
+    /**
+     * Returns the summary of a player. Players that are in memory are always up to date. Other players are loaded
+     * from the database with only the summary fields and cached.
+     * @param uid User id of the player
+     * @return The player summary, or null if the player doesnt exist
+     */
+    public synchronized PlayerSummary getSummary(int uid) {
+        return this.getSummaries(IntList.of(uid)).get(uid);
+    }
+    
+    /**
+     * Returns the summaries of multiple players. Summaries that aren't cached are loaded with a single database query.
+     * @param uids User ids of the players
+     * @return Map of uid to summary. Players that dont exist are not included.
+     */
+    public synchronized Int2ObjectMap<PlayerSummary> getSummaries(IntCollection uids) {
+        var result = new Int2ObjectOpenHashMap<PlayerSummary>(uids.size());
+        var missing = new IntArrayList();
+        
+        for (int uid : uids) {
+            // Use player object if its in memory
+            var player = this.cachedPlayers.get(uid);
+            
+            if (player == null) {
+                player = this.offlinePlayers.get(uid);
+            }
+            
+            if (player != null) {
+                result.put(uid, player.getSummary());
+                continue;
+            }
+            
+            // Check summary cache
+            var summary = this.summaries.get(uid);
+            
+            if (summary != null) {
+                this.summaryHits++;
+                result.put(uid, summary);
+            } else {
+                missing.add(uid);
+            }
+        }
+        
+        // Load missing summaries from the database
+        if (missing.size() > 0) {
+            this.summaryMisses += missing.size();
+            
+            var docs = Nebula.getGameDatabase().getDocumentsByUid(Player.class, missing, PlayerSummary.PROJECTION);
+            
+            for (var doc : docs) {
+                var summary = new PlayerSummary(doc);
+                
+                this.summaries.put(summary.getUid(), summary);
+                result.put(summary.getUid(), summary);
+            }
+        }
+        
+        return result;
+    }
+
     /**
      * Creates a player with the specified user id.
      * @param userId
@@ -154,6 +327,10 @@ public class PlayerModule extends GameContextModule {
             return false;
         }
         
+        // Remove from offline cache
+        this.removeFromOfflineCache(uid);
+        this.summaries.remove(uid);
+        
         // Get player from database
         player = Nebula.getGameDatabase().getObjectByUid(Player.class, uid);
         if (player == null) {
@@ -102,6 +102,7 @@ public class PlayerProgress extends PlayerManager implements GameDatabaseObject
         // Add & Save to database
         this.getStarTowerLog().add(id);
         Nebula.getGameDatabase().addToSet(this, this.getUid(), "starTowerLog", id);
+        this.getPlayer().getInfoCache().invalidate(PlayerInfoCache.Section.PROGRESS);
     }
     
     public boolean setStarTowerGrowthNode(int group, int nodeId) {
@@ -182,6 +183,7 @@ public class PlayerProgress extends PlayerManager implements GameDatabaseObject
         // Add to log and update database
         log.put(id, newStar);
         Nebula.getGameDatabase().update(this, this.getUid(), logName + "." + id, newStar);
+        this.getPlayer().getInfoCache().invalidate(PlayerInfoCache.Section.PROGRESS);
     }
     
     // Proto
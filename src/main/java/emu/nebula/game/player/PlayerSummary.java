@@ -0,0 +1,115 @@
+package emu.nebula.game.player;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import com.mongodb.client.model.Projections;
+
+import emu.nebula.proto.Public.CharShow;
+import emu.nebula.proto.Public.Friend;
+import emu.nebula.proto.Public.HonorInfo;
+import lombok.Getter;
+
+/**
+ * Read-only copy of the player fields that other players can see. Used for friend lists, searches and rankings
+ * so we don't have to load the whole player document for offline players.
+ */
+@Getter
+public class PlayerSummary {
+    // Fields to load from the players collection
+    public static final Bson PROJECTION = Projections.include(
+            "name", "signature", "level", "headIcon", "titlePrefix", "titleSuffix", "honor", "showChars", "lastLogin"
+    );
+
+    private final int uid;
+    private final String name;
+    private final String signature;
+    private final int level;
+    private final int headIcon;
+    private final int titlePrefix;
+    private final int titleSuffix;
+    private final int[] honor;
+    private final int[] showChars;
+    private final long lastLogin;
+
+    public PlayerSummary(Player player) {
+        this.uid = player.getUid();
+        this.name = player.getName();
+        this.signature = player.getSignature();
+        this.level = player.getLevel();
+        this.headIcon = player.getHeadIcon();
+        this.titlePrefix = player.getTitlePrefix();
+        this.titleSuffix = player.getTitleSuffix();
+        // Copied, the player's arrays are changed in place
+        this.honor = copy(player.getHonor());
+        this.showChars = copy(player.getShowChars());
+        this.lastLogin = player.getLastLogin();
+    }
+
+    public PlayerSummary(Document doc) {
+        this.uid = doc.getInteger("_id");
+        this.name = doc.get("name", "");
+        this.signature = doc.get("signature", "");
+        this.level = doc.getInteger("level", 0);
+        this.headIcon = doc.getInteger("headIcon", 0);
+        this.titlePrefix = doc.getInteger("titlePrefix", 0);
+        this.titleSuffix = doc.getInteger("titleSuffix", 0);
+        this.honor = toIntArray(doc.getList("honor", Integer.class));
+        this.showChars = toIntArray(doc.getList("showChars", Integer.class));
+        this.lastLogin = toLong(doc.get("lastLogin", Number.class));
+    }
+    
+    private static long toLong(Number number) {
+        return number != null ? number.longValue() : 0;
+    }
+
+    private static int[] copy(int[] array) {
+        return array != null ? array.clone() : new int[0];
+    }
+
+    private static int[] toIntArray(List<Integer> list) {
+        if (list == null) {
+            return new int[0];
+        }
+
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Proto
+
+    public Friend toProto() {
+        var proto = Friend.newInstance()
+                .setId(this.getUid())
+                .setWorldClass(this.getLevel())
+                .setHeadIcon(this.getHeadIcon())
+                .setNickName(this.getName())
+                .setSignature(this.getSignature())
+                .setTitlePrefix(this.getTitlePrefix())
+                .setTitleSuffix(this.getTitleSuffix())
+                .setLastLoginTime(this.getLastLogin() * 1_000_000L);
+
+        if (this.getShowChars() != null) {
+            for (int charId : this.getShowChars()) {
+                var info = CharShow.newInstance()
+                        .setCharId(charId)
+                        .setLevel(1)                    // TODO
+                        .setSkin((charId * 100) + 1);   // TODO
+
+                proto.addCharShows(info);
+            }
+        }
+
+        if (this.getHonor() != null) {
+            for (int honorId : this.getHonor()) {
+                var info = HonorInfo.newInstance()
+                        .setId(honorId);
+
+                proto.addHonors(info);
+            }
+        }
+
+        return proto;
+    }
+}
@@ -0,0 +1,55 @@
+package emu.nebula.game.quest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * Lookup table for quests by their completion condition and param, so triggers only visit the quests that
+ * can actually be progressed by them.
+ */
+public class QuestIndex {
+    private final Long2ObjectMap<List<GameQuest>> quests;
+    
+    public QuestIndex(Collection<GameQuest> quests) {
+        this.quests = new Long2ObjectOpenHashMap<>();
+        
+        for (var quest : quests) {
+            this.quests.computeIfAbsent(getKey(quest.getCond(), quest.getParam()), k -> new ArrayList<>()).add(quest);
+        }
+    }
+    
+    private static long getKey(int condition, int param) {
+        return ((long) condition << 32) | (param & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Calls the consumer for every uncompleted quest that matches this condition and param
+     */
+    public void forEach(int condition, int param, Consumer<GameQuest> consumer) {
+        // Quests without a param match any param
+        this.visit(this.quests.get(getKey(condition, 0)), consumer);
+        
+        if (param != 0) {
+            this.visit(this.quests.get(getKey(condition, param)), consumer);
+        }
+    }
+    
+    private void visit(List<GameQuest> list, Consumer<GameQuest> consumer) {
+        if (list == null) {
+            return;
+        }
+        
+        for (var quest : list) {
+            if (quest.isComplete()) {
+                continue;
+            }
+            
+            consumer.accept(quest);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import emu.nebula.database.GameDatabaseObject;
 import emu.nebula.game.inventory.ItemParamMap;
 import emu.nebula.game.player.Player;
 import emu.nebula.game.player.PlayerChangeInfo;
+import emu.nebula.game.player.PlayerInfoCache.Section;
 import emu.nebula.game.player.PlayerManager;
 import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.PlayerData.PlayerInfo;
@@ -44,6 +45,10 @@ public class QuestManager extends PlayerManager implements GameDatabaseObject {
     @Getter(AccessLevel.NONE)
     private boolean hasDailyReward;
     
+    // Quests by condition, rebuilt when quests are added
+    @Getter(AccessLevel.NONE)
+    private transient QuestIndex questIndex;
+    
     @Deprecated // Morphia only
     public QuestManager() {
         
@@ -68,9 +73,13 @@ public class QuestManager extends PlayerManager implements GameDatabaseObject {
     
     public void saveLevelRewards() {
         Nebula.getGameDatabase().update(this, this.getUid(), "levelRewards", this.levelRewards);
+        this.getPlayer().getInfoCache().invalidate(Section.QUESTS);
     }
     
-    public synchronized int getActivity() {
+    public int getActivity() {
+        // Apply queued triggers first, so progress made earlier in this request is counted
+        this.getPlayer().flushTriggers();
+        
         int activity = 0;
         
         for (var quest : getQuests().values()) {
@@ -93,7 +102,7 @@ public class QuestManager extends PlayerManager implements GameDatabaseObject {
         return activity;
     }
     
-    public synchronized void resetDailyQuests() {
+    public void resetDailyQuests() {
         // Reset daily quests
         for (var data : GameData.getDailyQuestDataTable()) {
             // Get quest
@@ -106,22 +115,34 @@ public class QuestManager extends PlayerManager implements GameDatabaseObject {
             this.syncQuest(quest);
         }
         
+        // Rebuild quest index
+        this.questIndex = null;
+        
         // Reset activity
         this.claimedActiveIds.clear();
         this.hasDailyReward = true;
         
         // Persist to database
         this.save();
+        this.getPlayer().getInfoCache().invalidate(Section.QUESTS);
     }
 
-    public synchronized void trigger(int condition, int progress, int param1, int param2) {
-        for (var quest : getQuests().values()) {
+    private QuestIndex getQuestIndex() {
+        if (this.questIndex == null) {
+            this.questIndex = new QuestIndex(this.getQuests().values());
+        }
+        
+        return this.questIndex;
+    }
+    
+    public void trigger(int condition, int progress, int param1, int param2) {
+        this.getQuestIndex().forEach(condition, param1, quest -> {
             // Try to trigger quest
             boolean result = quest.trigger(condition, progress, param1, param2);
             
             // Skip if quest progress wasn't changed
             if (!result) {
-                continue;
+                return;
             }
             
             // Sync quest with player client
@@ -129,7 +150,8 @@ public class QuestManager extends PlayerManager implements GameDatabaseObject {
             
             // Update in database
             Nebula.getGameDatabase().update(this, this.getUid(), "quests." + quest.getId(), quest);
-        }
+            this.getPlayer().getInfoCache().invalidate(Section.QUESTS);
+        });
     }
     
     /**
@@ -147,6 +169,9 @@ public class QuestManager extends PlayerManager implements GameDatabaseObject {
     }
     
     public PlayerChangeInfo receiveQuestReward(int questId) {
+        // Apply queued triggers first, so progress made earlier in this request is counted
+        this.getPlayer().flushTriggers();
+        
         // Get received quests
         var claimList = new ArrayList<GameQuest>();
         
@@ -192,6 +217,8 @@ public class QuestManager extends PlayerManager implements GameDatabaseObject {
             Nebula.getGameDatabase().update(this, this.getUid(), "quests." + quest.getId(), quest);
         }
         
+        this.getPlayer().getInfoCache().invalidate(Section.QUESTS);
+        
         // Trigger quest
         this.getPlayer().trigger(QuestCondition.QuestWithSpecificType, claimList.size(), QuestType.Daily);
         
@@ -200,6 +227,9 @@ public class QuestManager extends PlayerManager implements GameDatabaseObject {
     }
     
     public PlayerChangeInfo claimActiveRewards() {
+        // Apply queued triggers first, so progress made earlier in this request is counted
+        this.getPlayer().flushTriggers();
+        
         // Init
         var claimList = new IntArrayList();
         var rewards = new ItemParamMap();
@@ -235,6 +265,7 @@ public class QuestManager extends PlayerManager implements GameDatabaseObject {
         // Update in database
         this.getClaimedActiveIds().addAll(claimList);
         Nebula.getGameDatabase().update(this, this.getUid(), "claimedActiveIds", this.getClaimedActiveIds());
+        this.getPlayer().getInfoCache().invalidate(Section.QUESTS);
         
         // Success
         return change.setSuccess(true);
@@ -0,0 +1,57 @@
+package emu.nebula.game.quest;
+
+import emu.nebula.game.achievement.AchievementHelper;
+import emu.nebula.game.player.Player;
+
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+
+/**
+ * Collects incremental quest/achievement triggers while a request is being handled. Repeated triggers for the
+ * same condition and params are merged by adding their progress, then dispatched once before the response is sent.
+ */
+public class TriggerQueue {
+    private final Player player;
+    private Object2IntMap<TriggerKey> triggers;
+    
+    public TriggerQueue(Player player) {
+        this.player = player;
+        this.triggers = new Object2IntLinkedOpenHashMap<>();
+    }
+    
+    public boolean isEmpty() {
+        return this.triggers.isEmpty();
+    }
+    
+    /**
+     * Returns true if triggers for this condition can be merged. Conditions that aren't incremental
+     * (like reaching a level) must be dispatched right away.
+     */
+    public static boolean canQueue(int condition) {
+        return AchievementHelper.isIncrementalAchievement(condition);
+    }
+    
+    public void add(int condition, int progress, int param1, int param2) {
+        this.triggers.mergeInt(new TriggerKey(condition, param1, param2), progress, Integer::sum);
+    }
+    
+    /**
+     * Dispatches all queued triggers to the player
+     */
+    public void flush() {
+        while (!this.triggers.isEmpty()) {
+            // Swap maps, since dispatching can queue more triggers
+            var queued = this.triggers;
+            this.triggers = new Object2IntLinkedOpenHashMap<>();
+            
+            for (var entry : queued.object2IntEntrySet()) {
+                var key = entry.getKey();
+                this.player.dispatchTrigger(key.condition(), entry.getIntValue(), key.param1(), key.param2());
+            }
+        }
+    }
+    
+    private record TriggerKey(int condition, int param1, int param2) {
+        
+    }
+}
@@ -0,0 +1,429 @@
+package emu.nebula.game.ranking;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+import dev.morphia.query.filters.Filters;
+import emu.nebula.Nebula;
+import emu.nebula.util.RankedSkipList;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import lombok.Getter;
+
+/**
+ * Named in-memory leaderboard. Entries are spread over shards by player uid, each shard is a sorted skip list with
+ * its own lock, so score updates from different players don't block each other. Ranks are the sum of the
+ * positions in every shard, so rank queries stay O(shards * log n).
+ * <p>
+ * Persistent boards save changed entries to the database in one bulk write when {@link #save} is called.
+ * The board is cleared whenever its season changes.
+ */
+@Getter
+public class RankingBoard {
+    private static final int SHARD_COUNT = 8;
+
+    private final String name;
+    private final IntSupplier seasonSupplier;
+    private final long refreshTime; // Milliseconds
+    private final int topSize;
+    private final boolean persistent;
+    private final Shard[] shards;
+
+    private volatile int season;
+
+    // Cached top entries
+    private final AtomicLong version;
+    private volatile List<RankingEntry> top;
+    private long topVersion;
+    private long lastRefresh;
+
+    /**
+     * @param seasonSupplier Returns the current season, the board is reset whenever it changes
+     * @param refreshTime How long the cached top entries are kept before they are rebuilt, in milliseconds
+     * @param topSize How many entries are cached for {@link #getTop}
+     * @param persistent If the entries should be saved to the database
+     */
+    public RankingBoard(String name, IntSupplier seasonSupplier, long refreshTime, int topSize, boolean persistent) {
+        this.name = name;
+        this.seasonSupplier = seasonSupplier;
+        this.refreshTime = refreshTime;
+        this.topSize = topSize;
+        this.persistent = persistent;
+        this.shards = new Shard[SHARD_COUNT];
+        this.version = new AtomicLong();
+        this.top = List.of();
+        this.topVersion = -1;
+
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard();
+        }
+
+        this.season = seasonSupplier.getAsInt();
+    }
+
+    private Shard getShard(int uid) {
+        return this.shards[Math.floorMod(uid, this.shards.length)];
+    }
+
+    // Database
+
+    /**
+     * Loads the entries for the current season from the database
+     */
+    public void load() {
+        if (!this.isPersistent()) {
+            return;
+        }
+
+        // The season may have ended while the server was offline
+        this.deleteOldSeasons();
+
+        try (var stream = Nebula.getGameDatabase().getObjects(RankingEntry.class, "board", this.getName())) {
+            stream.filter(entry -> entry.getSeason() == this.getSeason()).forEach(entry -> {
+                var shard = this.getShard(entry.getUid());
+
+                synchronized (shard) {
+                    shard.add(entry);
+                }
+            });
+        }
+
+        this.version.incrementAndGet();
+    }
+
+    /**
+     * Saves entries that were changed since the last save. Only the latest version of an entry is written.
+     * Entries that fail to save are kept and written again on the next save.
+     */
+    public void save() {
+        if (!this.isPersistent()) {
+            return;
+        }
+
+        var changed = new ArrayList<RankingEntry>();
+        var removed = new ArrayList<RankingEntry>();
+
+        for (var shard : this.shards) {
+            synchronized (shard) {
+                changed.addAll(shard.changed.values());
+                shard.changed.clear();
+
+                for (int uid : shard.removed) {
+                    removed.add(new RankingEntry(this.getName(), this.getSeason(), uid, 0, 0, null));
+                }
+
+                shard.removed.clear();
+            }
+        }
+
+        try {
+            Nebula.getGameDatabase().saveAll(changed);
+        } catch (Exception e) {
+            this.requeue(changed, removed);
+            throw e;
+        }
+
+        for (int i = 0; i < removed.size(); i++) {
+            try {
+                Nebula.getGameDatabase().delete(RankingEntry.class, "_id", removed.get(i).getId());
+            } catch (Exception e) {
+                this.requeue(List.of(), removed.subList(i, removed.size()));
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Adds entries that failed to save back to their shards, unless they were changed again in the meantime
+     */
+    private void requeue(List<RankingEntry> changed, List<RankingEntry> removed) {
+        for (var entry : changed) {
+            var shard = this.getShard(entry.getUid());
+
+            synchronized (shard) {
+                if (entry.getSeason() == this.season && shard.entries.get(entry.getUid()) == entry) {
+                    shard.changed.putIfAbsent(entry.getUid(), entry);
+                }
+            }
+        }
+
+        for (var entry : removed) {
+            var shard = this.getShard(entry.getUid());
+
+            synchronized (shard) {
+                if (entry.getSeason() == this.season && !shard.entries.containsKey(entry.getUid())) {
+                    shard.removed.add(entry.getUid());
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the saved entries of every season except the current one
+     */
+    private void deleteOldSeasons() {
+        Nebula.getGameDatabase().delete(
+            RankingEntry.class,
+            Filters.eq("board", this.getName()),
+            Filters.ne("season", this.getSeason())
+        );
+    }
+
+    /**
+     * Resets the board if the season has changed
+     */
+    public synchronized void checkSeason() {
+        int season = this.seasonSupplier.getAsInt();
+
+        if (season == this.season) {
+            return;
+        }
+
+        // Clear entries
+        this.reset(0, season);
+        this.version.incrementAndGet();
+
+        // Delete entries from older seasons. Entries from the new season may already have been saved, so
+        // only delete the old ones
+        if (this.isPersistent()) {
+            this.deleteOldSeasons();
+        }
+
+        Nebula.getLogger().info("Ranking " + this.getName() + " was reset for season " + season);
+    }
+
+    /**
+     * Locks every shard from the index onwards, then clears them and sets the new season. Updates read the
+     * season under their shard lock, so no update can add an entry from the old season after the reset.
+     */
+    private void reset(int index, int season) {
+        if (index >= this.shards.length) {
+            this.season = season;
+            return;
+        }
+
+        var shard = this.shards[index];
+
+        synchronized (shard) {
+            shard.clear();
+            this.reset(index + 1, season);
+        }
+    }
+
+    // Updates
+
+    /**
+     * Adds or replaces a player's entry
+     * @param time When the score was reached, earlier times rank higher on ties
+     * @param data Encoded proto used to display the entry
+     */
+    public void put(int uid, long score, long time, byte[] data) {
+        var shard = this.getShard(uid);
+
+        synchronized (shard) {
+            var entry = new RankingEntry(this.getName(), this.getSeason(), uid, score, time, data);
+
+            shard.add(entry);
+            shard.removed.remove(uid);
+
+            if (this.isPersistent()) {
+                shard.changed.put(uid, entry);
+            }
+        }
+
+        this.version.incrementAndGet();
+    }
+
+    public void remove(int uid) {
+        var shard = this.getShard(uid);
+
+        synchronized (shard) {
+            if (!shard.remove(uid)) {
+                return;
+            }
+
+            shard.changed.remove(uid);
+
+            if (this.isPersistent()) {
+                shard.removed.add(uid);
+            }
+        }
+
+        this.version.incrementAndGet();
+    }
+
+    // Queries
+
+    public RankingEntry getEntry(int uid) {
+        var shard = this.getShard(uid);
+
+        synchronized (shard) {
+            return shard.entries.get(uid);
+        }
+    }
+
+    public int getTotal() {
+        int total = 0;
+
+        for (var shard : this.shards) {
+            synchronized (shard) {
+                total += shard.list.size();
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the player's rank starting from 1, or 0 if they are not on the board
+     */
+    public int getRank(int uid) {
+        var entry = this.getEntry(uid);
+        return entry != null ? this.getRank(entry) : 0;
+    }
+
+    private int getRank(RankingEntry entry) {
+        int rank = 1;
+
+        for (var shard : this.shards) {
+            synchronized (shard) {
+                rank += shard.list.countBefore(entry.getScore(), entry.getTime(), entry.getUid());
+            }
+        }
+
+        return rank;
+    }
+
+    /**
+     * Returns the percentage of players that rank the same or higher than the player (1 = top 1%), or 0 if they
+     * are not on the board. Useful to show a rough position on boards with a huge amount of players.
+     */
+    public int getPercentile(int uid) {
+        int rank = this.getRank(uid);
+        int total = this.getTotal();
+
+        if (rank == 0 || total == 0) {
+            return 0;
+        }
+
+        return (int) Math.ceil(rank * 100.0 / total);
+    }
+
+    /**
+     * Returns the top entries of the board. The result is cached and only rebuilt once the refresh time has passed.
+     */
+    public List<RankingEntry> getTop() {
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            if (this.topVersion != this.version.get() && now >= this.lastRefresh + this.getRefreshTime()) {
+                this.topVersion = this.version.get();
+                this.top = this.getRange(1, this.getTopSize());
+                this.lastRefresh = now;
+            }
+        }
+
+        return this.top;
+    }
+
+    /**
+     * Returns the time the cached top entries were built, in seconds
+     */
+    public long getLastRefreshTime() {
+        return this.lastRefresh / 1000;
+    }
+
+    /**
+     * Returns up to count entries, starting from the given rank
+     */
+    public List<RankingEntry> getRange(int fromRank, int count) {
+        int last = fromRank + count - 1;
+        var candidates = new ArrayList<RankingEntry>();
+
+        // Every entry in the range must be in the top ranks of its own shard
+        for (var shard : this.shards) {
+            synchronized (shard) {
+                for (int uid : shard.list.getRange(1, last)) {
+                    candidates.add(shard.entries.get(uid));
+                }
+            }
+        }
+
+        candidates.sort(RankingEntry.ORDER);
+
+        int from = Math.min(Math.max(fromRank, 1) - 1, candidates.size());
+        int to = Math.min(last, candidates.size());
+
+        return List.copyOf(candidates.subList(from, to));
+    }
+
+    /**
+     * Returns the entries around the player, including the player itself
+     * @param radius How many entries above and below the player to include
+     */
+    public List<RankingEntry> getNeighbors(int uid, int radius) {
+        var self = this.getEntry(uid);
+
+        if (self == null) {
+            return List.of();
+        }
+
+        var candidates = new ArrayList<RankingEntry>();
+
+        // Get the entries right above and below the player in every shard. The player's own shard also contains
+        // the player, so it needs one more entry below
+        for (var shard : this.shards) {
+            synchronized (shard) {
+                int before = shard.list.countBefore(self.getScore(), self.getTime(), self.getUid());
+                int from = Math.max(before - radius + 1, 1);
+                int last = before + radius + (shard.entries.containsKey(uid) ? 1 : 0);
+
+                for (int id : shard.list.getRange(from, last - from + 1)) {
+                    candidates.add(shard.entries.get(id));
+                }
+            }
+        }
+
+        candidates.sort(RankingEntry.ORDER);
+
+        int index = candidates.indexOf(self);
+
+        if (index < 0) {
+            return List.of();
+        }
+
+        return List.copyOf(candidates.subList(Math.max(index - radius, 0), Math.min(index + radius + 1, candidates.size())));
+    }
+
+    // Shard
+
+    private static class Shard {
+        private final RankedSkipList list = new RankedSkipList();
+        private final Int2ObjectMap<RankingEntry> entries = new Int2ObjectOpenHashMap<>();
+
+        // Waiting to be saved
+        private final Int2ObjectMap<RankingEntry> changed = new Int2ObjectOpenHashMap<>();
+        private final IntSet removed = new IntOpenHashSet();
+
+        private void add(RankingEntry entry) {
+            this.list.put(entry.getUid(), entry.getScore(), entry.getTime());
+            this.entries.put(entry.getUid(), entry);
+        }
+
+        private boolean remove(int uid) {
+            this.entries.remove(uid);
+            return this.list.remove(uid);
+        }
+
+        private void clear() {
+            this.list.clear();
+            this.entries.clear();
+            this.changed.clear();
+            this.removed.clear();
+        }
+    }
+}
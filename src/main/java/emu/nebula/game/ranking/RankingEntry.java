@@ -0,0 +1,48 @@
+package emu.nebula.game.ranking;
+
+import java.util.Comparator;
+
+import dev.morphia.annotations.Entity;
+import dev.morphia.annotations.Id;
+import dev.morphia.annotations.Indexed;
+import emu.nebula.database.GameDatabaseObject;
+import lombok.Getter;
+
+/**
+ * A player's entry on a ranking board. Entries are immutable, a new entry replaces the old one whenever the
+ * player's score changes. The data is an encoded proto that the board owner uses to display the entry.
+ */
+@Getter
+@Entity(value = "rankings", useDiscriminator = false)
+public class RankingEntry implements GameDatabaseObject {
+    // Same order as RankedSkipList: highest score, then earliest time, then lowest uid
+    public static final Comparator<RankingEntry> ORDER = Comparator
+            .comparingLong(RankingEntry::getScore).reversed()
+            .thenComparingLong(RankingEntry::getTime)
+            .thenComparingInt(RankingEntry::getUid);
+
+    @Id
+    private String id;
+    @Indexed
+    private String board;
+    private int season;
+    private int uid;
+    private long score;
+    private long time;
+    private byte[] data;
+
+    @Deprecated // Morphia only
+    public RankingEntry() {
+
+    }
+
+    public RankingEntry(String board, int season, int uid, long score, long time, byte[] data) {
+        this.id = board + ":" + season + ":" + uid;
+        this.board = board;
+        this.season = season;
+        this.uid = uid;
+        this.score = score;
+        this.time = time;
+        this.data = data;
+    }
+}
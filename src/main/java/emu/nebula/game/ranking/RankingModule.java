@@ -0,0 +1,99 @@
+package emu.nebula.game.ranking;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+import emu.nebula.GameConstants;
+import emu.nebula.Nebula;
+import emu.nebula.game.GameContext;
+import emu.nebula.game.GameContextModule;
+import emu.nebula.util.Utils;
+import lombok.Getter;
+
+@Getter
+public class RankingModule extends GameContextModule {
+    // Board names
+    public static final String SCORE_BOSS = "score_boss";
+    public static final String TRAVELER_DUEL = "traveler_duel";
+    public static final String JOINT_DRILL = "joint_drill";
+
+    public static final int TOP_SIZE = 50;
+
+    private final Map<String, RankingBoard> boards;
+    private long nextSave;
+
+    public RankingModule(GameContext context) {
+        super(context);
+        this.boards = new ConcurrentHashMap<>();
+        this.nextSave = System.currentTimeMillis() + this.getSaveInterval();
+
+        // Weekly boards
+        this.createBoard(TRAVELER_DUEL, RankingModule::getCurrentWeek, this.getRefreshTime(), TOP_SIZE, true);
+        this.createBoard(JOINT_DRILL, RankingModule::getCurrentWeek, this.getRefreshTime(), TOP_SIZE, true);
+    }
+
+    private long getRefreshTime() {
+        return Nebula.getConfig().getServerOptions().leaderboardRefreshTime * 1000L;
+    }
+
+    private long getSaveInterval() {
+        return Math.max(Nebula.getConfig().getServerOptions().rankingSaveInterval, 1) * 1000L;
+    }
+
+    public RankingBoard getBoard(String name) {
+        return this.boards.get(name);
+    }
+
+    /**
+     * Creates a ranking board and loads its entries from the database
+     */
+    public RankingBoard createBoard(String name, IntSupplier season, long refreshTime, int topSize, boolean persistent) {
+        var board = new RankingBoard(name, season, refreshTime, topSize, persistent);
+        board.load();
+
+        this.boards.put(name, board);
+
+        Nebula.getLogger().info("Loaded " + board.getTotal() + " entries for ranking " + name);
+
+        return board;
+    }
+
+    /**
+     * Called every second from the game loop. Resets boards when their season ends and saves changed entries.
+     */
+    public void tick() {
+        for (var board : this.boards.values()) {
+            board.checkSeason();
+        }
+
+        if (System.currentTimeMillis() >= this.nextSave) {
+            this.save();
+            this.nextSave = System.currentTimeMillis() + this.getSaveInterval();
+        }
+    }
+
+    public void save() {
+        for (var board : this.boards.values()) {
+            try {
+                board.save();
+            } catch (Exception e) {
+                Nebula.getLogger().error("Error saving ranking " + board.getName(), e);
+            }
+        }
+    }
+
+    // Seasons
+
+    /**
+     * Returns the current week, using the same reset hour as dailies
+     */
+    public static int getCurrentWeek() {
+        long offset = Nebula.getConfig().getServerOptions().getDailyResetHour() * -3600L;
+        var date = LocalDate.ofInstant(Instant.now().plusSeconds(offset), GameConstants.UTC_ZONE);
+
+        return Utils.getWeeks(date.toEpochDay());
+    }
+}
@@ -91,6 +91,9 @@ public class ScoreBossManager extends PlayerManager  {
         // Save ranking
         this.ranking.save();
         
+        // Update leaderboard
+        Nebula.getGameContext().getScoreBossModule().updateEntry(this.ranking);
+        
         // Clear
         this.levelId = 0;
         this.buildId = 0;
@@ -2,60 +2,182 @@ package emu.nebula.game.scoreboss;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import emu.nebula.Nebula;
 import emu.nebula.game.GameContext;
 import emu.nebula.game.GameContextModule;
+import emu.nebula.game.player.PlayerSummary;
+import emu.nebula.game.ranking.RankingBoard;
+import emu.nebula.game.ranking.RankingEntry;
+import emu.nebula.game.ranking.RankingModule;
+import emu.nebula.proto.Public.HonorInfo;
 import emu.nebula.proto.ScoreBossRank.ScoreBossRankData;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 @Getter
 public class ScoreBossModule extends GameContextModule {
-    private long lastUpdate;
-    private long nextUpdate;
-    private List<ScoreBossRankData> ranking;
-    
+    // Leaderboard
+    private final RankingBoard board;
+
+    // Cached top ranking, replaced as a whole so readers never need a lock
+    @Getter(AccessLevel.NONE)
+    private volatile CachedRanking cache;
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean refreshing;
+
     public ScoreBossModule(GameContext context) {
         super(context);
-        this.nextUpdate = -1;
-        this.ranking = new ArrayList<>();
+        this.cache = new CachedRanking(null, List.of(), Int2ObjectMaps.emptyMap(), -1, 0);
+        this.refreshing = new AtomicBoolean();
+
+        // Create leaderboard. Score boss entries are already saved in their own collection, so the board only lives in memory
+        this.board = context.getRankingModule().createBoard(RankingModule.SCORE_BOSS, this::getControlId, 0, RankingModule.TOP_SIZE, false);
+        this.loadLeaderboard();
     }
-    
+
     // TODO calculate from bin data
     public int getControlId() {
         return 2;
     }
-    
+
     private long getRefreshTime() {
         return Nebula.getConfig().getServerOptions().leaderboardRefreshTime * 1000;
     }
-    
-    public synchronized List<ScoreBossRankData> getRanking() {
-        if (System.currentTimeMillis() > this.nextUpdate) {
-            this.updateRanking();
-        }
-        
-        return this.ranking;
-    }
-
-    // Cache ranking so we dont query the database too much
-    private void updateRanking() {
-        // Clear
-        this.ranking.clear();
-        
-        // Get from database
-        var list = Nebula.getGameDatabase().getSortedObjects(ScoreBossRankEntry.class, "controlId", this.getControlId(), "score", 50);
-        
-        for (int i = 0; i < list.size(); i++) {
-            // Get rank entry and set proto
-            var entry = list.get(i);
-            entry.setRank(i + 1);
-            
-            // Add to ranking
-            this.ranking.add(entry.toProto());
-        }
-        
-        this.nextUpdate = System.currentTimeMillis() + this.getRefreshTime();
-        this.lastUpdate = Nebula.getCurrentTime();
+
+    // Leaderboard
+
+    /**
+     * Loads the rank entries for the current control id from the database. This is only done once on startup,
+     * after that the leaderboard is kept up to date by {@link #updateEntry}.
+     */
+    private void loadLeaderboard() {
+        long start = System.currentTimeMillis();
+
+        try (var stream = Nebula.getGameDatabase().getObjects(ScoreBossRankEntry.class, "controlId", this.getControlId())) {
+            stream.forEach(this::updateEntry);
+        }
+
+        Nebula.getLogger().info("Loaded " + this.board.getTotal() + " score boss rank entries in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Updates a player's position on the leaderboard after they settle a score boss level
+     */
+    public void updateEntry(ScoreBossRankEntry entry) {
+        if (entry.getControlId() != this.getControlId() || entry.getScore() <= 0) {
+            this.board.remove(entry.getPlayerUid());
+            return;
+        }
+
+        this.board.put(entry.getPlayerUid(), entry.getScore(), entry.getScoreTime(), entry.toProto().toByteArray());
+    }
+
+    /**
+     * Returns the player's rank, or 0 if they are not on the leaderboard
+     */
+    public int getRank(int uid) {
+        return this.board.getRank(uid);
+    }
+
+    /**
+     * Returns the total amount of players on the leaderboard
+     */
+    public int getTotal() {
+        return this.board.getTotal();
+    }
+
+    /**
+     * Returns the top of the leaderboard. The protos are shared between requests and should not be modified.
+     */
+    public List<ScoreBossRankData> getRanking() {
+        var cache = this.cache;
+        var entries = this.board.getTop();
+
+        // Only one request at a time refreshes player info from the database, the rest keep using the old info
+        boolean refresh = System.currentTimeMillis() > cache.nextUpdate() && this.refreshing.compareAndSet(false, true);
+
+        if (entries == cache.entries() && !refresh) {
+            return cache.ranking();
+        }
+
+        try {
+            return this.updateRanking(cache, entries, refresh);
+        } finally {
+            if (refresh) {
+                this.refreshing.set(false);
+            }
+        }
+    }
+
+    // Rebuild the cached top ranking. Player info is refreshed from the database every refresh interval
+    private List<ScoreBossRankData> updateRanking(CachedRanking cache, List<RankingEntry> entries, boolean refresh) {
+        var ranking = this.createRanking(entries, 1);
+        var summaries = cache.summaries();
+        long nextUpdate = cache.nextUpdate();
+
+        if (refresh) {
+            var uids = new IntArrayList(entries.size());
+
+            for (var entry : entries) {
+                uids.add(entry.getUid());
+            }
+
+            summaries = getGameContext().getPlayerModule().getSummaries(uids);
+            nextUpdate = System.currentTimeMillis() + this.getRefreshTime();
+        }
+
+        for (var proto : ranking) {
+            var summary = summaries.get((int) proto.getId());
+
+            if (summary != null) {
+                this.updatePlayerInfo(proto, summary);
+            }
+        }
+
+        var list = List.copyOf(ranking);
+        this.cache = new CachedRanking(entries, list, summaries, nextUpdate, Nebula.getCurrentTime());
+
+        return list;
+    }
+
+    private List<ScoreBossRankData> createRanking(List<RankingEntry> entries, int firstRank) {
+        var list = new ArrayList<ScoreBossRankData>(entries.size());
+
+        for (int i = 0; i < entries.size(); i++) {
+            try {
+                var proto = ScoreBossRankData.parseFrom(entries.get(i).getData())
+                        .setRank(firstRank + i);
+
+                list.add(proto);
+            } catch (Exception e) {
+                Nebula.getLogger().error("Error parsing score boss rank entry", e);
+            }
+        }
+
+        return list;
+    }
+
+    private void updatePlayerInfo(ScoreBossRankData proto, PlayerSummary summary) {
+        proto.setNickName(summary.getName())
+            .setWorldClass(summary.getLevel())
+            .setHeadIcon(summary.getHeadIcon())
+            .setTitlePrefix(summary.getTitlePrefix())
+            .setTitleSuffix(summary.getTitleSuffix())
+            .clearHonors();
+
+        if (summary.getHonor() != null) {
+            for (int id : summary.getHonor()) {
+                proto.addHonors(HonorInfo.newInstance().setId(id));
+            }
+        }
+    }
+
+    private record CachedRanking(List<RankingEntry> entries, List<ScoreBossRankData> ranking, Int2ObjectMap<PlayerSummary> summaries, long nextUpdate, long lastUpdate) {
+
     }
 }
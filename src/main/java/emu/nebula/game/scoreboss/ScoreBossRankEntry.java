@@ -8,8 +8,10 @@ import java.util.Map;
 import dev.morphia.annotations.Entity;
 import dev.morphia.annotations.Id;
 
+import emu.nebula.Nebula;
 import emu.nebula.database.GameDatabaseObject;
 import emu.nebula.game.player.Player;
+import emu.nebula.game.player.PlayerSummary;
 import emu.nebula.game.tower.StarTowerBuild;
 import emu.nebula.game.character.GameCharacter;
 import emu.nebula.proto.Public.HonorInfo;
@@ -34,6 +36,7 @@ public class ScoreBossRankEntry implements GameDatabaseObject {
     private int titleSuffix;
     private int[] honor;
     private int score;
+    private long scoreTime; // When the current score was reached, used to break ties in the ranking
     @SuppressWarnings("unused")
     private int stars;
     private IntSet claimedRewards;
@@ -75,12 +78,16 @@ public class ScoreBossRankEntry implements GameDatabaseObject {
     }
     
     public void update(Player player) {
-        this.name = player.getName();
-        this.level = player.getLevel();
-        this.headIcon = player.getHeadIcon();
-        this.titlePrefix = player.getTitlePrefix();
-        this.titleSuffix = player.getTitleSuffix();
-        this.honor = player.getHonor();
+        this.update(player.getSummary());
+    }
+    
+    public void update(PlayerSummary summary) {
+        this.name = summary.getName();
+        this.level = summary.getLevel();
+        this.headIcon = summary.getHeadIcon();
+        this.titlePrefix = summary.getTitlePrefix();
+        this.titleSuffix = summary.getTitleSuffix();
+        this.honor = summary.getHonor();
     }
     
     public void settle(Player player, StarTowerBuild build, int controlId, int level, int stars, int score, int skillScore) {
@@ -100,6 +107,8 @@ public class ScoreBossRankEntry implements GameDatabaseObject {
         this.getTeams().put(level, team);
         
         // Calculate score/stars
+        int oldScore = this.score;
+        
         this.score = 0;
         this.stars = 0;
         
@@ -107,10 +116,15 @@ public class ScoreBossRankEntry implements GameDatabaseObject {
             this.score += t.getLevelScore();
             this.stars += t.getStars();
         }
+        
+        if (this.score != oldScore) {
+            this.scoreTime = Nebula.getCurrentTime();
+        }
     }
     
     private void reset() {
         this.score = 0;
+        this.scoreTime = 0;
         this.stars = 0;
         this.getClaimedRewards().clear();
         this.getTeams().clear();
@@ -11,6 +11,7 @@ import emu.nebula.data.GameData;
 import emu.nebula.database.GameDatabaseObject;
 import emu.nebula.game.player.Player;
 import emu.nebula.game.player.PlayerChangeInfo;
+import emu.nebula.game.player.PlayerInfoCache.Section;
 import emu.nebula.game.player.PlayerManager;
 import emu.nebula.proto.PlayerData.PlayerInfo;
 import emu.nebula.proto.Public.Story;
@@ -111,6 +112,9 @@ public class StoryManager extends PlayerManager implements GameDatabaseObject {
             Nebula.getGameDatabase().addToSet(this, this.getPlayerUid(), "evidences", id);
         }
         
+        // Stories, options and evidences are sent in the player info
+        this.getPlayer().getInfoCache().invalidate(Section.STORY);
+        
         // Complete
         return change;
     }
@@ -6,6 +6,7 @@ import emu.nebula.game.GameContext;
 import emu.nebula.game.GameContextModule;
 import emu.nebula.game.player.Player;
 import emu.nebula.game.player.PlayerChangeInfo;
+import emu.nebula.game.player.PlayerInfoCache.Section;
 
 public class TutorialModule extends GameContextModule {
 
@@ -33,6 +34,7 @@ public class TutorialModule extends GameContextModule {
         
         // Save to database
         Nebula.getGameDatabase().update(player.getProgress(), player.getUid(), "tutorialLog." + log.getId(), log);
+        player.getInfoCache().invalidate(Section.PROGRESS);
         
         // Success
         return true;
@@ -56,6 +58,7 @@ public class TutorialModule extends GameContextModule {
         
         // Save to database
         Nebula.getGameDatabase().update(player.getProgress(), player.getUid(), "tutorialLog." + log.getId(), log);
+        player.getInfoCache().invalidate(Section.PROGRESS);
         
         // Add reward item
         return player.getInventory().addItem(data.getItem1(), data.getQty1());
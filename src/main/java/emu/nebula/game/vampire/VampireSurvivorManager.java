@@ -7,6 +7,7 @@ import emu.nebula.Nebula;
 import emu.nebula.data.GameData;
 import emu.nebula.game.achievement.AchievementCondition;
 import emu.nebula.game.player.Player;
+import emu.nebula.game.player.PlayerInfoCache.Section;
 import emu.nebula.game.player.PlayerManager;
 import emu.nebula.game.player.PlayerProgress;
 import emu.nebula.net.NetMsgId;
@@ -170,6 +171,8 @@ public class VampireSurvivorManager extends PlayerManager {
                 "vampireLog." + game.getId(),
                 log
             );
+            
+            this.getPlayer().getInfoCache().invalidate(Section.PROGRESS);
         }
         
         // Clear game
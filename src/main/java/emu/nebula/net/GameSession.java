@@ -12,7 +12,9 @@ import emu.nebula.game.account.AccountHelper;
 import emu.nebula.game.player.Player;
 import emu.nebula.proto.Public.MailState;
 import emu.nebula.proto.Public.Nil;
+import emu.nebula.util.AeadCipher;
 import emu.nebula.util.AeadHelper;
+import emu.nebula.util.SerialExecutor;
 import emu.nebula.util.Utils;
 import lombok.Getter;
 import lombok.SneakyThrows;
@@ -32,15 +34,34 @@ public class GameSession {
     private byte[] serverPublicKey;
     private byte[] serverPrivateKey;
     private byte[] key;
+    private AeadCipher cipher;
 
     // Session cleanup
     private boolean remove;
     private long lastActiveTime;
 
+    // Used for requests sent before the session has a player
+    private final SerialExecutor executor;
+
     public GameSession() {
+        this.executor = new SerialExecutor();
         this.updateLastActiveTime();
     }
 
+    /**
+     * Returns the executor that requests for this session should run on. Requests are run on the player's
+     * executor once the session has a player, so every session that logs into the same player is serialized.
+     */
+    public SerialExecutor getExecutor() {
+        var player = this.getPlayer();
+
+        if (player != null) {
+            return player.getExecutor();
+        }
+
+        return this.executor;
+    }
+
     public synchronized Player getPlayer() {
         return this.player;
     }
@@ -68,6 +89,9 @@ public class GameSession {
 
         // Set session removal flag
         this.remove = true;
+
+        // Remove from the session map right away instead of waiting for it to expire
+        Nebula.getGameContext().removeSession(this);
     }
 
     public synchronized boolean hasPlayer() {
@@ -90,6 +114,7 @@ public class GameSession {
     public void calculateKey() {
         this.key = AeadHelper.generateKey(clientPublicKey, serverPublicKey, serverPrivateKey);
         this.encryptMethod = Utils.randomRange(0, 1);
+        this.cipher = new AeadCipher(this.key, this.encryptMethod);
     }
 
     public String generateToken() {
@@ -166,6 +191,26 @@ public class GameSession {
         return PacketHelper.encodeMsg(msgId, proto);
     }
 
+    /**
+     * Encodes a message from already encoded proto bytes followed by a proto of the same type. Next packages
+     * are added to the proto.
+     */
+    public byte[] encodeMsg(int msgId, byte[] prefix, ProtoMessage<?> proto) {
+        // Check if we have any packages to send to the client
+        if (this.getPlayer() != null) {
+            // Check if player should add any packages
+            this.checkPlayerStates();
+
+            // Chain next packages for player
+            if (this.getPlayer().hasNextPackages()) {
+                this.addNextPackages(proto);
+            }
+        }
+
+        // Encode to message
+        return PacketHelper.encodeMsg(msgId, prefix, proto);
+    }
+
     public byte[] encodeMsg(int msgId) {
         // Check if we have any packages to send to the client
         if (this.getPlayer() != null) {
@@ -186,7 +231,14 @@ public class GameSession {
         return PacketHelper.encodeMsg(msgId);
     }
 
-    private void checkPlayerStates() {
+    /**
+     * Dispatches queued triggers and adds state notifies. Called before every response is encoded, handlers that
+     * read player state before encoding the response should call it first.
+     */
+    public void checkPlayerStates() {
+        // Dispatch queued quest/achievement triggers first, so their notifies are sent with this response
+        this.getPlayer().flushTriggers();
+
         // Update mail state flag
         if (this.getPlayer().getMailbox().isNewState()) {
             // Clear
@@ -0,0 +1,333 @@
+package emu.nebula.net;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import emu.nebula.database.DatabaseProfiler;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import lombok.Getter;
+
+/**
+ * Request metrics for every msgId. Entries are created when handlers are registered, so recording a request
+ * never has to take a lock. Counters are LongAdders and latency histograms use atomic buckets.
+ */
+public class HandlerMetrics {
+    // Request currently being handled on this thread, used to attribute encode time and database ops to it
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private final Int2ObjectMap<Entry> entries;
+    private final LongAdder unhandled;
+
+    public HandlerMetrics() {
+        this.entries = new Int2ObjectOpenHashMap<>();
+        this.unhandled = new LongAdder();
+    }
+
+    /**
+     * Creates the metrics entry for a msgId. Must only be called while handlers are being registered.
+     */
+    public void register(int msgId, boolean dummy) {
+        this.entries.put(msgId, new Entry(msgId, NetMsgIdUtils.getMsgIdName(msgId), dummy));
+    }
+
+    public Entry getEntry(int msgId) {
+        return this.entries.get(msgId);
+    }
+
+    public long getUnhandledCount() {
+        return this.unhandled.sum();
+    }
+
+    public void recordUnhandled() {
+        this.unhandled.increment();
+    }
+
+    /**
+     * Returns the entries that have handled at least one request, sorted by total handle time
+     */
+    public List<Entry> getActiveEntries() {
+        var list = new ArrayList<Entry>();
+
+        for (var entry : this.entries.values()) {
+            if (entry.getRequests() > 0) {
+                list.add(entry);
+            }
+        }
+
+        list.sort(Comparator.comparingLong((Entry e) -> e.getHandle().getSum()).reversed());
+        return list;
+    }
+
+    // Thread local recording
+
+    /**
+     * Runs a handler and records its handle time, encode time and database ops to the entry
+     */
+    public static <T> T measure(Entry entry, Callable<T> task) throws Exception {
+        var scope = new Scope();
+        var previous = SCOPE.get();
+        var previousRequest = DatabaseProfiler.beginRequest();
+
+        SCOPE.set(scope);
+        long start = System.nanoTime();
+
+        try {
+            return task.call();
+        } finally {
+            long time = System.nanoTime() - start;
+
+            DatabaseProfiler.endRequest(entry.getName(), previousRequest);
+
+            if (previous != null) {
+                SCOPE.set(previous);
+            } else {
+                SCOPE.remove();
+            }
+
+            entry.getHandle().record(time - scope.encodeTime);
+            entry.getEncode().record(scope.encodeTime);
+            entry.dbOps.add(scope.dbOps);
+        }
+    }
+
+    /**
+     * Adds time spent encoding a proto to the request that is being handled on this thread
+     */
+    public static void recordEncode(long nanos) {
+        var scope = SCOPE.get();
+
+        if (scope != null) {
+            scope.encodeTime += nanos;
+        }
+    }
+
+    /**
+     * Counts a database call for the request that is being handled on this thread
+     */
+    public static void recordDatabaseOp() {
+        var scope = SCOPE.get();
+
+        if (scope != null) {
+            scope.dbOps++;
+        }
+    }
+
+    private static class Scope {
+        private long encodeTime;
+        private int dbOps;
+    }
+
+    // Prometheus
+
+    /**
+     * Writes all metrics in the Prometheus text format
+     */
+    public String toPrometheus() {
+        var sb = new StringBuilder(16384);
+        var entries = this.getActiveEntries();
+
+        writeCounter(sb, entries, "nebula_handler_requests_total", "Requests handled", Entry::getRequests);
+        writeCounter(sb, entries, "nebula_handler_errors_total", "Requests that failed or returned no response", Entry::getErrors);
+        writeCounter(sb, entries, "nebula_handler_request_bytes_total", "Encrypted request bytes", Entry::getRequestBytes);
+        writeCounter(sb, entries, "nebula_handler_response_bytes_total", "Encrypted response bytes", Entry::getResponseBytes);
+        writeCounter(sb, entries, "nebula_handler_db_ops_total", "Database calls issued by handlers", Entry::getDbOps);
+
+        sb.append("# HELP nebula_handler_unhandled_total Requests without a handler\n");
+        sb.append("# TYPE nebula_handler_unhandled_total counter\n");
+        sb.append("nebula_handler_unhandled_total ").append(this.getUnhandledCount()).append('\n');
+
+        sb.append("# HELP nebula_handler_duration_seconds Time spent in each phase of a request\n");
+        sb.append("# TYPE nebula_handler_duration_seconds histogram\n");
+
+        for (var entry : entries) {
+            entry.getDecrypt().write(sb, entry, "decrypt");
+            entry.getHandle().write(sb, entry, "handle");
+            entry.getEncode().write(sb, entry, "encode");
+            entry.getEncrypt().write(sb, entry, "encrypt");
+        }
+
+        return sb.toString();
+    }
+
+    private static void writeCounter(StringBuilder sb, List<Entry> entries, String name, String help, ToLongFunction<Entry> value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+
+        for (var entry : entries) {
+            sb.append(name).append('{').append(entry.getLabels()).append("} ").append(value.applyAsLong(entry)).append('\n');
+        }
+    }
+
+    // Entry
+
+    @Getter
+    public static class Entry {
+        private final int msgId;
+        private final String name;
+        private final boolean dummy;
+        private final String labels;
+
+        private final LongAdder requests;
+        private final LongAdder errors;
+        private final LongAdder requestBytes;
+        private final LongAdder responseBytes;
+        private final LongAdder dbOps;
+
+        private final Histogram decrypt;
+        private final Histogram handle;
+        private final Histogram encode;
+        private final Histogram encrypt;
+
+        private Entry(int msgId, String name, boolean dummy) {
+            this.msgId = msgId;
+            this.name = name;
+            this.dummy = dummy;
+            this.labels = "msg=\"" + name + "\",id=\"" + msgId + "\",dummy=\"" + dummy + "\"";
+
+            this.requests = new LongAdder();
+            this.errors = new LongAdder();
+            this.requestBytes = new LongAdder();
+            this.responseBytes = new LongAdder();
+            this.dbOps = new LongAdder();
+
+            this.decrypt = new Histogram();
+            this.handle = new Histogram();
+            this.encode = new Histogram();
+            this.encrypt = new Histogram();
+        }
+
+        public long getRequests() {
+            return this.requests.sum();
+        }
+
+        public long getErrors() {
+            return this.errors.sum();
+        }
+
+        public long getRequestBytes() {
+            return this.requestBytes.sum();
+        }
+
+        public long getResponseBytes() {
+            return this.responseBytes.sum();
+        }
+
+        public long getDbOps() {
+            return this.dbOps.sum();
+        }
+
+        public void recordRequest(int bytes, long decryptTime) {
+            this.requests.increment();
+            this.requestBytes.add(bytes);
+            this.decrypt.record(decryptTime);
+        }
+
+        public void recordResponse(int bytes, long encryptTime) {
+            this.responseBytes.add(bytes);
+            this.encrypt.record(encryptTime);
+        }
+
+        public void recordError() {
+            this.errors.increment();
+        }
+    }
+
+    // Histogram
+
+    /**
+     * Latency histogram with fixed log scaled buckets from 10us to 10s. Percentiles are estimated from the
+     * upper bound of the bucket they fall into.
+     */
+    public static class Histogram {
+        // Upper bounds in nanoseconds
+        private static final long[] BOUNDS = {
+            10_000L, 25_000L, 50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+        };
+
+        // Last bucket is everything above the highest bound
+        private final AtomicLongArray buckets;
+        private final LongAdder sum;
+
+        public Histogram() {
+            this.buckets = new AtomicLongArray(BOUNDS.length + 1);
+            this.sum = new LongAdder();
+        }
+
+        public void record(long nanos) {
+            int i = 0;
+
+            while (i < BOUNDS.length && nanos > BOUNDS[i]) {
+                i++;
+            }
+
+            this.buckets.incrementAndGet(i);
+            this.sum.add(nanos);
+        }
+
+        public long getCount() {
+            long count = 0;
+
+            for (int i = 0; i < this.buckets.length(); i++) {
+                count += this.buckets.get(i);
+            }
+
+            return count;
+        }
+
+        /**
+         * Returns the total recorded time in nanoseconds
+         */
+        public long getSum() {
+            return this.sum.sum();
+        }
+
+        /**
+         * Returns the estimated value at the percentile (0-100) in nanoseconds
+         */
+        public long getPercentile(double percentile) {
+            long count = this.getCount();
+
+            if (count == 0) {
+                return 0;
+            }
+
+            long target = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+
+            for (int i = 0; i < BOUNDS.length; i++) {
+                seen += this.buckets.get(i);
+
+                if (seen >= target) {
+                    return BOUNDS[i];
+                }
+            }
+
+            // Above the highest bound
+            return BOUNDS[BOUNDS.length - 1];
+        }
+
+        private void write(StringBuilder sb, Entry entry, String phase) {
+            String labels = entry.getLabels() + ",phase=\"" + phase + "\"";
+            long count = 0;
+
+            for (int i = 0; i < BOUNDS.length; i++) {
+                count += this.buckets.get(i);
+                sb.append("nebula_handler_duration_seconds_bucket{").append(labels).append(",le=\"").append(BOUNDS[i] / 1e9).append("\"} ").append(count).append('\n');
+            }
+
+            count += this.buckets.get(BOUNDS.length);
+
+            sb.append("nebula_handler_duration_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ").append(count).append('\n');
+            sb.append("nebula_handler_duration_seconds_sum{").append(labels).append("} ").append(this.getSum() / 1e9).append('\n');
+            sb.append("nebula_handler_duration_seconds_count{").append(labels).append("} ").append(count).append('\n');
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package emu.nebula.net;
 
+import us.hebi.quickbuf.ProtoSource;
+
 public abstract class NetHandler {
 
     public boolean requireSession() {
@@ -12,6 +14,11 @@ public abstract class NetHandler {
     
     // Handler
 
-    public abstract byte[] handle(GameSession session, byte[] message) throws Exception;
+    /**
+     * Handles a request from the client
+     * @param session The client session, or null if the handler does not require a session
+     * @param message A view of the request proto inside the decrypted request body
+     */
+    public abstract byte[] handle(GameSession session, ProtoSource message) throws Exception;
 
 }
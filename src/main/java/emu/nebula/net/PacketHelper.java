@@ -61,6 +61,8 @@ public class PacketHelper {
 
     @SneakyThrows
     public static byte[] encodeMsg(int msgId, ProtoMessage<?> proto) {
+        long start = System.nanoTime();
+        
         // Create data array
         byte[] data = new byte[proto.getCachedSize() + 2];
         
@@ -75,6 +77,40 @@ public class PacketHelper {
         // Copy packet to data array
         proto.writeTo(output);
         
+        // Record encode time for handler metrics
+        HandlerMetrics.recordEncode(System.nanoTime() - start);
+        
+        // Complete
+        return data;
+    }
+    
+    /**
+     * Encodes a message from already encoded proto bytes followed by a proto. Both parts must be the same
+     * message type, the client merges them when parsing.
+     */
+    @SneakyThrows
+    public static byte[] encodeMsg(int msgId, byte[] prefix, ProtoMessage<?> proto) {
+        long start = System.nanoTime();
+        
+        // Create data array
+        int size = proto.getSerializedSize();
+        byte[] data = new byte[prefix.length + size + 2];
+        
+        // Encode msgId
+        short id = (short) msgId;
+        data[0] = (byte) (id >> 8);
+        data[1] = (byte) id;
+        
+        // Copy prefix to data array
+        System.arraycopy(prefix, 0, data, 2, prefix.length);
+        
+        // Write proto after the prefix
+        var output = ProtoSink.newInstance(data, prefix.length + 2, size);
+        proto.writeTo(output);
+        
+        // Record encode time for handler metrics
+        HandlerMetrics.recordEncode(System.nanoTime() - start);
+        
         // Complete
         return data;
     }
@@ -33,6 +33,12 @@ public class HttpServer {
     // Cached client diff
     private PatchList patchlist;
     private byte[] diff;
+    
+    // Precomputed responses
+    private final ResponseCache responseCache;
+    
+    // Game packet handler, null if the game server isn't running
+    private AgentZoneHandler agentZoneHandler;
 
     public HttpServer(ServerType type) {
         this.type = type;
@@ -48,6 +54,7 @@ public class HttpServer {
             }
         });
 
+        this.responseCache = new ResponseCache();
         this.loadPatchList();
         this.addRoutes();
     }
@@ -89,6 +96,7 @@ public class HttpServer {
 
         if (!file.exists()) {
             this.diff = ClientDiff.newInstance().toByteArray();
+            this.responseCache.invalidate();
             return;
         }
 
@@ -104,6 +112,9 @@ public class HttpServer {
         if (this.patchlist != null) {
             Nebula.getLogger().info("Loaded patchlist (Data version: " + patchlist.getVersion() + ")");
         }
+        
+        // Server list and diff responses depend on the patch list, so they need to be rebuilt
+        this.responseCache.invalidate();
     }
 
     // Start server
@@ -190,7 +201,13 @@ public class HttpServer {
     }
 
     private void addGameServerRoutes() {
-        getApp().post("/agent-zone-1/", new AgentZoneHandler());
+        this.agentZoneHandler = new AgentZoneHandler();
+        
+        getApp().post("/agent-zone-1/", this.agentZoneHandler);
+        
+        if (Nebula.getConfig().getServerOptions().metricsEndpoint) {
+            getApp().get("/metrics", new MetricsHandler(this.agentZoneHandler.getMetrics()));
+        }
     }
 
     private void notFoundHandler(Context ctx) {
@@ -0,0 +1,255 @@
+package emu.nebula.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPOutputStream;
+
+import emu.nebula.Nebula;
+import emu.nebula.util.AeadHelper;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import lombok.Getter;
+
+/**
+ * Cache for http responses that are the same for every client. Encrypted responses are served from a pool of
+ * payloads that were encrypted ahead of time, each with its own iv. A background thread re-encrypts one pool
+ * entry at a time so clients don't keep getting the same iv.
+ */
+@Getter
+public class ResponseCache {
+    private static final int POOL_SIZE = 8;
+    private static final int REFRESH_INTERVAL = 1000; // Milliseconds
+    private static final int GZIP_MIN_SIZE = 1024;
+
+    private final List<CachedResponse> responses;
+    private final ScheduledExecutorService refresher;
+
+    // Stats
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder notModified;
+
+    public ResponseCache() {
+        this.responses = new CopyOnWriteArrayList<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.notModified = new LongAdder();
+
+        // Start background refresh
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "Response-Cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.refresher.scheduleWithFixedDelay(this::refresh, REFRESH_INTERVAL, REFRESH_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers a cached response. The source is called again whenever the cache is invalidated.
+     * @param source Supplies the unencrypted response body
+     * @param encrypt If the response should be encrypted with the server meta key
+     */
+    public CachedResponse register(Supplier<byte[]> source, ContentType contentType, boolean encrypt) {
+        var response = new CachedResponse(source, contentType, encrypt);
+        this.responses.add(response);
+        return response;
+    }
+
+    /**
+     * Clears all cached responses. They will be rebuilt the next time they are requested.
+     */
+    public void invalidate() {
+        for (var response : this.responses) {
+            response.invalidate();
+        }
+    }
+
+    private void refresh() {
+        for (var response : this.responses) {
+            try {
+                response.refresh();
+            } catch (Exception e) {
+                Nebula.getLogger().error("Error refreshing cached response", e);
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long getNotModifiedCount() {
+        return this.notModified.sum();
+    }
+
+    // Cached response
+
+    public class CachedResponse {
+        private final Supplier<byte[]> source;
+        private final ContentType contentType;
+        private final boolean encrypt;
+
+        private volatile Snapshot snapshot;
+
+        private CachedResponse(Supplier<byte[]> source, ContentType contentType, boolean encrypt) {
+            this.source = source;
+            this.contentType = contentType;
+            this.encrypt = encrypt;
+        }
+
+        public void invalidate() {
+            this.snapshot = null;
+        }
+
+        private Snapshot getSnapshot() throws Exception {
+            var snapshot = this.snapshot;
+
+            if (snapshot != null) {
+                hits.increment();
+                return snapshot;
+            }
+
+            synchronized (this) {
+                // Another request may have built the snapshot while we were waiting
+                if (this.snapshot == null) {
+                    misses.increment();
+                    this.snapshot = new Snapshot(this.source.get(), this.encrypt);
+                } else {
+                    hits.increment();
+                }
+
+                return this.snapshot;
+            }
+        }
+
+        private void refresh() throws Exception {
+            var snapshot = this.snapshot;
+
+            if (snapshot != null && this.encrypt) {
+                snapshot.refresh();
+            }
+        }
+
+        /**
+         * Writes the cached response to the client
+         */
+        public void serve(Context ctx) throws Exception {
+            var snapshot = this.getSnapshot();
+
+            // The body depends on the accepted encodings if there is a gzip version, so caches must keep both
+            boolean gzip = false;
+
+            if (snapshot.getGzip() != null) {
+                ctx.header(Header.VARY, Header.ACCEPT_ENCODING);
+                gzip = acceptsGzip(ctx);
+            }
+
+            // Check etag, each encoding has its own etag
+            var etag = gzip ? snapshot.getGzipEtag() : snapshot.getEtag();
+            ctx.header(Header.ETAG, etag);
+
+            if (etag.equals(ctx.header(Header.IF_NONE_MATCH))) {
+                notModified.increment();
+                ctx.status(304);
+                return;
+            }
+
+            ctx.contentType(this.contentType);
+
+            // Send result
+            if (this.encrypt) {
+                ctx.result(snapshot.nextPayload());
+            } else if (gzip) {
+                ctx.header(Header.CONTENT_ENCODING, "gzip");
+                ctx.result(snapshot.getGzip());
+            } else {
+                ctx.result(snapshot.getData());
+            }
+        }
+    }
+
+    @Getter
+    private static class Snapshot {
+        private final byte[] data;
+        private final byte[] gzip;
+        private final String etag;
+        private final String gzipEtag;
+
+        // Encrypted payloads
+        private final AtomicReferenceArray<byte[]> pool;
+        private final AtomicInteger next;
+
+        public Snapshot(byte[] data, boolean encrypt) throws Exception {
+            this.data = data;
+            this.etag = createEtag(data, "");
+            this.next = new AtomicInteger();
+
+            if (encrypt) {
+                this.gzip = null;
+                this.gzipEtag = null;
+                this.pool = new AtomicReferenceArray<>(POOL_SIZE);
+
+                for (int i = 0; i < POOL_SIZE; i++) {
+                    this.pool.set(i, AeadHelper.encryptCBC(data));
+                }
+            } else {
+                this.gzip = data.length >= GZIP_MIN_SIZE ? gzip(data) : null;
+                this.gzipEtag = this.gzip != null ? createEtag(data, "-gz") : null;
+                this.pool = null;
+            }
+        }
+
+        public byte[] nextPayload() {
+            int index = Math.floorMod(this.next.getAndIncrement(), POOL_SIZE);
+            return this.pool.get(index);
+        }
+
+        /**
+         * Replaces the next payload that will be served with a newly encrypted one
+         */
+        public void refresh() throws Exception {
+            int index = Math.floorMod(this.next.get(), POOL_SIZE);
+            this.pool.set(index, AeadHelper.encryptCBC(this.data));
+        }
+    }
+
+    // Utility
+
+    private static boolean acceptsGzip(Context ctx) {
+        var encoding = ctx.header(Header.ACCEPT_ENCODING);
+        return encoding != null && encoding.contains("gzip");
+    }
+
+    private static String createEtag(byte[] data, String suffix) {
+        var crc = new CRC32C();
+        crc.update(data);
+
+        return "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(data.length) + suffix + "\"";
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        var output = new ByteArrayOutputStream(data.length / 2);
+
+        try (var gzip = new GZIPOutputStream(output)) {
+            gzip.write(data);
+        }
+
+        return output.toByteArray();
+    }
+}
@@ -4,12 +4,13 @@ import emu.nebula.net.NetHandler;
 import emu.nebula.net.NetMsgId;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.achievement_info_req)
 public class HandlerAchievementInfoReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Build response
         var rsp = session.getPlayer().getAchievementManager().toProto();
         
@@ -5,12 +5,13 @@ import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.AchievementRewardReceive.AchievementRewardReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.achievement_reward_receive_req)
 public class HandlerAchievementRewardReceiveReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = AchievementRewardReq.parseFrom(message);
         
@@ -6,12 +6,13 @@ import emu.nebula.proto.ActivityLevelsApply.ActivityLevelsApplyReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.game.activity.type.LevelsActivity;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.activity_levels_apply_req)
 public class HandlerActivityLevelsApplyReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse req
         var req = ActivityLevelsApplyReq.parseFrom(message);
         
@@ -12,12 +12,13 @@ import emu.nebula.game.inventory.ItemParamMap;
 import emu.nebula.net.GameSession;
 
 import java.util.List;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.activity_levels_sweep_req)
 public class HandlerActivityLevelsSweepReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = ActivityLevelsSweepReq.parseFrom(message);
         
@@ -6,12 +6,13 @@ import emu.nebula.proto.ActivityTowerDefenseLevelSettle.ActivityTowerDefenseLeve
 import emu.nebula.net.HandlerId;
 import emu.nebula.game.activity.type.TowerDefenseActivity;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.activity_tower_defense_level_settle_req)
 public class HandlerActivityTowerDefenseLevelSettleReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request proto
         var req = ActivityTowerDefenseLevelSettleReq.parseFrom(message);
 
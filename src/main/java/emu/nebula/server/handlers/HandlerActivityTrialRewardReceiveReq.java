@@ -6,12 +6,13 @@ import emu.nebula.proto.ActivityTrialRewardReceive.ActivityTrialRewardReceiveReq
 import emu.nebula.net.HandlerId;
 import emu.nebula.game.activity.type.TrialActivity;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.activity_trial_reward_receive_req)
 public class HandlerActivityTrialRewardReceiveReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = ActivityTrialRewardReceiveReq.parseFrom(message);
         
@@ -7,12 +7,13 @@ import emu.nebula.proto.AgentApply.AgentApplyResp;
 import emu.nebula.proto.AgentApply.AgentRespInfo;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.agent_apply_req)
 public class HandlerAgentApplyReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = AgentApplyReq.parseFrom(message);
         
@@ -11,13 +11,14 @@ import java.util.ArrayList;
 
 import emu.nebula.game.agent.AgentResult;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.agent_reward_receive_req)
 public class HandlerAgentRewardReceiveReq extends NetHandler {
 
     @Override
     @SuppressWarnings("unchecked")
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = AgentRewardReceiveReq.parseFrom(message);
         
@@ -6,12 +6,13 @@ import emu.nebula.proto.BattlePassQuestRewardReceive.BattlePassQuestRewardResp;
 import emu.nebula.proto.Public.UI32;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.battle_pass_quest_reward_receive_req)
 public class HandlerBattlePassQuestRewardReceiveReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse req
         var req = UI32.parseFrom(message);
         
@@ -5,12 +5,13 @@ import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.Public.UI32;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.char_advance_req)
 public class HandlerCharAdvanceReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         var req = UI32.parseFrom(message);
         
         // Get character
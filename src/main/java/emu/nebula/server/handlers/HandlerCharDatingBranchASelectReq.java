@@ -7,12 +7,13 @@ import emu.nebula.proto.CharDatingBranchASelect.CharDatingBranchASelectResp;
 import emu.nebula.util.Utils;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.char_dating_branch_a_select_req)
 public class HandlerCharDatingBranchASelectReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = CharDatingBranchASelectReq.parseFrom(message);
         
@@ -7,12 +7,13 @@ import emu.nebula.proto.CharDatingGiftSend.CharDatingGiftSendResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.game.inventory.ItemParamMap;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.char_dating_gift_send_req)
 public class HandlerCharDatingGiftSendReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse Request
         var req = CharDatingGiftSendReq.parseFrom(message);
         
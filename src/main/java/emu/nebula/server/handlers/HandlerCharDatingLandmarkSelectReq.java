@@ -6,12 +6,13 @@ import emu.nebula.proto.CharDatingLandmarkSelect.CharDatingLandmarkSelectReq;
 import emu.nebula.proto.CharDatingLandmarkSelect.CharDatingLandmarkSelectResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.char_dating_landmark_select_req)
 public class HandlerCharDatingLandmarkSelectReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse Request
         var req = CharDatingLandmarkSelectReq.parseFrom(message);
         
@@ -6,12 +6,13 @@ import emu.nebula.proto.CharGemInstanceApply.CharGemInstanceApplyReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.data.GameData;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.char_gem_instance_apply_req)
 public class HandlerCharGemInstanceApplyReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = CharGemInstanceApplyReq.parseFrom(message);
         
@@ -13,12 +13,13 @@ import emu.nebula.data.GameData;
 import emu.nebula.game.inventory.ItemParamMap;
 import emu.nebula.game.quest.QuestCondition;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.char_gem_instance_sweep_req)
 public class HandlerCharGemInstanceSweepReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = CharGemInstanceSweepReq.parseFrom(message);
         
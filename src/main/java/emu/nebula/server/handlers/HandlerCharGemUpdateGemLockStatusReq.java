@@ -5,12 +5,13 @@ import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.CharGemUpdateGemLockStatus.CharGemUpdateGemLockStatusReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.char_gem_update_gem_lock_status_req)
 public class HandlerCharGemUpdateGemLockStatusReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = CharGemUpdateGemLockStatusReq.parseFrom(message);
         
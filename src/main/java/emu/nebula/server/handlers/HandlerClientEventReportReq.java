@@ -6,12 +6,13 @@ import emu.nebula.proto.Public.Nil;
 import emu.nebula.net.HandlerId;
 import emu.nebula.game.quest.QuestCondition;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.client_event_report_req)
 public class HandlerClientEventReportReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Interact
         session.getPlayer().trigger(QuestCondition.ClientReport, 1, 1005);
         
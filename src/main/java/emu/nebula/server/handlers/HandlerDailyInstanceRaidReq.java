@@ -13,12 +13,13 @@ import emu.nebula.data.GameData;
 import emu.nebula.game.inventory.ItemParamMap;
 import emu.nebula.game.quest.QuestCondition;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.daily_instance_raid_req)
 public class HandlerDailyInstanceRaidReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = DailyInstanceRaidReq.parseFrom(message);
         
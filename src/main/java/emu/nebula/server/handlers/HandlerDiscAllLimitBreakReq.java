@@ -10,12 +10,13 @@ import java.util.List;
 
 import emu.nebula.game.character.GameDisc;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.disc_all_limit_break_req)
 public class HandlerDiscAllLimitBreakReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Limit break all discs
         var change = session.getPlayer().getCharacters().limitBreakAllDiscs();
         
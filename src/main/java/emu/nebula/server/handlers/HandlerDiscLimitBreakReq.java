@@ -6,12 +6,13 @@ import emu.nebula.proto.DiscLimitBreak.DiscLimitBreakReq;
 import emu.nebula.proto.DiscLimitBreak.DiscLimitBreakResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.disc_limit_break_req)
 public class HandlerDiscLimitBreakReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = DiscLimitBreakReq.parseFrom(message);
         
@@ -6,12 +6,13 @@ import emu.nebula.proto.DiscPromote.DiscPromoteReq;
 import emu.nebula.proto.DiscPromote.DiscPromoteResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.disc_promote_req)
 public class HandlerDiscPromoteReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = DiscPromoteReq.parseFrom(message);
         
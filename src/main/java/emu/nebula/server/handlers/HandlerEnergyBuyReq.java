@@ -6,12 +6,13 @@ import emu.nebula.proto.EnergyBuy.EnergyBuyResp;
 import emu.nebula.proto.Public.UI32;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.energy_buy_req)
 public class HandlerEnergyBuyReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = UI32.parseFrom(message);
         
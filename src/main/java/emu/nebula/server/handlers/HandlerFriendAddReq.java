@@ -5,12 +5,13 @@ import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.FriendAdd.FriendAddReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.friend_add_req)
 public class HandlerFriendAddReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = FriendAddReq.parseFrom(message);
         int uid = (int) req.getUId();
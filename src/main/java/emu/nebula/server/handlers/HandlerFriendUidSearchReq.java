@@ -7,18 +7,19 @@ import emu.nebula.proto.FriendUidSearch.FriendUIdSearchResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.Nebula;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.friend_uid_search_req)
 public class HandlerFriendUidSearchReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = FriendUIdSearchReq.parseFrom(message);
         int uid = (int) req.getId();
         
         // Get target player
-        var target = Nebula.getGameContext().getPlayerModule().getPlayer(uid);
+        var target = Nebula.getGameContext().getPlayerModule().getSummary(uid);
         
         if (target == null) {
             return session.encodeMsg(NetMsgId.friend_uid_search_failed_ack);
@@ -26,7 +27,7 @@ public class HandlerFriendUidSearchReq extends NetHandler {
         
         // Build response
         var rsp = FriendUIdSearchResp.newInstance()
-                .setFriend(target.getFriendProto());
+                .setFriend(target.toProto());
         
         // Encode and send
         return session.encodeMsg(NetMsgId.friend_uid_search_succeed_ack, rsp);
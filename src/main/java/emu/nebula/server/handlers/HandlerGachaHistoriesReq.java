@@ -6,12 +6,13 @@ import emu.nebula.proto.GachaHistoriesOuterClass.GachaHistories;
 import emu.nebula.proto.Public.UI32;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.gacha_histories_req)
 public class HandlerGachaHistoriesReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = UI32.parseFrom(message);
         
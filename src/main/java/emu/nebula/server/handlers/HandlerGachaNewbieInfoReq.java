@@ -6,12 +6,13 @@ import emu.nebula.proto.GachaNewbieInfoOuterClass.GachaNewbieInfo;
 import emu.nebula.proto.GachaNewbieInfoOuterClass.GachaNewbieInfoResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.gacha_newbie_info_req)
 public class HandlerGachaNewbieInfoReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         var rsp = GachaNewbieInfoResp.newInstance();
         
         var info = GachaNewbieInfo.newInstance()
@@ -5,12 +5,13 @@ import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.GachaNewbieObtain.GachaNewbieObtainReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.gacha_newbie_obtain_req)
 public class HandlerGachaNewbieObtainReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         @SuppressWarnings("unused")
         var req = GachaNewbieObtainReq.parseFrom(message);
         
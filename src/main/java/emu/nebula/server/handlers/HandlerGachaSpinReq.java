@@ -9,12 +9,13 @@ import emu.nebula.proto.GachaSpin.GachaCard;
 import emu.nebula.proto.GachaSpin.GachaSpinReq;
 import emu.nebula.proto.GachaSpin.GachaSpinResp;
 import emu.nebula.proto.Public.ItemTpl;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.gacha_spin_req)
 public class HandlerGachaSpinReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = GachaSpinReq.parseFrom(message);
         
@@ -7,6 +7,7 @@ import emu.nebula.proto.Ike.IKEResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.Nebula;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.ike_req)
 public class HandlerIkeReq extends NetHandler {
@@ -22,7 +23,7 @@ public class HandlerIkeReq extends NetHandler {
     }
     
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Make sure we dont already have a session
         if (session != null) {
             return session.encodeMsg(NetMsgId.ike_failed_ack);
@@ -7,12 +7,13 @@ import emu.nebula.proto.InfinityTowerSettle.InfinityTowerSettleResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.game.inventory.ItemParamMap;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.infinity_tower_settle_req)
 public class HandlerInfinityTowerSettleReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = InfinityTowerSettleReq.parseFrom(message);
         
@@ -6,12 +6,13 @@ import emu.nebula.proto.ItemQuickGrowth.ItemGrowthReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.game.player.PlayerChangeInfo;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.item_quick_growth_req)
 public class HandlerItemQuickGrowthReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = ItemGrowthReq.parseFrom(message);
         
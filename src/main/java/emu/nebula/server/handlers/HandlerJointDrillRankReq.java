@@ -0,0 +1,43 @@
+package emu.nebula.server.handlers;
+
+import emu.nebula.net.NetHandler;
+import emu.nebula.net.NetMsgId;
+import emu.nebula.proto.JointDrillRank.JointDrillRankData;
+import emu.nebula.proto.JointDrillRank.JointDrillRankInfo;
+import emu.nebula.game.ranking.RankingModule;
+import emu.nebula.net.HandlerId;
+import emu.nebula.Nebula;
+import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
+
+@HandlerId(NetMsgId.joint_drill_rank_req)
+public class HandlerJointDrillRankReq extends NetHandler {
+
+    @Override
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
+        // Get board
+        var board = Nebula.getGameContext().getRankingModule().getBoard(RankingModule.JOINT_DRILL);
+        var top = board.getTop();
+        
+        // Build response
+        var rsp = JointDrillRankInfo.newInstance()
+                .setLastRefreshTime(board.getLastRefreshTime())
+                .setTotal(board.getTotal());
+        
+        // Get self
+        var self = board.getEntry(session.getPlayer().getUid());
+        
+        if (self != null) {
+            rsp.setSelf(JointDrillRankData.parseFrom(self.getData()).setRank(board.getRank(self.getUid())));
+        }
+        
+        // Add ranking
+        for (int i = 0; i < top.size(); i++) {
+            rsp.addRank(JointDrillRankData.parseFrom(top.get(i).getData()).setRank(i + 1));
+        }
+        
+        // Encode and send
+        return session.encodeMsg(NetMsgId.joint_drill_rank_succeed_ack, rsp);
+    }
+
+}
@@ -1,20 +1,28 @@
 package emu.nebula.server.handlers;
 
+import emu.nebula.game.mail.Mailbox;
 import emu.nebula.net.NetHandler;
 import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.Public.Mails;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.mail_list_req)
 public class HandlerMailListReq extends NetHandler {
+    // The client does not request pages, so only the newest mails are sent
+    private static final int MAIL_LIST_LIMIT = Mailbox.MAX_MAILS;
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
+        // Receive global mails that were sent while the player was online
+        var mailbox = session.getPlayer().getMailbox();
+        mailbox.checkGlobalMail();
+        
         // Build mail list proto
         var rsp = Mails.newInstance();
         
-        for (var mail : session.getPlayer().getMailbox()) {
+        for (var mail : mailbox.getMails(0, MAIL_LIST_LIMIT)) {
             rsp.addList(mail.toProto());
         }
         
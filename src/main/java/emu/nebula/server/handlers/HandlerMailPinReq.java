@@ -6,12 +6,13 @@ import emu.nebula.proto.MailPin.MailPinRequest;
 import emu.nebula.net.HandlerId;
 import emu.nebula.game.mail.GameMail;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.mail_pin_req)
 public class HandlerMailPinReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = MailPinRequest.parseFrom(message);
         
@@ -8,12 +8,13 @@ import it.unimi.dsi.fastutil.ints.IntList;
 import emu.nebula.net.HandlerId;
 import emu.nebula.game.player.PlayerChangeInfo;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.mail_recv_req)
 public class HandlerMailRecvReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = MailRequest.parseFrom(message);
         
@@ -7,12 +7,13 @@ import emu.nebula.proto.MallMonthlycardList.MonthlyCardInfo;
 import emu.nebula.net.HandlerId;
 import emu.nebula.data.GameData;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.mall_monthlyCard_list_req)
 public class HandlerMallMonthlyCardListReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         var rsp = MallMonthlyCardList.newInstance();
         
         for (var data : GameData.getMallMonthlyCardDataTable()) {
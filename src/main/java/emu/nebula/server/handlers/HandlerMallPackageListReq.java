@@ -7,12 +7,13 @@ import emu.nebula.proto.MallPackageListOuterClass.PackageInfo;
 import emu.nebula.net.HandlerId;
 import emu.nebula.data.GameData;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.mall_package_list_req)
 public class HandlerMallPackageListReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         var rsp = MallPackageList.newInstance();
         
         for (var data : GameData.getMallPackageDataTable()) {
@@ -11,12 +11,13 @@ import java.util.concurrent.TimeUnit;
 import emu.nebula.Nebula;
 import emu.nebula.data.GameData;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.mall_shop_list_req)
 public class HandlerMallShopListReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         var rsp = MallShopProductList.newInstance();
         
         long refreshTime = Nebula.getCurrentTime() + TimeUnit.DAYS.toSeconds(30);
@@ -6,12 +6,13 @@ import emu.nebula.proto.MallShopOrder.MallShopOrderReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.data.GameData;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.mall_shop_order_req )
 public class HandlerMallShopOrderReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = MallShopOrderReq.parseFrom(message);
         
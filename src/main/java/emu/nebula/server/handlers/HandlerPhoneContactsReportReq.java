@@ -6,12 +6,13 @@ import emu.nebula.proto.PhoneContactsReport.PhoneContactsReportReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.data.GameData;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.phone_contacts_report_req)
 public class HandlerPhoneContactsReportReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = PhoneContactsReportReq.parseFrom(message);
         
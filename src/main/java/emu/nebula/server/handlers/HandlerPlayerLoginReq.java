@@ -9,6 +9,7 @@ import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.PlayerLogin.LoginReq;
 import emu.nebula.proto.PlayerLogin.LoginResp;
 import emu.nebula.proto.Public.Error;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.player_login_req)
 public class HandlerPlayerLoginReq extends NetHandler {
@@ -18,7 +19,7 @@ public class HandlerPlayerLoginReq extends NetHandler {
     }
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = LoginReq.parseFrom(message);
 
@@ -7,6 +7,7 @@ import emu.nebula.net.HandlerId;
 import emu.nebula.Nebula;
 import emu.nebula.game.player.Player;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.player_reg_req)
 public class HandlerPlayerRegReq extends NetHandler {
@@ -16,7 +17,7 @@ public class HandlerPlayerRegReq extends NetHandler {
     }
     
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = PlayerReg.parseFrom(message);
         
@@ -35,8 +36,11 @@ public class HandlerPlayerRegReq extends NetHandler {
         // Set player for session
         session.setPlayer(player);
         
+        // Dispatch queued triggers first, they may change the cached sections
+        session.checkPlayerStates();
+        
         // Encode player data
-        return session.encodeMsg(NetMsgId.player_data_succeed_ack, session.getPlayer().toProto());
+        return session.encodeMsg(NetMsgId.player_data_succeed_ack, player.getInfoCache().encode(), player.toBaseProto());
     }
 
 }
@@ -8,12 +8,13 @@ import emu.nebula.proto.Public.Error;
 import emu.nebula.net.HandlerId;
 import emu.nebula.Nebula;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.player_signature_edit_req)
 public class HandlerPlayerSignatureEdit extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = PlayerSignatureEditReq.parseFrom(message);
         var signature = req.getSignature();
@@ -24,14 +25,19 @@ public class HandlerPlayerSignatureEdit extends NetHandler {
         
         // Check if we need to handle a command
         if (signature.charAt(0) == '!' || signature.charAt(0) == '/') {
-            var result = Nebula.getCommandManager().invoke(session.getPlayer(), signature);
+            var player = session.getPlayer();
+            var future = Nebula.getCommandManager().invokeAsync(player, signature);
             
-            return session.encodeMsg(
-                    NetMsgId.player_signature_edit_failed_ack,
-                    Error.newInstance()
-                            .setCode(PlayerErrorCode.ErrConfig.getValue())
-                            .addArguments("\nCommand Result: " + result.getMessage())
-            );
+            // Commands on other players run on their executor, send the result with our next response
+            if (!future.isDone()) {
+                future.thenAccept(result -> player.getExecutor().execute(() -> {
+                    player.addNextPackage(NetMsgId.player_signature_edit_failed_ack, toResultProto(result.getMessage()));
+                }));
+                
+                return session.encodeMsg(NetMsgId.player_signature_edit_failed_ack, toResultProto("Command sent"));
+            }
+            
+            return session.encodeMsg(NetMsgId.player_signature_edit_failed_ack, toResultProto(future.join().getMessage()));
         }
         
         // Edit signature
@@ -40,5 +46,11 @@ public class HandlerPlayerSignatureEdit extends NetHandler {
         // Send response
         return session.encodeMsg(NetMsgId.player_signature_edit_succeed_ack);
     }
+    
+    private static Error toResultProto(String message) {
+        return Error.newInstance()
+                .setCode(PlayerErrorCode.ErrConfig.getValue())
+                .addArguments("\nCommand Result: " + message);
+    }
 
 }
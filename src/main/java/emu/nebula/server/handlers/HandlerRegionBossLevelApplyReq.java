@@ -6,12 +6,13 @@ import emu.nebula.proto.RegionBossLevelApply.RegionBossLevelApplyReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.data.GameData;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.region_boss_level_apply_req)
 public class HandlerRegionBossLevelApplyReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = RegionBossLevelApplyReq.parseFrom(message);
         
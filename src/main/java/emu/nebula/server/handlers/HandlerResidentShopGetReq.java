@@ -9,12 +9,13 @@ import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import emu.nebula.net.HandlerId;
 import emu.nebula.data.GameData;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.resident_shop_get_req)
 public class HandlerResidentShopGetReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Get shops
         var shops = new Int2ObjectOpenHashMap<ResidentShop>();
         
@@ -7,12 +7,13 @@ import emu.nebula.proto.ResidentShopPurchase.ResidentShopPurchaseResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.data.GameData;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.resident_shop_purchase_req)
 public class HandlerResidentShopPurchaseReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = ResidentShopPurchaseReq.parseFrom(message);
         
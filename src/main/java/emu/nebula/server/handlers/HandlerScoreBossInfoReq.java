@@ -6,12 +6,13 @@ import emu.nebula.proto.Public.ScoreBossLevel;
 import emu.nebula.proto.ScoreBossInfoOuterClass.ScoreBossInfo;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.score_boss_info_req)
 public class HandlerScoreBossInfoReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Build response
         var rsp = ScoreBossInfo.newInstance()
                 .setControlId(session.getPlayer().getScoreBossManager().getControlId());
@@ -6,38 +6,40 @@ import emu.nebula.proto.ScoreBossRank.ScoreBossRankInfo;
 import emu.nebula.net.HandlerId;
 import emu.nebula.Nebula;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.score_boss_rank_req)
 public class HandlerScoreBossRankReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Build response
         var rsp = ScoreBossRankInfo.newInstance()
                 .setLastRefreshTime(Nebula.getCurrentTime());
         
+        // Get leaderboard
+        var module = Nebula.getGameContext().getScoreBossModule();
+        
         // Get self
         var self = session.getPlayer().getScoreBossManager().getRankEntry();
         
         if (self != null) {
             rsp.setSelf(self.toProto());
+            
+            int rank = module.getRank(self.getPlayerUid());
+            
+            if (rank > 0) {
+                rsp.getMutableSelf().setRank(rank);
+            }
         }
         
-        // Get ranking
-        var ranking = Nebula.getGameContext().getScoreBossModule().getRanking();
-        
-        for (var entry : ranking) {
-            // Check self
-            if (self != null && self.getPlayerUid() == entry.getId()) {
-                rsp.getMutableSelf().setRank(entry.getRank());
-            }
-            
-            // Add to ranking
+        // Add ranking
+        for (var entry : module.getRanking()) {
             rsp.addRank(entry);
         }
         
         // Set total
-        rsp.setTotal(ranking.size());
+        rsp.setTotal(module.getTotal());
         
         // Encode and send
         return session.encodeMsg(NetMsgId.score_boss_rank_succeed_ack, rsp);
@@ -5,12 +5,13 @@ import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.StarTowerBuildLockUnlock.StarTowerBuildLockUnlockReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.star_tower_build_lock_unlock_req)
 public class HandlerStarTowerBuildLockUnlockReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = StarTowerBuildLockUnlockReq.parseFrom(message);
         
@@ -7,12 +7,13 @@ import emu.nebula.proto.StorySetInfo.StorySetInfoResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.data.resources.StorySetSectionDef;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.story_set_info_req)
 public class HandlerStorySetInfoReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Create response
         var rsp = StorySetInfoResp.newInstance();
         
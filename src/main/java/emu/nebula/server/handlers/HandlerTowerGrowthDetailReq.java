@@ -5,12 +5,13 @@ import emu.nebula.net.NetMsgId;
 import emu.nebula.proto.TowerGrowthDetail.TowerGrowthDetailResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.tower_growth_detail_req)
 public class HandlerTowerGrowthDetailReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Build response
         var rsp = TowerGrowthDetailResp.newInstance()
                 .addAllDetail(session.getPlayer().getProgress().getStarTowerGrowth());
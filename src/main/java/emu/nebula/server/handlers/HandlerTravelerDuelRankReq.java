@@ -0,0 +1,42 @@
+package emu.nebula.server.handlers;
+
+import emu.nebula.net.NetHandler;
+import emu.nebula.net.NetMsgId;
+import emu.nebula.proto.TravelerDuelRank.TravelerDuelRankData;
+import emu.nebula.proto.TravelerDuelRank.TravelerDuelRankInfo;
+import emu.nebula.game.ranking.RankingModule;
+import emu.nebula.net.HandlerId;
+import emu.nebula.Nebula;
+import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
+
+@HandlerId(NetMsgId.traveler_duel_rank_req)
+public class HandlerTravelerDuelRankReq extends NetHandler {
+
+    @Override
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
+        // Get board
+        var board = Nebula.getGameContext().getRankingModule().getBoard(RankingModule.TRAVELER_DUEL);
+        var top = board.getTop();
+        
+        // Build response
+        var rsp = TravelerDuelRankInfo.newInstance()
+                .setLastRefreshTime(board.getLastRefreshTime());
+        
+        // Get self
+        var self = board.getEntry(session.getPlayer().getUid());
+        
+        if (self != null) {
+            rsp.setSelf(TravelerDuelRankData.parseFrom(self.getData()).setRank(board.getRank(self.getUid())));
+        }
+        
+        // Add ranking
+        for (int i = 0; i < top.size(); i++) {
+            rsp.addRank(TravelerDuelRankData.parseFrom(top.get(i).getData()).setRank(i + 1));
+        }
+        
+        // Encode and send
+        return session.encodeMsg(NetMsgId.traveler_duel_rank_succeed_ack, rsp);
+    }
+
+}
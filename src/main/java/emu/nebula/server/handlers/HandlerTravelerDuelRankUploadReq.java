@@ -0,0 +1,71 @@
+package emu.nebula.server.handlers;
+
+import emu.nebula.net.NetHandler;
+import emu.nebula.net.NetMsgId;
+import emu.nebula.proto.Public.HonorInfo;
+import emu.nebula.proto.TravelerDuelRank.TravelerDuelRankData;
+import emu.nebula.proto.TravelerDuelRankUpload.RankChange;
+import emu.nebula.proto.TravelerDuelRankUpload.TravelerDuelBattleData;
+import emu.nebula.game.player.Player;
+import emu.nebula.game.ranking.RankingModule;
+import emu.nebula.net.HandlerId;
+import emu.nebula.Nebula;
+import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
+
+@HandlerId(NetMsgId.traveler_duel_rank_upload_req)
+public class HandlerTravelerDuelRankUploadReq extends NetHandler {
+
+    @Override
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
+        // Parse request
+        var req = TravelerDuelBattleData.parseFrom(message);
+        int score = req.getMeta().getScore();
+        
+        if (score <= 0) {
+            return session.encodeMsg(NetMsgId.traveler_duel_rank_upload_failed_ack);
+        }
+        
+        // Get board
+        var player = session.getPlayer();
+        var board = Nebula.getGameContext().getRankingModule().getBoard(RankingModule.TRAVELER_DUEL);
+        var entry = board.getEntry(player.getUid());
+        
+        int oldRank = board.getRank(player.getUid());
+        
+        // Only keep the best score of the season
+        if (entry == null || score > entry.getScore()) {
+            board.put(player.getUid(), score, Nebula.getCurrentTime(), createRankData(player, score).toByteArray());
+        }
+        
+        // Build response
+        var rsp = RankChange.newInstance()
+                .setOld(oldRank)
+                .setNew(board.getRank(player.getUid()));
+        
+        // Encode and send
+        return session.encodeMsg(NetMsgId.traveler_duel_rank_upload_succeed_ack, rsp);
+    }
+    
+    private static TravelerDuelRankData createRankData(Player player, int score) {
+        var summary = player.getSummary();
+        
+        var proto = TravelerDuelRankData.newInstance()
+                .setId(player.getUid())
+                .setNickName(summary.getName())
+                .setWorldClass(summary.getLevel())
+                .setHeadIcon(summary.getHeadIcon())
+                .setTitlePrefix(summary.getTitlePrefix())
+                .setTitleSuffix(summary.getTitleSuffix())
+                .setScore(score);
+        
+        if (summary.getHonor() != null) {
+            for (int id : summary.getHonor()) {
+                proto.addHonors(HonorInfo.newInstance().setId(id));
+            }
+        }
+        
+        return proto;
+    }
+
+}
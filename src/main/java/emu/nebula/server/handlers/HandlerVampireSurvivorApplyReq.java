@@ -6,12 +6,13 @@ import emu.nebula.proto.VampireSurvivorApply.VampireSurvivorApplyReq;
 import emu.nebula.proto.VampireSurvivorApply.VampireSurvivorApplyResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.vampire_survivor_apply_req)
 public class HandlerVampireSurvivorApplyReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = VampireSurvivorApplyReq.parseFrom(message);
         
@@ -7,12 +7,13 @@ import emu.nebula.proto.VampireSurvivorRewardChest.VampireSurvivorRewardChestReq
 import emu.nebula.proto.VampireSurvivorRewardChest.VampireSurvivorRewardChestResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.vampire_survivor_reward_chest_req)
 public class HandlerVampireSurvivorRewardChestReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse req
         var req = VampireSurvivorRewardChestReq.parseFrom(message);
         
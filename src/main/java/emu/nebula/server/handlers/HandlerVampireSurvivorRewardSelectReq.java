@@ -6,12 +6,13 @@ import emu.nebula.proto.VampireSurvivorRewardSelect.VampireSurvivorRewardSelectR
 import emu.nebula.proto.VampireSurvivorRewardSelect.VampireSurvivorRewardSelectResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.vampire_survivor_reward_select_req)
 public class HandlerVampireSurvivorRewardSelectReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse
         var req = VampireSurvivorRewardSelectReq.parseFrom(message);
 
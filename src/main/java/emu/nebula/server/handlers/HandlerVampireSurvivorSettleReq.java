@@ -6,12 +6,13 @@ import emu.nebula.proto.VampireSurvivorSettle.VampireSurvivorSettleReq;
 import emu.nebula.proto.VampireSurvivorSettle.VampireSurvivorSettleResp;
 import emu.nebula.net.HandlerId;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.vampire_survivor_settle_req)
 public class HandlerVampireSurvivorSettleReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = VampireSurvivorSettleReq.parseFrom(message);
         
@@ -6,12 +6,13 @@ import emu.nebula.proto.VampireTalentDetail.VampireTalentDetailResp;
 import emu.nebula.net.HandlerId;
 
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.vampire_talent_detail_req)
 public class HandlerVampireTalentDetailReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Get vampire surv manager
         var manager = session.getPlayer().getVampireSurvivorManager();
         
@@ -6,12 +6,13 @@ import emu.nebula.proto.WeekBossApply.WeekBossApplyReq;
 import emu.nebula.net.HandlerId;
 import emu.nebula.data.GameData;
 import emu.nebula.net.GameSession;
+import us.hebi.quickbuf.ProtoSource;
 
 @HandlerId(NetMsgId.week_boss_apply_req)
 public class HandlerWeekBossApplyReq extends NetHandler {
 
     @Override
-    public byte[] handle(GameSession session, byte[] message) throws Exception {
+    public byte[] handle(GameSession session, ProtoSource message) throws Exception {
         // Parse request
         var req = WeekBossApplyReq.parseFrom(message);
         
@@ -1,13 +1,16 @@
 package emu.nebula.server.routes;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.Set;
 
 import org.reflections.Reflections;
 
 import emu.nebula.Nebula;
+import emu.nebula.data.GameData;
 import emu.nebula.game.GameContext;
 import emu.nebula.net.*;
+import emu.nebula.util.AeadCipher;
 import emu.nebula.util.AeadHelper;
 import emu.nebula.util.Utils;
 import io.javalin.http.Context;
@@ -15,14 +18,17 @@ import io.javalin.http.Handler;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import lombok.Getter;
+import us.hebi.quickbuf.ProtoSource;
 
 @Getter
 public class AgentZoneHandler implements Handler {
     private final Int2ObjectMap<NetHandler> handlers;
+    private final HandlerMetrics metrics;
     private final static byte[] EMPTY_BYTES = new byte[0];
 
     public AgentZoneHandler() {
         this.handlers = new Int2ObjectOpenHashMap<>();
+        this.metrics = new HandlerMetrics();
         this.registerHandlers();
         this.registerDummyHandlers();
     }
@@ -37,8 +43,8 @@ public class AgentZoneHandler implements Handler {
         GameSession session = null;
         
         byte[] sessionKey = AeadHelper.serverGarbleKey;
+        AeadCipher cipher = AeadHelper.getServerGarbleCipher();
         boolean hasKey3 = false;
-        int encryptMethod = 0;
         
         // Get token
         String token = ctx.header("X-Token");
@@ -52,7 +58,7 @@ public class AgentZoneHandler implements Handler {
             session = getGameContext().getSessionByToken(token);
             
             // Uh oh - session not found
-            if (session == null || session.getKey() == null) {
+            if (session == null || session.getCipher() == null) {
                 ctx.status(500);
                 ctx.result("");
                 return;
@@ -60,18 +66,22 @@ public class AgentZoneHandler implements Handler {
             
             // Set key
             sessionKey = session.getKey();
-            encryptMethod = session.getEncryptMethod();
+            cipher = session.getCipher();
             hasKey3 = true;
         }
         
         // Parse request
-        byte[] data = null;
+        ProtoSource data = null;
         int msgId = 0;
+        int requestSize = 0;
+        long decryptTime = 0;
         
         try {
             // Get message
             byte[] message = ctx.bodyAsBytes();
-            int offset = 0;
+            requestSize = message.length;
+            int offset = AeadHelper.IV_SIZE;
+            int length = 0;
             
             // Sanity for malformed packets
             if (message.length <= 12) {
@@ -80,25 +90,30 @@ public class AgentZoneHandler implements Handler {
                 return;
             }
             
-            // Decrypt message
+            // Decrypt message in place, so we dont have to copy the payload around
+            long decryptStart = System.nanoTime();
+            
             if (hasKey3) {
-                message = AeadHelper.decrypt(message, sessionKey, encryptMethod);
-                offset = 10;
+                length = cipher.decrypt(message, 0, message.length);
+                offset += 10;
+                length -= 10;
             } else {
-                message = AeadHelper.decryptBasic(message, sessionKey);
-                message = AeadHelper.decryptGCM(message, sessionKey);
+                AeadHelper.decryptBasicInPlace(message, sessionKey);
+                length = cipher.decrypt(message, 0, message.length);
             }
             
+            decryptTime = System.nanoTime() - decryptStart;
+            
             // Get message id
             msgId = (message[offset++] << 8) | (message[offset++] & 0xff);
+            length -= 2;
             
-            // Set data
-            data = new byte[message.length - offset];
-            System.arraycopy(message, offset, data, 0, data.length);
+            // Set data - handlers read the proto directly from the decrypted message
+            data = ProtoSource.newInstance(message, offset, length);
             
             // Log
             if (Nebula.getConfig().getLogOptions().packets) {
-                this.logRecv(msgId, data);
+                this.logRecv(msgId, message, offset, length);
             }
         } catch (Exception e) {
             // Decrypt error
@@ -116,14 +131,19 @@ public class AgentZoneHandler implements Handler {
         
         // Handle packet
         NetHandler handler = this.handlers.get(msgId);
+        HandlerMetrics.Entry stats = this.metrics.getEntry(msgId);
         byte[] result = null;
     
         try {
             if (handler == null) {
                 Nebula.getLogger().warn("Unhandled request: " + msgId);
+                this.metrics.recordUnhandled();
                 return;
             }
             
+            // Record request
+            stats.recordRequest(requestSize, decryptTime);
+            
             // Check handler requirements
             if (session == null) {
                 if (handler.requireSession()) {
@@ -133,14 +153,27 @@ public class AgentZoneHandler implements Handler {
                 return;
             }
             
-            // Handle data
-            result = handler.handle(session, data);
+            // Handle data with the game data version from when the request started, in case it gets reloaded
+            final var gameSession = session;
+            final var messageData = data;
+            final var snapshot = GameData.getSnapshot();
+            
+            if (session != null) {
+                // Run on the session executor, so requests for the same player are handled one at a time
+                result = session.getExecutor().call(() -> GameData.withSnapshot(snapshot, () -> HandlerMetrics.measure(stats, () -> handler.handle(gameSession, messageData))));
+            } else {
+                result = GameData.withSnapshot(snapshot, () -> HandlerMetrics.measure(stats, () -> handler.handle(null, messageData)));
+            }
         } catch (Exception e) {
             // Handler error
             e.printStackTrace();
         } finally {
             // Send result
             if (result == null) {
+                if (stats != null && handler != null) {
+                    stats.recordError();
+                }
+                
                 ctx.status(500);
                 ctx.result(EMPTY_BYTES);
                 return;
@@ -151,14 +184,17 @@ public class AgentZoneHandler implements Handler {
                 this.logSend(result);
             }
             
-            // Encrypt
-            if (hasKey3) {
-                result = AeadHelper.encrypt(result, sessionKey, encryptMethod);
-            } else {
-                result = AeadHelper.encryptGCM(result, sessionKey);
-                result = AeadHelper.encryptBasic(result, sessionKey);
+            // Encrypt - the encrypted message is written into a single new array, which is then obfuscated in place
+            long encryptStart = System.nanoTime();
+            
+            result = cipher.encrypt(result, 0, result.length);
+            
+            if (!hasKey3) {
+                AeadHelper.encryptBasicInPlace(result, sessionKey);
             }
             
+            stats.recordResponse(result.length, System.nanoTime() - encryptStart);
+            
             // Send to client
             ctx.status(200);
             ctx.result(result);
@@ -168,16 +204,16 @@ public class AgentZoneHandler implements Handler {
             
             // Handle post response events
             if (session != null) {
-                session.afterResponse();
+                session.getExecutor().execute(session::afterResponse);
             }
         }
     }
     
     // Loggers
     
-    private void logRecv(int msgId, byte[] data) {
+    private void logRecv(int msgId, byte[] data, int offset, int length) {
         Nebula.getLogger().info("RECV: " + NetMsgIdUtils.getMsgIdName(msgId) + " (" + msgId + ")");
-        System.out.println(Utils.bytesToHex(data));
+        System.out.println(Utils.bytesToHex(Arrays.copyOfRange(data, offset, offset + length)));
     }
     
     private void logSend(byte[] data) {
@@ -207,6 +243,7 @@ public class AgentZoneHandler implements Handler {
                 if (opcode != 0) {
                     // Put in handler map
                     this.handlers.put(opcode, handler);
+                    this.metrics.register(opcode, false);
                 }
             } catch (Exception e) {
                 e.printStackTrace();
@@ -248,13 +285,14 @@ public class AgentZoneHandler implements Handler {
                     // Create dummy handler
                     var handler = new NetHandler() {
                         @Override
-                        public byte[] handle(GameSession session, byte[] message) throws Exception {
+                        public byte[] handle(GameSession session, ProtoSource message) throws Exception {
                             return PacketHelper.encodeMsg(failedAckId);
                         }
                     };
                     
                     // Add
                     this.handlers.put(msgId, handler);
+                    this.metrics.register(msgId, true);
                     
                     // Increment count
                     count++;
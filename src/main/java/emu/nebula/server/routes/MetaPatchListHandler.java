@@ -3,7 +3,7 @@ package emu.nebula.server.routes;
 import org.jetbrains.annotations.NotNull;
 
 import emu.nebula.server.HttpServer;
-import emu.nebula.util.AeadHelper;
+import emu.nebula.server.ResponseCache.CachedResponse;
 import emu.nebula.util.Utils;
 import io.javalin.http.ContentType;
 import io.javalin.http.Context;
@@ -14,26 +14,30 @@ import lombok.Getter;
 @Getter(AccessLevel.PRIVATE)
 public class MetaPatchListHandler implements Handler {
     private HttpServer server;
+    private CachedResponse response;
     
     public MetaPatchListHandler(HttpServer server) {
         this.server = server;
+        
+        // Patch list is encrypted ahead of time and rebuilt when the patch list is reloaded
+        this.response = server.getResponseCache().register(
+                () -> server.getDiff(),
+                ContentType.APPLICATION_OCTET_STREAM,
+                true
+        );
     }
 
     @Override
     public void handle(@NotNull Context ctx) throws Exception {
-        // Get diff
-        var diffBytes = this.getServer().getDiff();
-        
         // Sanity check
-        if (diffBytes == null) {
+        if (this.getServer().getDiff() == null) {
             ctx.contentType(ContentType.APPLICATION_OCTET_STREAM);
             ctx.result(Utils.EMPTY_BYTE_ARRAY);
             return;
         }
         
-        // Encrypt patch list
-        ctx.contentType(ContentType.APPLICATION_OCTET_STREAM);
-        ctx.result(AeadHelper.encryptCBC(diffBytes));
+        // Send encrypted patch list
+        this.getResponse().serve(ctx);
     }
 
 }
@@ -5,7 +5,7 @@ import org.jetbrains.annotations.NotNull;
 import emu.nebula.proto.Pb.ServerAgent;
 import emu.nebula.proto.Pb.ServerListMeta;
 import emu.nebula.server.HttpServer;
-import emu.nebula.util.AeadHelper;
+import emu.nebula.server.ResponseCache.CachedResponse;
 import io.javalin.http.ContentType;
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
@@ -15,14 +15,22 @@ import lombok.Getter;
 @Getter(AccessLevel.PRIVATE)
 public class MetaServerlistHandler implements Handler {
     private HttpServer server;
-    private ServerListMeta list;
-    private byte[] proto;
+    private CachedResponse response;
 
     public MetaServerlistHandler(HttpServer server) {
         this.server = server;
         
+        // Server list is encrypted ahead of time and rebuilt when the patch list is reloaded
+        this.response = server.getResponseCache().register(
+                this::createServerList,
+                ContentType.APPLICATION_OCTET_STREAM,
+                true
+        );
+    }
+    
+    private byte[] createServerList() {
         // Create server list
-        this.list = ServerListMeta.newInstance()
+        var list = ServerListMeta.newInstance()
                 .setVersion(server.getDataVersion())
                 .setReportEndpoint(server.getServerConfig().getDisplayAddress() + "/report");
         
@@ -32,18 +40,17 @@ public class MetaServerlistHandler implements Handler {
                 .setStatus(1)
                 .setZone(1);
         
-        this.list.addAgent(agent);
+        list.addAgent(agent);
         
-        // Cache proto
-        this.proto = list.toByteArray();
+        // Serialize proto
+        return list.toByteArray();
     }
 
     @Override
     public void handle(@NotNull Context ctx) throws Exception {
         // Result
         try {
-            ctx.contentType(ContentType.APPLICATION_OCTET_STREAM);
-            ctx.result(AeadHelper.encryptCBC(this.getProto()));
+            this.getResponse().serve(ctx);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -0,0 +1,45 @@
+package emu.nebula.server.routes;
+
+import org.jetbrains.annotations.NotNull;
+
+import emu.nebula.Nebula;
+import emu.nebula.net.HandlerMetrics;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+
+/**
+ * Exposes handler metrics and database profiler results in the Prometheus text format. Only requests from the local machine are answered.
+ */
+public class MetricsHandler implements Handler {
+    private final HandlerMetrics metrics;
+
+    public MetricsHandler(HandlerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(@NotNull Context ctx) throws Exception {
+        if (!isLocal(ctx.ip())) {
+            ctx.status(404);
+            ctx.result("");
+            return;
+        }
+
+        var sb = new StringBuilder(this.metrics.toPrometheus());
+
+        // Database profiler
+        var database = Nebula.getGameDatabase();
+
+        if (database != null && database.getProfiler().isEnabled()) {
+            database.getProfiler().writePrometheus(sb);
+        }
+
+        ctx.status(200);
+        ctx.contentType("text/plain; version=0.0.4; charset=utf-8");
+        ctx.result(sb.toString());
+    }
+
+    private static boolean isLocal(String ip) {
+        return ip.equals("127.0.0.1") || ip.equals("0:0:0:0:0:0:0:1") || ip.equals("::1");
+    }
+}
@@ -0,0 +1,90 @@
+package emu.nebula.util;
+
+import java.security.spec.AlgorithmParameterSpec;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+/**
+ * Pre-keyed AES-GCM/ChaCha20-Poly1305 cipher context. The cipher instances and key spec are created once and
+ * reused for every message, so we skip the provider lookup and key setup on each packet.
+ * Messages are laid out as [iv][encrypted data][tag].
+ */
+@Getter
+public class AeadCipher {
+    static final String GCM = "AES/GCM/NoPadding";
+    static final String CHACHA = "ChaCha20-Poly1305/None/NoPadding";
+    
+    private final int method; // 0 = gcm, 1 = chacha20
+    private final SecretKeySpec key;
+    private final Cipher encryptCipher;
+    private final Cipher decryptCipher;
+
+    public AeadCipher(byte[] key, int method) {
+        this.method = method;
+        this.key = createKey(key, method);
+        this.encryptCipher = createCipher(method);
+        this.decryptCipher = createCipher(method);
+    }
+
+    /**
+     * Encrypts part of the array into a new array
+     */
+    public byte[] encrypt(byte[] messageData, int offset, int length) throws Exception {
+        synchronized (this.encryptCipher) {
+            return encrypt(this.encryptCipher, this.key, this.method, messageData, offset, length);
+        }
+    }
+
+    /**
+     * Decrypts a message in place. The decrypted data starts at offset + IV_SIZE.
+     * @return The length of the decrypted data
+     */
+    public int decrypt(byte[] data, int offset, int length) throws Exception {
+        synchronized (this.decryptCipher) {
+            return decrypt(this.decryptCipher, this.key, this.method, data, offset, length);
+        }
+    }
+    
+    // Shared with the static helpers in AeadHelper, which bring their own cipher instance
+    
+    static SecretKeySpec createKey(byte[] key, int method) {
+        return new SecretKeySpec(key, method == 1 ? "ChaCha20" : "AES");
+    }
+    
+    @SneakyThrows
+    static Cipher createCipher(int method) {
+        return Cipher.getInstance(method == 1 ? CHACHA : GCM);
+    }
+
+    private static AlgorithmParameterSpec createParams(int method, byte[] data, int offset) {
+        if (method == 1) {
+            return new IvParameterSpec(data, offset, AeadHelper.IV_SIZE);
+        } else {
+            return new GCMParameterSpec(128, data, offset, AeadHelper.IV_SIZE);
+        }
+    }
+    
+    static byte[] encrypt(Cipher cipher, SecretKeySpec key, int method, byte[] messageData, int offset, int length) throws Exception {
+        byte[] data = AeadHelper.createEncryptOutput(length);
+        
+        cipher.init(Cipher.ENCRYPT_MODE, key, createParams(method, data, 0));
+        cipher.updateAAD(data, 0, AeadHelper.IV_SIZE);
+        cipher.doFinal(messageData, offset, length, data, AeadHelper.IV_SIZE);
+        
+        return data;
+    }
+    
+    static int decrypt(Cipher cipher, SecretKeySpec key, int method, byte[] data, int offset, int length) throws Exception {
+        cipher.init(Cipher.DECRYPT_MODE, key, createParams(method, data, offset));
+        cipher.updateAAD(data, offset, AeadHelper.IV_SIZE);
+        
+        int start = offset + AeadHelper.IV_SIZE;
+        return cipher.doFinal(data, start, length - AeadHelper.IV_SIZE, data, start);
+    }
+}
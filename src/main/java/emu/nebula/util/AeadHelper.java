@@ -3,9 +3,9 @@ package emu.nebula.util;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.util.Arrays;
 
 import javax.crypto.Cipher;
-import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
@@ -20,15 +20,24 @@ import org.bouncycastle.crypto.params.*;
 
 import emu.nebula.Nebula;
 import emu.nebula.RegionConfig;
+import lombok.Getter;
+import lombok.SneakyThrows;
 
 // Official Name: AeadTool
 public class AeadHelper {
-    private static final ThreadLocal<SecureRandom> random = new ThreadLocal<>() {
-        @Override
-        protected SecureRandom initialValue() {
-            return new SecureRandom();
-        }
-    };
+    public static final int IV_SIZE = 12;
+    public static final int TAG_SIZE = 16;
+    
+    // Shared between threads, requests run on virtual threads so thread locals would never be reused
+    private static final SecureRandom random = new SecureRandom();
+    
+    // Cached cipher contexts
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    private static final CipherPool<Cipher> cbcCipher = new CipherPool<>(POOL_SIZE, AeadHelper::createCBCCipher);
+    private static final CipherPool<Cipher> gcmCipher = new CipherPool<>(POOL_SIZE, () -> AeadCipher.createCipher(0));
+    private static final CipherPool<Cipher> chachaCipher = new CipherPool<>(POOL_SIZE, () -> AeadCipher.createCipher(1));
+    private static SecretKeySpec serverMetaKeySpec;
+    @Getter private static AeadCipher serverGarbleCipher;
     
     public static byte[] serverGarbleKey = null;
     public static byte[] serverMetaKey = null;
@@ -56,27 +65,48 @@ public class AeadHelper {
     }
     
     public static void loadKeys() {
+        loadKeys(Nebula.getConfig().getRegion());
+    }
+    
+    public static void loadKeys(String regionName) {
         // Get key data
-        var region = RegionConfig.getRegion(Nebula.getConfig().getRegion());
+        var region = RegionConfig.getRegion(regionName);
         
         // Set keys
         serverMetaKey = region.getServerMetaKey().getBytes(StandardCharsets.US_ASCII);
         serverGarbleKey = region.getServerGarbleKey().getBytes(StandardCharsets.US_ASCII);
+        
+        // Create cipher contexts
+        serverMetaKeySpec = new SecretKeySpec(serverMetaKey, "AES");
+        
+        serverGarbleCipher = new AeadCipher(serverGarbleKey, 0);
+    }
+    
+    @SneakyThrows
+    private static Cipher createCBCCipher() {
+        return Cipher.getInstance("AES/CBC/PKCS5Padding");
     }
     
     public static byte[] generateBytes(int size) {
         byte[] iv = new byte[size];
-        random.get().nextBytes(iv);
+        random.nextBytes(iv);
         return iv; 
     }
     
     //
 
     public static byte[] encrypt(byte[] data, byte[] sessionKey, int method) throws Exception {
+        return encrypt(data, 0, data.length, sessionKey, method);
+    }
+    
+    /**
+     * Encrypts part of the array into a new array that is laid out as [iv][encrypted data][tag]
+     */
+    public static byte[] encrypt(byte[] data, int offset, int length, byte[] sessionKey, int method) throws Exception {
         if (method == 1) {
-            return encryptChaCha(data, sessionKey);
+            return encryptChaCha(data, offset, length, sessionKey);
         } else {
-            return encryptGCM(data, sessionKey);
+            return encryptGCM(data, offset, length, sessionKey);
         }
     }
     
@@ -88,134 +118,155 @@ public class AeadHelper {
         }
     }
     
+    /**
+     * Decrypts a [iv][encrypted data][tag] message in place. The decrypted data starts at offset + IV_SIZE.
+     * @return The length of the decrypted data
+     */
+    public static int decryptInPlace(byte[] data, int offset, int length, byte[] sessionKey, int method) throws Exception {
+        if (method == 1) {
+            return decryptChaCha(data, offset, length, sessionKey);
+        } else {
+            return decryptGCM(data, offset, length, sessionKey);
+        }
+    }
+    
+    private static byte[] copyDecrypted(byte[] data, int length) {
+        byte[] result = new byte[length];
+        System.arraycopy(data, IV_SIZE, result, 0, length);
+        return result;
+    }
+    
+    /**
+     * Creates the output array for an encrypted message and writes a random iv to the start of it
+     */
+    static byte[] createEncryptOutput(int length) {
+        byte[] iv = generateBytes(IV_SIZE);
+        
+        byte[] data = new byte[IV_SIZE + length + TAG_SIZE];
+        System.arraycopy(iv, 0, data, 0, IV_SIZE);
+        
+        return data;
+    }
+    
     // AES CBC
 
     public static byte[] encryptCBC(byte[] messageData) throws Exception {
         byte[] iv = generateBytes(16);
         
-        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        Cipher cipher = cbcCipher.acquire();
+        byte[] data;
+        int length;
         
-        cipher.init(
-            Cipher.ENCRYPT_MODE,
-            new SecretKeySpec(serverMetaKey, "AES"),
-            new IvParameterSpec(iv)
-        );
-
-        byte[] encrypted = cipher.doFinal(messageData);
-        byte[] data = new byte[encrypted.length + iv.length];
+        try {
+            cipher.init(
+                Cipher.ENCRYPT_MODE,
+                serverMetaKeySpec,
+                new IvParameterSpec(iv)
+            );
+            
+            data = new byte[iv.length + cipher.getOutputSize(messageData.length)];
+            System.arraycopy(iv, 0, data, 0, iv.length);
+            
+            length = iv.length + cipher.doFinal(messageData, 0, messageData.length, data, iv.length);
+        } finally {
+            cbcCipher.release(cipher);
+        }
         
-        System.arraycopy(iv, 0, data, 0, iv.length);
-        System.arraycopy(encrypted, 0, data, iv.length, encrypted.length);
+        // Output size is an upper bound, so trim if needed
+        if (length != data.length) {
+            data = Arrays.copyOf(data, length);
+        }
         
         return data;
     }
     
     public static byte[] decryptCBC(byte[] messageData) throws Exception {
-        byte[] iv = new byte[16];
-        byte[] data = new byte[messageData.length - iv.length];
-        
-        System.arraycopy(messageData, 0, iv, 0, iv.length);
-        System.arraycopy(messageData, iv.length, data, 0, data.length);
-        
-        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-        
-        cipher.init(
-            Cipher.DECRYPT_MODE,
-            new SecretKeySpec(serverMetaKey, "AES"),
-            new IvParameterSpec(iv)
-        );
-
-        return cipher.doFinal(data);
+        Cipher cipher = cbcCipher.acquire();
+        
+        try {
+            cipher.init(
+                Cipher.DECRYPT_MODE,
+                serverMetaKeySpec,
+                new IvParameterSpec(messageData, 0, 16)
+            );
+            
+            return cipher.doFinal(messageData, 16, messageData.length - 16);
+        } finally {
+            cbcCipher.release(cipher);
+        }
     }
     
     // AES GCM
     
     public static byte[] encryptGCM(byte[] messageData, byte[] key) throws Exception {
-        byte[] iv = generateBytes(12);
-        
-        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-        
-        cipher.init(
-            Cipher.ENCRYPT_MODE, 
-            new SecretKeySpec(key, "AES"), 
-            new GCMParameterSpec(128, iv)
-        );
-        cipher.updateAAD(iv);
-
-        byte[] encrypted = cipher.doFinal(messageData);
-        byte[] data = new byte[encrypted.length + iv.length];
-        
-        System.arraycopy(iv, 0, data, 0, iv.length);
-        System.arraycopy(encrypted, 0, data, iv.length, encrypted.length);
+        return encryptGCM(messageData, 0, messageData.length, key);
+    }
+    
+    public static byte[] encryptGCM(byte[] messageData, int offset, int length, byte[] key) throws Exception {
+        Cipher cipher = gcmCipher.acquire();
         
-        return data;
+        try {
+            return AeadCipher.encrypt(cipher, AeadCipher.createKey(key, 0), 0, messageData, offset, length);
+        } finally {
+            gcmCipher.release(cipher);
+        }
     }
     
     public static byte[] decryptGCM(byte[] messageData, byte[] key) throws Exception {
-        byte[] iv = new byte[12];
-        byte[] data = new byte[messageData.length - iv.length];
-        System.arraycopy(messageData, 0, iv, 0, iv.length);
-        System.arraycopy(messageData, iv.length, data, 0, data.length);
-        
-        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-        
-        cipher.init(
-            Cipher.DECRYPT_MODE, 
-            new SecretKeySpec(key, "AES"), 
-            new GCMParameterSpec(128, iv)
-        );
-        cipher.updateAAD(iv);
-
-        return cipher.doFinal(data);
+        byte[] data = messageData.clone();
+        return copyDecrypted(data, decryptGCM(data, 0, data.length, key));
+    }
+    
+    public static int decryptGCM(byte[] data, int offset, int length, byte[] key) throws Exception {
+        Cipher cipher = gcmCipher.acquire();
+        
+        try {
+            return AeadCipher.decrypt(cipher, AeadCipher.createKey(key, 0), 0, data, offset, length);
+        } finally {
+            gcmCipher.release(cipher);
+        }
     }
     
     // Chacha20
     
     public static byte[] encryptChaCha(byte[] messageData, byte[] key) throws Exception {
-        byte[] iv = generateBytes(12);
-
-        Cipher cipher = Cipher.getInstance("ChaCha20-Poly1305/None/NoPadding");
-        
-        cipher.init(
-            Cipher.ENCRYPT_MODE, 
-            new SecretKeySpec(key, "ChaCha20"),
-            new IvParameterSpec(iv)
-        );
-        cipher.updateAAD(iv);
-        
-        byte[] encrypted = cipher.doFinal(messageData);
-        byte[] data = new byte[encrypted.length + iv.length];
-        
-        System.arraycopy(iv, 0, data, 0, iv.length);
-        System.arraycopy(encrypted, 0, data, iv.length, encrypted.length);
+        return encryptChaCha(messageData, 0, messageData.length, key);
+    }
+    
+    public static byte[] encryptChaCha(byte[] messageData, int offset, int length, byte[] key) throws Exception {
+        Cipher cipher = chachaCipher.acquire();
         
-        return data;
+        try {
+            return AeadCipher.encrypt(cipher, AeadCipher.createKey(key, 1), 1, messageData, offset, length);
+        } finally {
+            chachaCipher.release(cipher);
+        }
     }
     
     public static byte[] decryptChaCha(byte[] messageData, byte[] key) throws Exception {
-        byte[] iv = new byte[12];
-        byte[] data = new byte[messageData.length - iv.length];
-        System.arraycopy(messageData, 0, iv, 0, iv.length);
-        System.arraycopy(messageData, iv.length, data, 0, data.length);
-
-        Cipher cipher = Cipher.getInstance("ChaCha20-Poly1305/None/NoPadding");
-        
-        cipher.init(
-            Cipher.DECRYPT_MODE, 
-            new SecretKeySpec(key, "ChaCha20"),
-            new IvParameterSpec(iv)
-        );
-        cipher.updateAAD(iv);
+        byte[] data = messageData.clone();
+        return copyDecrypted(data, decryptChaCha(data, 0, data.length, key));
+    }
+    
+    public static int decryptChaCha(byte[] data, int offset, int length, byte[] key) throws Exception {
+        Cipher cipher = chachaCipher.acquire();
         
-        return cipher.doFinal(data);
+        try {
+            return AeadCipher.decrypt(cipher, AeadCipher.createKey(key, 1), 1, data, offset, length);
+        } finally {
+            chachaCipher.release(cipher);
+        }
     }
     
     // XOR
     
     public static byte[] encryptBasic(byte[] messageData, byte[] key3) {
-        byte[] data = new byte[messageData.length];
-        System.arraycopy(messageData, 0, data, 0, data.length);
-        
+        byte[] data = messageData.clone();
+        encryptBasicInPlace(data, key3);
+        return data;
+    }
+    
+    public static void encryptBasicInPlace(byte[] data, byte[] key3) {
         for (int i = 0; i < data.length; i++) {
             data[i] ^= key3[i % key3.length];
             
@@ -228,14 +279,15 @@ public class AeadHelper {
             
             data[i] ^= data.length;
         }
-        
-        return data;
     }
     
     public static byte[] decryptBasic(byte[] messageData, byte[] key3) {
-        byte[] data = new byte[messageData.length];
-        System.arraycopy(messageData, 0, data, 0, data.length);
-        
+        byte[] data = messageData.clone();
+        decryptBasicInPlace(data, key3);
+        return data;
+    }
+    
+    public static void decryptBasicInPlace(byte[] data, byte[] key3) {
         for (int i = 0; i < data.length; i++) {
             data[i] ^= data.length;
             
@@ -248,8 +300,6 @@ public class AeadHelper {
             
             data[i] ^= key3[i % key3.length];
         }
-        
-        return data;
     }
     
     // ECDH
@@ -259,13 +309,30 @@ public class AeadHelper {
         
         var p = NISTNamedCurves.getByName("P-256");
         var domainParams = new ECDomainParameters(p.getCurve(), p.getG(), p.getN(), p.getH());
-        var genParams = new ECKeyGenerationParameters(domainParams, random.get());
+        var genParams = new ECKeyGenerationParameters(domainParams, random);
         
         generator.init(genParams);
         return generator.generateKeyPair();
     }
     
+    /**
+     * Creates the session key on the server side of the key exchange
+     */
     public static byte[] generateKey(byte[] clientPublic, byte[] serverPublic, byte[] serverPrivate) {
+        return deriveKey(calcECDHSharedKey(clientPublic, serverPrivate), clientPublic, serverPublic);
+    }
+    
+    /**
+     * Creates the session key on the client side of the key exchange. Used by tools that connect to the server.
+     */
+    public static byte[] generateClientKey(byte[] clientPublic, byte[] clientPrivate, byte[] serverPublic) {
+        return deriveKey(calcECDHSharedKey(serverPublic, clientPrivate), clientPublic, serverPublic);
+    }
+    
+    /**
+     * Derives the session key from the ECDH shared secret. The same on both sides of the key exchange.
+     */
+    public static byte[] deriveKey(byte[] sharedKey, byte[] clientPublic, byte[] serverPublic) {
         // Setup
         byte[] ikm = new byte[32];
         byte[] salt = serverPublic;
@@ -283,7 +350,6 @@ public class AeadHelper {
             info[i] = (byte) (s ^ c);
         }
         
-        var sharedKey = calcECDHSharedKey(clientPublic, serverPrivate);
         int count = Math.min(sharedKey.length, 32);
         System.arraycopy(sharedKey, 0, ikm, 32 - count, count);
         
@@ -299,20 +365,23 @@ public class AeadHelper {
         return output;
     }
     
-    public static byte[] calcECDHSharedKey(byte[] clientPublic, byte[] serverPrivate) {
+    /**
+     * Calculates the ECDH shared secret from the other side's public key and our own private key
+     */
+    public static byte[] calcECDHSharedKey(byte[] publicKey, byte[] privateKey) {
         var p = SECNamedCurves.getByName("secp256r1");
         var domainParams = new ECDomainParameters(p.getCurve(), p.getG(), p.getN(), p.getH(), p.getSeed());
         
-        var clientPoint = p.getCurve().decodePoint(clientPublic);
-        var clientParams = new ECPublicKeyParameters(clientPoint, domainParams);
+        var publicPoint = p.getCurve().decodePoint(publicKey);
+        var publicParams = new ECPublicKeyParameters(publicPoint, domainParams);
         
-        var serverInteger = new BigInteger(serverPrivate);
-        var serverParams = new ECPrivateKeyParameters(serverInteger, domainParams);
+        var privateInteger = new BigInteger(privateKey);
+        var privateParams = new ECPrivateKeyParameters(privateInteger, domainParams);
         
         var agreement = new ECDHBasicAgreement();
-        agreement.init(serverParams);
+        agreement.init(privateParams);
         
-        var result = agreement.calculateAgreement(clientParams);
+        var result = agreement.calculateAgreement(publicParams);
         
         return getUnsignedByteArray(result);
     }
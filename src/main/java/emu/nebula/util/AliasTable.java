@@ -0,0 +1,112 @@
+package emu.nebula.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Immutable weighted sampler using Vose's alias method. Building the table is O(n), after that every draw is
+ * O(1) and doesn't allocate. Draws return the index of the weight that was picked.
+ */
+public final class AliasTable {
+    private final double[] prob;
+    private final int[] alias;
+    
+    public AliasTable(double[] weights) {
+        this(weights, weights.length);
+    }
+    
+    public AliasTable(double[] weights, int size) {
+        this.prob = new double[size];
+        this.alias = new int[size];
+        
+        if (size == 0) {
+            return;
+        }
+        
+        // Get total weight
+        double total = 0;
+        
+        for (int i = 0; i < size; i++) {
+            total += weights[i];
+        }
+        
+        // Scale weights so that the average is 1
+        var scaled = new double[size];
+        var small = new int[size];
+        var large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / total;
+            
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        
+        // Pair each small weight with a large one
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            
+            this.prob[less] = scaled[less];
+            this.alias[less] = more;
+            
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        
+        // Whatever is left over is (within rounding error) exactly 1
+        while (largeCount > 0) {
+            this.prob[large[--largeCount]] = 1.0;
+        }
+        
+        while (smallCount > 0) {
+            this.prob[small[--smallCount]] = 1.0;
+        }
+    }
+    
+    public int size() {
+        return this.prob.length;
+    }
+    
+    /**
+     * Returns a random index, or -1 if the table is empty
+     */
+    public int next() {
+        return this.next(ThreadLocalRandom.current());
+    }
+    
+    public int next(RandomGenerator random) {
+        if (this.prob.length == 0) {
+            return -1;
+        }
+        
+        int index = random.nextInt(this.prob.length);
+        return random.nextDouble() < this.prob[index] ? index : this.alias[index];
+    }
+    
+    /**
+     * Draws multiple random indexes. Used for ten-pulls and sweeps.
+     */
+    public void sample(int count, IntConsumer consumer) {
+        if (this.prob.length == 0) {
+            return;
+        }
+        
+        var random = ThreadLocalRandom.current();
+        
+        for (int i = 0; i < count; i++) {
+            consumer.accept(this.next(random));
+        }
+    }
+}
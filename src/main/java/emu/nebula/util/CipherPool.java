@@ -0,0 +1,28 @@
+package emu.nebula.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * Small bounded pool of reusable cipher instances. Requests run on virtual threads, so thread locals would create
+ * a new instance for every request. Instances are created on demand when the pool is empty, and dropped if the
+ * pool is full when they are released.
+ */
+public class CipherPool<T> {
+    private final ArrayBlockingQueue<T> pool;
+    private final Supplier<T> factory;
+
+    public CipherPool(int size, Supplier<T> factory) {
+        this.pool = new ArrayBlockingQueue<>(size);
+        this.factory = factory;
+    }
+
+    public T acquire() {
+        var instance = this.pool.poll();
+        return instance != null ? instance : this.factory.get();
+    }
+
+    public void release(T instance) {
+        this.pool.offer(instance);
+    }
+}
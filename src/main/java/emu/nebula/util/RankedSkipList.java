@@ -0,0 +1,307 @@
+package emu.nebula.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+
+/**
+ * Indexable skip list for leaderboards. Entries are ordered by score (highest first), then by the time the
+ * score was set (earliest first), then by id. Every link stores how many entries it skips, so rank lookups and
+ * lookups by rank are O(log n) instead of a walk through the whole list. Ranks start at 1.
+ * <p>
+ * Not thread safe, the owner is expected to synchronize access.
+ */
+public class RankedSkipList {
+    private static final int MAX_LEVEL = 32;
+
+    private final Node head;
+    private final Int2ObjectMap<Node> nodes;
+    private int level;
+
+    public RankedSkipList() {
+        this.head = new Node(0, 0, 0, MAX_LEVEL);
+        this.nodes = new Int2ObjectOpenHashMap<>();
+        this.level = 1;
+    }
+
+    public int size() {
+        return this.nodes.size();
+    }
+
+    public boolean contains(int id) {
+        return this.nodes.containsKey(id);
+    }
+
+    public long getScore(int id) {
+        var node = this.nodes.get(id);
+        return node != null ? node.score : 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            this.head.next[i] = null;
+            this.head.span[i] = 0;
+        }
+
+        this.nodes.clear();
+        this.level = 1;
+    }
+
+    /**
+     * Adds an entry, or moves it if the id is already in the list
+     * @param time When the score was set, earlier times rank higher on ties
+     */
+    public void put(int id, long score, long time) {
+        var node = this.nodes.get(id);
+
+        if (node != null) {
+            // Skip if nothing changed
+            if (node.score == score && node.time == time) {
+                return;
+            }
+
+            this.nodes.remove(id);
+            this.delete(node);
+        }
+
+        this.nodes.put(id, this.insert(id, score, time));
+    }
+
+    public boolean remove(int id) {
+        var node = this.nodes.remove(id);
+
+        if (node == null) {
+            return false;
+        }
+
+        this.delete(node);
+        return true;
+    }
+
+    /**
+     * Returns the rank of an entry, or 0 if the id is not in the list
+     */
+    public int getRank(int id) {
+        var node = this.nodes.get(id);
+
+        if (node == null) {
+            return 0;
+        }
+
+        var x = this.head;
+        int rank = 0;
+
+        for (int i = this.level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], node.score, node.time, node.id) <= 0) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+
+            if (x == node) {
+                return rank;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns how many entries rank before the given score/time/id. The entry does not need to be in the list.
+     */
+    public int countBefore(long score, long time, int id) {
+        var x = this.head;
+        int count = 0;
+
+        for (int i = this.level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], score, time, id) < 0) {
+                count += x.span[i];
+                x = x.next[i];
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the id of the entry at the rank, or -1 if the rank is out of bounds
+     */
+    public int getIdByRank(int rank) {
+        var node = this.getNodeByRank(rank);
+        return node != null ? node.id : -1;
+    }
+
+    /**
+     * Returns the ids of up to count entries, starting from the given rank
+     */
+    public IntList getRange(int fromRank, int count) {
+        var ids = new IntArrayList(Math.max(Math.min(count, this.size() - fromRank + 1), 0));
+        var node = this.getNodeByRank(Math.max(fromRank, 1));
+
+        while (node != null && ids.size() < count) {
+            ids.add(node.id);
+            node = node.next[0];
+        }
+
+        return ids;
+    }
+
+    /**
+     * Returns the ids of the entries around an entry, including the entry itself
+     * @param radius How many entries above and below to include
+     */
+    public IntList getNeighbors(int id, int radius) {
+        int rank = this.getRank(id);
+
+        if (rank == 0) {
+            return new IntArrayList();
+        }
+
+        int from = Math.max(rank - radius, 1);
+        return this.getRange(from, rank + radius - from + 1);
+    }
+
+    // Internal
+
+    private Node getNodeByRank(int rank) {
+        if (rank < 1 || rank > this.size()) {
+            return null;
+        }
+
+        var x = this.head;
+        int traversed = 0;
+
+        for (int i = this.level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+
+            if (traversed == rank) {
+                return x;
+            }
+        }
+
+        return null;
+    }
+
+    private Node insert(int id, long score, long time) {
+        var update = new Node[MAX_LEVEL];
+        var rank = new int[MAX_LEVEL];
+        var x = this.head;
+
+        // Find the last node before the new entry on every level, and its rank
+        for (int i = this.level - 1; i >= 0; i--) {
+            rank[i] = i == this.level - 1 ? 0 : rank[i + 1];
+
+            while (x.next[i] != null && compare(x.next[i], score, time, id) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+
+            update[i] = x;
+        }
+
+        // Add levels if the new node is higher than the list
+        int nodeLevel = randomLevel();
+
+        if (nodeLevel > this.level) {
+            for (int i = this.level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = this.head;
+                update[i].span[i] = this.size();
+            }
+
+            this.level = nodeLevel;
+        }
+
+        // Link node and fix spans
+        var node = new Node(id, score, time, nodeLevel);
+
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+
+        for (int i = nodeLevel; i < this.level; i++) {
+            update[i].span[i]++;
+        }
+
+        return node;
+    }
+
+    private void delete(Node node) {
+        var update = new Node[MAX_LEVEL];
+        var x = this.head;
+
+        for (int i = this.level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], node.score, node.time, node.id) < 0) {
+                x = x.next[i];
+            }
+
+            update[i] = x;
+        }
+
+        // Unlink node and fix spans
+        for (int i = 0; i < this.level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+
+        while (this.level > 1 && this.head.next[this.level - 1] == null) {
+            this.level--;
+        }
+    }
+
+    /**
+     * Returns a negative number if the node ranks before the given entry
+     */
+    private static int compare(Node node, long score, long time, int id) {
+        if (node.score != score) {
+            return node.score > score ? -1 : 1;
+        }
+
+        if (node.time != time) {
+            return Long.compare(node.time, time);
+        }
+
+        return Integer.compare(node.id, id);
+    }
+
+    private static int randomLevel() {
+        var random = ThreadLocalRandom.current();
+        int level = 1;
+
+        // 1 in 4 chance to go up a level
+        while (level < MAX_LEVEL && random.nextInt(4) == 0) {
+            level++;
+        }
+
+        return level;
+    }
+
+    private static class Node {
+        private final int id;
+        private final long score;
+        private final long time;
+        private final Node[] next;
+        private final int[] span;
+
+        private Node(int id, long score, long time, int level) {
+            this.id = id;
+            this.score = score;
+            this.time = time;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+}
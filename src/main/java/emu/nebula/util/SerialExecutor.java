@@ -0,0 +1,109 @@
+package emu.nebula.util;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import emu.nebula.Nebula;
+
+/**
+ * Mailbox style executor. Tasks submitted to the same executor are run one at a time in submission order,
+ * but different executors run in parallel on virtual threads.
+ */
+public class SerialExecutor implements Executor {
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("Mailbox-", 0).factory()
+    );
+
+    private final Queue<Runnable> tasks;
+    private final AtomicBoolean scheduled;
+    private volatile Thread owner;
+
+    public SerialExecutor() {
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean();
+    }
+
+    /**
+     * Returns true if the calling thread is currently running a task from this executor
+     */
+    public boolean isCurrentThread() {
+        return this.owner == Thread.currentThread();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.tasks.add(task);
+        this.schedule();
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        var future = new CompletableFuture<T>();
+
+        this.execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Runs the task on this executor and waits for the result. The task is run right away if we are already
+     * on this executor, so handlers and commands can call this without deadlocking themselves.
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        if (this.isCurrentThread()) {
+            return task.call();
+        }
+
+        try {
+            return this.submit(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception ex) {
+                throw ex;
+            }
+
+            throw e;
+        }
+    }
+
+    private void schedule() {
+        if (this.scheduled.compareAndSet(false, true)) {
+            VIRTUAL_THREADS.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        this.owner = Thread.currentThread();
+
+        try {
+            Runnable task;
+
+            while ((task = this.tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    Nebula.getLogger().error("Error running queued task", e);
+                }
+            }
+        } finally {
+            this.owner = null;
+            this.scheduled.set(false);
+
+            // A task may have been added after our last poll but before we released the flag
+            if (!this.tasks.isEmpty()) {
+                this.schedule();
+            }
+        }
+    }
+}
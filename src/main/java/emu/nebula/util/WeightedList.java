@@ -1,35 +1,85 @@
 package emu.nebula.util;
 
-import java.util.NavigableMap;
-import java.util.TreeMap;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Arrays;
+import java.util.function.Consumer;
 
+/**
+ * List of weighted results. Draws use an alias table that is built once after the list is changed,
+ * so picking a result is O(1).
+ */
 public class WeightedList<E> {
-    private final NavigableMap<Double, E> map = new TreeMap<>();
-    private double total = 0;
+    private double[] weights;
+    private Object[] values;
+    private int size;
+    
+    private volatile AliasTable table;
 
     public WeightedList() {
-
+        this.weights = new double[4];
+        this.values = new Object[4];
     }
 
     public WeightedList<E> add(double weight, E result) {
         if (weight <= 0) return this;
-        total += weight;
-        map.put(total, result);
+        
+        // Grow arrays
+        if (this.size == this.weights.length) {
+            this.weights = Arrays.copyOf(this.weights, this.size * 2);
+            this.values = Arrays.copyOf(this.values, this.size * 2);
+        }
+        
+        this.weights[this.size] = weight;
+        this.values[this.size] = result;
+        this.size++;
+        
+        // Table needs to be rebuilt
+        this.table = null;
+        return this;
+    }
+    
+    /**
+     * Builds the alias table now instead of on the first draw. Called when game data is loaded.
+     */
+    public WeightedList<E> build() {
+        this.getTable();
         return this;
     }
+    
+    private AliasTable getTable() {
+        var table = this.table;
+        
+        if (table == null) {
+            table = new AliasTable(this.weights, this.size);
+            this.table = table;
+        }
+        
+        return table;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        return (E) this.values[index];
+    }
 
     public E next() {
-        double value = ThreadLocalRandom.current().nextDouble() * total;
-        return map.higherEntry(value).getValue();
+        int index = this.getTable().next();
+        return index >= 0 ? this.get(index) : null;
+    }
+    
+    /**
+     * Draws multiple results
+     */
+    public void sample(int count, Consumer<E> consumer) {
+        this.getTable().sample(count, index -> consumer.accept(this.get(index)));
     }
 
     public int size() {
-        return map.size();
+        return this.size;
     }
 
     public void clear() {
-        this.map.clear();
-        this.total = 0;
+        Arrays.fill(this.values, 0, this.size, null);
+        this.size = 0;
+        this.table = null;
     }
-}
\ No newline at end of file
+}
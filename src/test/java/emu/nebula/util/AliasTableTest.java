@@ -0,0 +1,118 @@
+package emu.nebula.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class AliasTableTest {
+    private static final int DRAWS = 1_000_000;
+    
+    // Chi-square critical values at p = 0.001, indexed by degrees of freedom
+    private static final double[] CRITICAL = {0, 10.828, 13.816, 16.266, 18.467, 20.515, 22.458};
+    
+    @Test
+    public void testDistribution() {
+        double[] weights = {1, 2, 3, 4, 10, 80};
+        var table = new AliasTable(weights);
+        var random = new SplittableRandom(12345);
+        
+        long[] counts = new long[weights.length];
+        
+        for (int i = 0; i < DRAWS; i++) {
+            counts[table.next(random)]++;
+        }
+        
+        assertChiSquare(weights, counts);
+    }
+    
+    @Test
+    public void testZeroWeights() {
+        double[] weights = {0, 5, 0, 1, 0, 2};
+        var table = new AliasTable(weights);
+        var random = new SplittableRandom(54321);
+        
+        long[] counts = new long[weights.length];
+        
+        for (int i = 0; i < DRAWS; i++) {
+            counts[table.next(random)]++;
+        }
+        
+        // Zero weight entries must never be drawn
+        assertEquals(0, counts[0]);
+        assertEquals(0, counts[2]);
+        assertEquals(0, counts[4]);
+        
+        assertChiSquare(weights, counts);
+    }
+    
+    @Test
+    public void testSample() {
+        double[] weights = {0, 3, 1, 6};
+        var table = new AliasTable(weights);
+        
+        long[] counts = new long[weights.length];
+        table.sample(DRAWS, index -> counts[index]++);
+        
+        // Every draw is passed to the consumer
+        assertEquals(DRAWS, counts[0] + counts[1] + counts[2] + counts[3]);
+        assertEquals(0, counts[0]);
+        
+        assertChiSquare(weights, counts);
+    }
+    
+    @Test
+    public void testSizeLimit() {
+        // Only the first 2 weights are used, like WeightedList does with its backing array
+        double[] weights = {1, 1, 100, 100};
+        var table = new AliasTable(weights, 2);
+        var random = new SplittableRandom(1);
+        
+        assertEquals(2, table.size());
+        
+        for (int i = 0; i < 10_000; i++) {
+            int index = table.next(random);
+            assertTrue(index == 0 || index == 1);
+        }
+    }
+    
+    @Test
+    public void testEmpty() {
+        var table = new AliasTable(new double[0]);
+        
+        assertEquals(-1, table.next());
+        table.sample(10, index -> fail("Empty table should not draw"));
+    }
+    
+    /**
+     * Checks the counts against the expected frequencies. Entries with a weight of 0 are left out.
+     */
+    private static void assertChiSquare(double[] weights, long[] counts) {
+        double total = 0;
+        long draws = 0;
+        
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            draws += counts[i];
+        }
+        
+        double chiSquare = 0;
+        int categories = 0;
+        
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] == 0) {
+                continue;
+            }
+            
+            double expected = draws * weights[i] / total;
+            double diff = counts[i] - expected;
+            
+            chiSquare += diff * diff / expected;
+            categories++;
+        }
+        
+        double critical = CRITICAL[categories - 1];
+        assertTrue(chiSquare < critical, "Chi-square " + chiSquare + " is above " + critical);
+    }
+}